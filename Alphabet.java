@@ -0,0 +1,63 @@
+/*
+ * The 27 chars the dictionary structures can store.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Alphabet {
+    /** The same layout Trie uses for its child array: 'a' to 'z' are 0 to 25 and the apostrophe is hardcoded to 26.
+     * Structures that keep their own arrays of children share it through here.
+     **/
+
+    static final int SIZE = 27;
+
+    /***
+     * Takes a char and returns its slot. a == 0, z == 25, ' == 26.
+     * @param c char we want the slot of.
+     * @return the slot, or -1 if the char cannot be stored.
+     */
+    static int indexOf(char c){
+        if (c == '\''){
+            return 26;
+        }
+        if (c >= 'a' && c <= 'z'){
+            return c - 'a';
+        }
+        return -1;
+    }
+
+    /***
+     * The char stored in a slot, the reverse of indexOf.
+     * @param index slot from 0 to 26.
+     * @return the char.
+     */
+    static char charAt(int index){ return index == 26 ? '\'' : (char)('a' + index); }
+
+    /***
+     * Splits words into groups by their first char, in slot order. Words with different first chars go down
+     * different children of the root, so each group can be built on its own.
+     *
+     * Runtime: O(n) where n is the number of words.
+     * @param words the words to split.
+     * @return SIZE + 1 lists. List i holds the words starting with charAt(i), and the last one holds empty words.
+     */
+    static List<List<String>> byFirstChar(List<String> words){
+        List<List<String>> groups = new ArrayList<>();
+        for (int i = 0; i <= SIZE; i++){
+            groups.add(new ArrayList<>());
+        }
+        for (String word : words){
+            if (word.isEmpty()){
+                groups.get(SIZE).add(word);
+                continue;
+            }
+            int index = indexOf(word.charAt(0));
+            if (index < 0){
+                throw new IllegalArgumentException("Cannot store '" + word.charAt(0) + "' in " + word);
+            }
+            groups.get(index).add(word);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Burkhard-Keller Tree Implementation.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class BKTree implements Roots {
+
+    private BKNode root;
+    private int longest; // length of the longest word, to size the scratch tables for searches.
+
+    BKTree(){
+        root = null;
+        longest = 0;
+    }
+
+    private static class BKNode {
+        String word;
+        BKNode[] children; // children[d] is the subtree of words at distance d from this word, null until needed.
+
+        BKNode(String w) {
+            word = w;
+            children = null;
+        }
+
+        BKNode getChild(int distance) {
+            if (children == null || distance >= children.length)
+                return null;
+            return children[distance];
+        }
+
+        void setChild(int distance, BKNode child) {
+            if (children == null || distance >= children.length){
+                BKNode[] bigger = new BKNode[distance + 1];
+                if (children != null)
+                    System.arraycopy(children, 0, bigger, 0, children.length);
+                children = bigger;
+            }
+            children[distance] = child;
+        }
+    }
+
+    /***
+     * Adds a word. Starting at the root, it measures the distance to the node's word and follows the child for that
+     * distance until it finds an empty spot.
+     *
+     * Runtime: O(h*n^2) where h is the height of the tree and n is the word length, one distance per level.
+     * @param word the word we are adding.
+     */
+    @Override
+    public void add(String word){
+        longest = Math.max(longest, word.length());
+        if (root == null){
+            root = new BKNode(word);
+            return;
+        }
+        BKNode current = root;
+        while (true){
+            int distance = EditDistance.damerau(word, current.word);
+            if (distance == 0){
+                //Already there.
+                return;
+            }
+            BKNode child = current.getChild(distance);
+            if (child == null){
+                current.setChild(distance, new BKNode(word));
+                return;
+            }
+            current = child;
+        }
+    }
+
+    /***
+     * Checks a word by following the child at distance d from each node, where d is the distance to that node's word.
+     *
+     * Runtime: O(h*n^2) where h is the height of the tree and n is the word length.
+     * @param word The word we are looking for.
+     * @return true if the word exists in tree, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(String word){
+        BKNode current = root;
+        while (current != null){
+            int distance = EditDistance.damerau(word, current.word);
+            if (distance == 0){
+                return true;
+            }
+            current = current.getChild(distance);
+        }
+        return false;
+    }
+
+    /***
+     * Bounded suggest. If a node's word is d away from the misspelling, the triangle inequality says that the only
+     * children that can hold a word within the bound are the ones keyed d-bound through d+bound, so every other
+     * subtree is skipped. The bound shrinks every time a closer word turns up.
+     *
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        String nearest = null;
+        int bound = maxDistance;
+        if (root == null || bound < 0){
+            return null;
+        }
+
+        int[] table = new int[(word.length() + 2) * (longest + 2)];
+        int[] lastRow = new int[128];
+        Deque<BKNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        long probes = 0;
+        while (!stack.isEmpty()){
+            BKNode node = stack.pop();
+            int distance = EditDistance.damerau(word, node.word, table, lastRow);
+            probes++;
+            if (distance < bound || (distance == bound && (nearest == null || node.word.compareTo(nearest) < 0))){
+                nearest = node.word;
+                bound = distance;
+            }
+            if (node.children == null){
+                continue;
+            }
+            int high = Math.min(distance + bound, node.children.length - 1);
+            for (int d = Math.max(distance - bound, 1); d <= high; d++){
+                if (node.children[d] != null){
+                    stack.push(node.children[d]);
+                }
+            }
+        }
+        SpellMetrics.get().probed(probes);
+        return nearest;
+    }
+
+    /***
+     * Same search as the bounded suggest, offering every word it measures to nearest. The children searched are the
+     * ones within nearest's bound of each node, so the range narrows as the bound does.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        if (root == null){
+            return;
+        }
+        int[] table = new int[(word.length() + 2) * (longest + 2)];
+        int[] lastRow = new int[128];
+        Deque<BKNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        long probes = 0;
+        while (!stack.isEmpty() && nearest.bound() >= 0){
+            BKNode node = stack.pop();
+            int distance = EditDistance.damerau(word, node.word, table, lastRow);
+            probes++;
+            nearest.offer(node.word, distance);
+            if (node.children == null){
+                continue;
+            }
+            int bound = nearest.bound();
+            int high = Math.min(distance + bound, node.children.length - 1);
+            for (int d = Math.max(distance - bound, 1); d <= high; d++){
+                if (node.children[d] != null){
+                    stack.push(node.children[d]);
+                }
+            }
+        }
+        SpellMetrics.get().probed(probes);
+    }
+
+    /***
+     * Lists every word within radius edits of word, closest first and then in alphabetical order.
+     *
+     * Runtime: depends on the radius. Small radii only look at a small part of the tree, but a radius near the word
+     * length will visit most of it.
+     * @param word the word to search around.
+     * @param radius the most edits a word can be away.
+     * @return all words within radius.
+     */
+    public List<String> suggestAll(String word, int radius){
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int d = 0; d <= radius; d++){
+            byDistance.add(new ArrayList<>());
+        }
+        if (root != null && radius >= 0){
+            int[] table = new int[(word.length() + 2) * (longest + 2)];
+            int[] lastRow = new int[128];
+            Deque<BKNode> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()){
+                BKNode node = stack.pop();
+                int distance = EditDistance.damerau(word, node.word, table, lastRow);
+                if (distance <= radius){
+                    byDistance.get(distance).add(node.word);
+                }
+                if (node.children == null){
+                    continue;
+                }
+                int high = Math.min(distance + radius, node.children.length - 1);
+                for (int d = Math.max(distance - radius, 1); d <= high; d++){
+                    if (node.children[d] != null){
+                        stack.push(node.children[d]);
+                    }
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (List<String> words : byDistance){
+            words.sort(null);
+            result.addAll(words);
+        }
+        return result;
+    }
+
+    /***
+     * Estimates the heap used by the tree. Each node holds its word and a child array as long as its biggest
+     * child distance.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){
+        long bytes = MemoryEstimate.object(MemoryEstimate.REFERENCE + 4);
+        if (root == null){
+            return bytes;
+        }
+        Deque<BKNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()){
+            BKNode node = stack.pop();
+            bytes += MemoryEstimate.object(2 * MemoryEstimate.REFERENCE) + MemoryEstimate.string(node.word.length());
+            if (node.children != null){
+                bytes += MemoryEstimate.array(node.children.length, MemoryEstimate.REFERENCE);
+                for (BKNode child : node.children){
+                    if (child != null){
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+}
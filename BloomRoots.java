@@ -0,0 +1,217 @@
+/*
+ * Bloom filter in front of any Roots object, to turn away most misspellings without walking the structure.
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BloomRoots implements Roots {
+    /** Every word that is added also sets k bits in a bit array. checkWord looks at those k bits for the word first,
+     * and if any of them is clear the word was never added, so it says no right away and the structure is never
+     * touched. If they are all set the word is probably there, and the structure gives the real answer. So the filter
+     * can only ever let through a word that is not there (a false positive), it never turns away a real word.
+     *
+     * With b bits per word and k = b ln 2 hash functions, about 0.6185^b of the misspellings get through, so 10 bits
+     * per word stops all but about 1 in 120. The bits come from one 64 bit hash of the chars, split into two halves
+     * and combined as h1 + i * h2 for the i-th bit, so a lookup hashes the word once and makes no String. That 32 bit
+     * value is scaled onto the array with a multiply and a shift, so the array can be exactly b bits per word.
+     *
+     * The bit array is sized from the first addAll, which is the whole dictionary. Words added after that still go
+     * in, they just fill the filter past what it was sized for and let more misspellings through. Bits are set with
+     * compareAndSet, so adding from many threads, or while others check, never loses a bit.
+     **/
+
+    // Used when words are added one at a time before any addAll says how many to expect.
+    private static final int DEFAULT_WORDS = 1 << 16;
+
+    private final Roots roots;
+    private final int bitsPerWord;
+    private final int hashes;
+    private volatile AtomicLongArray bits;
+    private volatile long length;
+
+    private final LongAdder rejected;
+    private final LongAdder passed;
+    private final LongAdder falsePositives;
+
+    /***
+     * @param roots the structure holding the dictionary.
+     * @param bitsPerWord how many bits of filter to give each word. More bits means fewer false positives.
+     */
+    BloomRoots(Roots roots, int bitsPerWord){
+        if (bitsPerWord < 1){
+            throw new IllegalArgumentException("bloom filter needs at least 1 bit per word, got " + bitsPerWord);
+        }
+        this.roots = roots;
+        this.bitsPerWord = bitsPerWord;
+        this.hashes = Math.max(1, (int) Math.round(bitsPerWord * Math.log(2)));
+        this.rejected = new LongAdder();
+        this.passed = new LongAdder();
+        this.falsePositives = new LongAdder();
+    }
+
+    /***
+     * Puts a Bloom filter in front of roots, or gives it back as it is if bitsPerWord is 0 or less. Has to be done
+     * before the dictionary is added, since the filter is built as the words go in.
+     * @param roots the empty structure.
+     * @param bitsPerWord the bloom.bits from the config file.
+     * @return the Roots object to add the dictionary to and check words with.
+     */
+    static Roots wrap(Roots roots, int bitsPerWord){
+        return bitsPerWord > 0 ? new BloomRoots(roots, bitsPerWord) : roots;
+    }
+
+    @Override
+    public void add(String word){
+        if (bits == null){
+            size(DEFAULT_WORDS);
+        }
+        set(word);
+        roots.add(word);
+    }
+
+    /***
+     * Adds the words to the filter and then to the structure. The first call sizes the filter for the list.
+     * @param words the words we are adding.
+     */
+    @Override
+    public void addAll(List<String> words){
+        if (bits == null){
+            size(Math.max(words.size(), 1));
+        }
+        for (String word : words){
+            set(word);
+        }
+        roots.addAll(words);
+    }
+
+    @Override
+    public boolean checkWord(String word){ return checkWord(word, 0, word.length()); }
+
+    /***
+     * Looks at the word's bits first and only asks the structure if they are all set.
+     *
+     * Runtime: O(n + k) where n is length of word and k is the number of hashes when the filter says no, otherwise
+     * that plus the runtime of the wrapped checkWord.
+     * @param word holds the word we are looking for.
+     * @param from index of the first char of the word.
+     * @param to index just past the last char of the word.
+     * @return true if the word exists, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        AtomicLongArray filter = bits;
+        if (filter != null && !mightContain(filter, hash(word, from, to))){
+            rejected.increment();
+            return false;
+        }
+        passed.increment();
+        if (roots.checkWord(word, from, to)){
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    @Override
+    public String suggest(String word){ return roots.suggest(word); }
+
+    @Override
+    public String suggest(String word, int maxDistance){ return roots.suggest(word, maxDistance); }
+
+    @Override
+    public void collect(String word, Nearest nearest){ roots.collect(word, nearest); }
+
+    @Override
+    public void rankCompletions(WordFrequencies frequencies, int k){ roots.rankCompletions(frequencies, k); }
+
+    @Override
+    public List<String> complete(String prefix, int k){ return roots.complete(prefix, k); }
+
+    @Override
+    public long sizeInBytes(){
+        AtomicLongArray filter = bits;
+        long bytes = MemoryEstimate.object(2 * MemoryEstimate.REFERENCE + 2 * 4 + 8 + 3 * MemoryEstimate.REFERENCE);
+        if (filter != null){
+            bytes += MemoryEstimate.object(MemoryEstimate.REFERENCE) + MemoryEstimate.array(filter.length(), 8);
+        }
+        return bytes + roots.sizeInBytes();
+    }
+
+    /***
+     * Makes the bit array, rounded up to whole longs.
+     */
+    private synchronized void size(int words){
+        if (bits != null){
+            return;
+        }
+        long longs = Math.min(((long) words * bitsPerWord + 63) / 64, Integer.MAX_VALUE);
+        length = longs * 64;
+        bits = new AtomicLongArray((int) longs);
+    }
+
+    /***
+     * The i-th bit for a hash, somewhere in [0, length).
+     */
+    private long bit(int h1, int h2, int i){
+        return ((h1 + i * h2) & 0xffffffffL) * length >>> 32;
+    }
+
+    private void set(String word){
+        long hash = hash(word, 0, word.length());
+        AtomicLongArray filter = bits;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++){
+            long bit = bit(h1, h2, i);
+            long flag = 1L << bit;
+            int index = (int) (bit >>> 6);
+            long old = filter.get(index);
+            while ((old & flag) == 0 && !filter.compareAndSet(index, old, old | flag)){
+                old = filter.get(index);
+            }
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray filter, long hash){
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++){
+            long bit = bit(h1, h2, i);
+            if ((filter.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /***
+     * 64 bit FNV-1a over the chars, then mixed so both halves are usable as separate hashes.
+     */
+    private static long hash(CharSequence word, int from, int to){
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++){
+            hash = (hash ^ word.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /***
+     * How many words the filter turned away and how many it wrongly let through, for the end of a run.
+     */
+    @Override
+    public String toString(){
+        long no = rejected.sum();
+        long yes = passed.sum();
+        long wrong = falsePositives.sum();
+        long misses = no + wrong;
+        AtomicLongArray filter = bits;
+        return "Bloom Filter: " + (filter != null ? filter.length() * 8L / 1024 : 0) + " KB, " + hashes + " hashes. "
+                + no + " rejected, " + yes + " passed to the structure, " + wrong + " false positives"
+                + (misses > 0 ? " (" + String.format("%.2f", 100.0 * wrong / misses) + "% of misspellings)" : "")
+                + ".";
+    }
+}
@@ -5,19 +5,35 @@
  */
 
 import java.io.*;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 
 public class CS245A1 {
+    // How many lines of the --report misspelling report are printed, the whole report is in the output file.
+    private static final int REPORT_CONSOLE_LINES = 20;
+
     public static void main(String[] args){
 
         System.out.println("Welcome to Connor's Spell Checker!\n");
 
-        if(args.length != 2)
+        boolean compile = args.length == 1 && args[0].compareTo("--compile") == 0;
+        if(args.length < 2 && !compile && !serving(args))
         {
-            System.out.println("Proper Usage is: java [inputfile] [outputfile]");
+            System.out.println("Proper Usage is: java [inputfile] [outputfile] [--threads N] [--dedupe | --report]");
+            System.out.println("          or: java --compile (writes the dictionary snapshot for storage=mapped)");
+            System.out.println("          or: java --serve [port] (checks words POSTed to http://localhost:"
+                    + SpellServer.DEFAULT_PORT + "/check)");
             System.out.println("Exiting...");
             System.exit(1);
         }
@@ -29,85 +45,364 @@ public class CS245A1 {
             prop.load(input);
             String ds_type = prop.getProperty("storage");
             String dict_url = prop.getProperty("dict.url");
+            String snapshot = prop.getProperty("snapshot.path", DictionaryLoader.DEFAULT_SNAPSHOT);
+            int cacheSize = cacheSize(prop.getProperty("cache.size"));
+            int bloomBits = bloomBits(prop.getProperty("bloom.bits"));
+            SuggestMode mode = suggestMode(prop.getProperty("suggest.count"),
+                    prop.getProperty("freq.path", WordFrequencies.DEFAULT_PATH),
+                    prop.getProperty("suggest.budget.ms"));
+
+            //Metrics are always on JMX, and printed every metrics.interval seconds if that is set.
+            SpellMetrics.get().register();
+            SpellMetrics.get().startReporting(metricsInterval(prop.getProperty("metrics.interval")));
+
+            if (compile){
+                //Only build the Double-Array Trie and write it out.
+                DictionaryLoader.compileSnapshot(dict_url, snapshot);
+                return;
+            }
 
             //Looking at values from config file, this will choose what kind of tree to make.
             if (ds_type.compareTo("tree") == 0){
                 //Make single-single-char-per-node Trie
                 System.out.println("Selecting Tree...");
-                Tree tree = new Tree();
-                run(tree,dict_url, args);
+                run(Tree::new, dict_url, bloomBits, cacheSize, mode, args);
             } else if (ds_type.compareTo("trie") == 0){
                 //Make Prefix Trie
                 System.out.println("Selecting Trie...");
-                Trie trie = new Trie();
-                run(trie, dict_url, args);
+                run(Trie::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("symspell") == 0){
+                //Make Symmetric Delete index
+                System.out.println("Selecting SymSpell...");
+                run(SymSpell::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("bktree") == 0){
+                //Make BK-Tree
+                System.out.println("Selecting BK-Tree...");
+                run(BKTree::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("datrie") == 0){
+                //Make Double-Array Trie
+                System.out.println("Selecting Double-Array Trie...");
+                run(DoubleArrayTrie::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("dawg") == 0){
+                //Make minimal automaton
+                System.out.println("Selecting DAWG...");
+                run(Dawg::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("concurrent") == 0){
+                //Make Trie that can be read while words are added
+                System.out.println("Selecting Concurrent Trie...");
+                run(ConcurrentTrie::new, dict_url, bloomBits, cacheSize, mode, args);
+            } else if (ds_type.compareTo("mapped") == 0){
+                //Map the compiled Double-Array Trie snapshot instead of adding the words again.
+                System.out.println("Selecting Mapped Snapshot...");
+                DoubleArrayTrie mapped = DictionaryLoader.loadSnapshot(dict_url, snapshot);
+                if (serving(args)){
+                    //A reload would have to compile a new snapshot, so the server answers POST /reload with 404.
+                    System.out.println("Mapped Snapshots are not Reloaded. Run --compile and Restart to Pick Up a New "
+                            + "english.0...");
+                }
+                checkCached(mapped, cacheSize, mode, args);
             } else {
                 //Default to Trie if config is set to unknown value.
                 System.out.println("Unknown Structure ... Defaulting to Trie...");
-                Trie trie = new Trie();
-                run(trie, dict_url, args);
+                run(Trie::new, dict_url, bloomBits, cacheSize, mode, args);
             }
 
         } catch (IOException ex) {
             //Default to Trie if there is no config file. Can send null for URL so it will look for local.
             System.out.println("Config File Not Found.. Defaulting to Local english.0 and Trie...");
-            Trie trie = new Trie();
-            run(trie,null, args);
+            if (compile){
+                DictionaryLoader.compileSnapshot(null, DictionaryLoader.DEFAULT_SNAPSHOT);
+                return;
+            }
+            run(Trie::new, null, 0, 0, SuggestMode.SINGLE, args);
+        }
+    }
+
+    /***
+     * This function is called from main, it makes the Roots object determined by the config file and adds the
+     * dictionary to it before checking the input file. With --serve the structure can be made again, so the server
+     * can reload the dictionary when english.0 changes.
+     * @param storage makes the Roots object, either Trie or Tree depending on config file.
+     * @param englishUrl the URL from the config that points to the online english.0.
+     * @param bloomBits bits per word for the Bloom filter, 0 for no filter.
+     * @param cacheSize how many suggestions to cache, 0 for no cache.
+     * @param mode how to suggest for each misspelled word.
+     * @param args the launch args are passed here so it can get the user defined names for input.txt and output.txt
+     */
+    private static void run(Supplier<Roots> storage, String englishUrl, int bloomBits, int cacheSize,
+                            SuggestMode mode, String[] args){
+
+        if (serving(args)){
+            serveReloadable(storage, englishUrl, bloomBits, cacheSize, mode, args);
+            return;
+        }
+        Roots tree = storage.get();
+
+        //The filter is filled as the words go in, so it goes in front before the dictionary is added.
+        Roots filtered = BloomRoots.wrap(tree, bloomBits);
+
+        //Add the dictionary values to the tree before we start asking it questions.
+        DictionaryLoader.addDictionary(englishUrl, filtered);
+        checkCached(filtered, cacheSize, mode, args);
+        if (filtered != tree){
+            System.out.println(filtered);
+        }
+    }
+
+    /***
+     * Puts the suggestion cache in front of the tree if the config asks for one, checks the input file, and then
+     * prints how well the cache did. With --serve it starts the server instead.
+     * @param tree the Roots object holding the dictionary.
+     * @param cacheSize how many suggestions to cache, 0 for no cache.
+     * @param mode how to suggest for each misspelled word.
+     * @param args the launch args.
+     */
+    private static void checkCached(Roots tree, int cacheSize, SuggestMode mode, String[] args){
+        Roots checked = CachingRoots.wrap(tree, cacheSize);
+        if (serving(args)){
+            serve(checked, mode, null, args);
+            return;
+        }
+        check(checked, mode, args);
+        if (checked != tree){
+            System.out.println(checked);
+        }
+    }
+
+    /***
+     * @param args the launch args.
+     * @return true if the first one is --serve.
+     */
+    private static boolean serving(String[] args){
+        return args.length > 0 && args[0].compareTo("--serve") == 0;
+    }
+
+    /***
+     * Builds the dictionary and serves it, building it again in the background whenever the local english.0 changes
+     * or POST /reload is sent. The first build and POST /reload read the URL if it can be reached and the local copy
+     * if not. A change to the local english.0 is built from that file, so the edit is what gets served even when a
+     * URL is set. Each reload makes the filter and the cache again too.
+     * @param storage makes the Roots object.
+     * @param englishUrl the URL from the config that points to the online english.0, or null.
+     * @param bloomBits bits per word for the Bloom filter, 0 for no filter.
+     * @param cacheSize how many suggestions to cache, 0 for no cache.
+     * @param mode how to suggest for each misspelled word.
+     * @param args the launch args.
+     */
+    private static void serveReloadable(Supplier<Roots> storage, String englishUrl, int bloomBits, int cacheSize,
+                                        SuggestMode mode, String[] args){
+        Supplier<Roots> factory = () -> CachingRoots.wrap(BloomRoots.wrap(storage.get(), bloomBits), cacheSize);
+        Roots first = factory.get();
+        DictionaryLoader.addDictionary(englishUrl, first);
+        ReloadableRoots reloadable = new ReloadableRoots(first, factory,
+                () -> DictionaryLoader.reopenDictionary(englishUrl));
+        try {
+            reloadable.watch(Paths.get(DictionaryLoader.LOCAL_DICTIONARY));
+            System.out.println("Watching " + DictionaryLoader.LOCAL_DICTIONARY + " for Changes...");
+        } catch (IOException e) {
+            System.out.println("Could not Watch " + DictionaryLoader.LOCAL_DICTIONARY + " (" + e
+                    + "). Reloading on POST /reload Only...");
+        }
+        serve(reloadable, mode, reloadable::reload, args);
+    }
+
+    /***
+     * Starts the server on the port after --serve, or SpellServer.DEFAULT_PORT. The server keeps the JVM running until
+     * it is killed, and then prints the metrics summary.
+     * @param tree the Roots object holding the dictionary.
+     * @param mode how to suggest for each misspelled word.
+     * @param reload starts a reload of the dictionary, null if it cannot be reloaded.
+     * @param args the launch args.
+     */
+    private static void serve(Roots tree, SuggestMode mode, Runnable reload, String[] args){
+        int port = SpellServer.DEFAULT_PORT;
+        if (args.length > 1){
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (port < 0 || port > 65535){
+                System.out.println("--serve needs a port number, got " + args[1] + ". Exiting...");
+                System.exit(1);
+            }
+        }
+        try {
+            SpellServer server = new SpellServer(tree, word -> mode.suggest(tree, word), reload, port);
+            SpellMetrics.get().checkStarted();
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                System.out.println("\nStopped Server");
+                System.out.println(SpellMetrics.get().getSummary());
+            }));
+            System.out.println("Serving on http://localhost:" + server.port() + "/check ...");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Could not listen on port " + port + ". Exiting...");
+            System.exit(1);
+        }
+    }
+
+    /***
+     * Reads metrics.interval from the config file, in seconds.
+     * @param value the property, or null.
+     * @return seconds between summaries, 0 for none.
+     */
+    private static long metricsInterval(String value){
+        if (value == null){
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("metrics.interval needs to be a number of seconds, got " + value + ". Exiting...");
+            System.exit(1);
+            return 0;
         }
     }
 
     /***
-     * This function is called from main, it takes the Roots object determined by the config file. Then it opens
-     * input.txt, and output.txt. For every line in input.txt, it will take the word, and check that it is in the tree.
-     * If it is in the tree, it will write the same line to the output file. If the word is not there it will ask the
-     * tree for a suggestion and put the suggested word in output.txt.
+     * Reads suggest.count and suggest.budget.ms from the config file. Without either, each misspelled word gets the
+     * one suggestion from suggest(). With suggest.count it gets that many from suggestTop(), ranked by edit distance
+     * and then by the counts in the count file. With suggest.budget.ms it gets the closest word that can be found in
+     * that many milliseconds. suggest.count wins if both are set.
+     * @param count the suggest.count property, or null.
+     * @param freqPath where the word counts are, they are only read if suggest.count is set.
+     * @param budget the suggest.budget.ms property, or null.
+     * @return how to suggest.
+     */
+    private static SuggestMode suggestMode(String count, String freqPath, String budget){
+        if (count != null){
+            int k = positive(count, "suggest.count");
+            return new SuggestMode(k, WordFrequencies.load(freqPath), null);
+        }
+        if (budget != null){
+            return new SuggestMode(0, WordFrequencies.NONE, Duration.ofMillis(positive(budget, "suggest.budget.ms")));
+        }
+        return SuggestMode.SINGLE;
+    }
+
+    /***
+     * Reads a property that has to be a number above 0, exiting if it is not.
+     */
+    private static int positive(String value, String name){
+        int number = 0;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            number = 0;
+        }
+        if (number < 1){
+            System.out.println(name + " needs to be a number above 0, got " + value + ". Exiting...");
+            System.exit(1);
+        }
+        return number;
+    }
+
+    /***
+     * Reads bloom.bits from the config file, the bits of Bloom filter per dictionary word. It is off unless it is set.
+     * @param value the property, or null.
+     * @return bits per word, 0 for no filter.
+     */
+    private static int bloomBits(String value){
+        if (value == null){
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.out.println("bloom.bits needs to be a number, got " + value + ". Exiting...");
+            System.exit(1);
+            return 0;
+        }
+    }
+
+    /***
+     * Reads cache.size from the config file. It is off unless it is set.
+     * @param value the property, or null.
+     * @return the number of suggestions to cache.
+     */
+    private static int cacheSize(String value){
+        if (value == null){
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.out.println("cache.size needs to be a number, got " + value + ". Exiting...");
+            System.exit(1);
+            return 0;
+        }
+    }
+
+    /***
+     * Takes a Roots object that already holds the dictionary. Then it opens input.txt, and output.txt. For every line
+     * in input.txt, it will take the word, and check that it is in the tree. If it is in the tree, it will write the
+     * same line to the output file. If the word is not there it will ask the tree for a suggestion and put the
+     * suggested word in output.txt.
      *
      * Runtime: 0(n) where n is the amount of lines in input file. This runtime does not include the runtimes for
      * checkWord() or suggest(). Worst case runtime = 0(n * runtime of suggest()).
      * @param tree pass the Roots object, either Trie or Tree depending on config file.
-     * @param englishUrl the URL from the config that points to the online english.0.
-     * @param args the launch args are passed here so it can get the user defined names for input.txt and output.txt
+     * @param mode how to suggest for each misspelled word.
+     * @param args the launch args are passed here so it can get the user defined names for input.txt and output.txt,
+     *             an optional "--threads N" to check the words on N worker threads, and an optional "--dedupe" to
+     *             check each distinct word once or "--report" to write a list of the misspellings instead.
      */
-    private static void run(Roots tree, String englishUrl, String[] args){
+    private static void check(Roots tree, SuggestMode mode, String[] args){
 
-        //Add the dictionary values to the tree before we start asking it questions.
-        addDictionary(englishUrl, tree);
+        int threads = 1;
+        String threadsArg = option(args, "--threads");
+        if (threadsArg != null){
+            try {
+                threads = Integer.parseInt(threadsArg);
+            } catch (NumberFormatException e) {
+                threads = 0;
+            }
+            if (threads < 1){
+                System.out.println("--threads needs a number of threads, got " + threadsArg + ". Exiting...");
+                System.exit(1);
+            }
+        }
+        boolean report = flag(args, "--report");
+        boolean distinct = report || flag(args, "--dedupe");
 
         //Todo redo the print lines so it makes sense, comment the extra verbose but useful ones.
         System.out.println("Input File: " + args[0] + " Output File:" + args[1]);
         System.out.println("Checking Words: \n");
 
+        SpellMetrics metrics = SpellMetrics.get();
+        metrics.checkStarted();
+
         BufferedWriter output = null;
+        //Results are printed through a buffer too, printf and println flush the console for every word.
+        BufferedWriter console = new BufferedWriter(new OutputStreamWriter(System.out));
         try {
             //get output file
             output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(args[1]))));
 
             //get input file
-            try(BufferedReader input = new BufferedReader(new FileReader(args[0]))) {
-                String line;
-                while ((line = input.readLine()) != null) {
-                    //Loop through lines on input file.
-                    line = line.replaceAll("[^a-zA-Z']", "").toLowerCase();
-                    if (line.compareTo("") == 0){
-                        continue;
-                    }
-
-                    if (tree.checkWord(line)){
-                        //If the line (word) is a correct spelling, write the input line to the output file.
-                        output.write(line);
-                        output.newLine();
-
-                        int i = 1;
-                        System.out.printf("%-20s %-20s", line, "(Correct)");
-                        System.out.println();
-
-                    } else {
-                        //If the word does not match, write the suggested string.
-                        String suggest = tree.suggest(line);
-                        output.write(suggest);
-                        output.newLine();
-                        System.out.printf("%-20s %-20s", line, "(Incorrect Suggested: " + suggest +")");
-                        System.out.println();
+            try(Reader input = new FileReader(args[0])) {
+                //The tokenizer reuses one buffer for every word, so no Strings are made for words that are correct.
+                WordTokenizer words = new WordTokenizer(input);
+                if (distinct){
+                    checkDistinct(tree, mode, words, args[0], output, console, threads, report);
+                } else if (threads > 1){
+                    checkParallel(tree, mode, words, output, console, threads);
+                } else {
+                    while (words.next()) {
+                        //Loop through lines on input file.
+                        boolean correct = tree.checkWord(words);
+                        metrics.checked(correct);
+                        if (correct){
+                            //If the line (word) is a correct spelling, write the input line to the output file.
+                            writeResult(output, console, words, null);
+
+                        } else {
+                            //If the word does not match, write the suggested string.
+                            writeResult(output, console, words, mode.suggest(tree, words.toString()));
+                        }
                     }
                 }
             }catch (IOException e) {
@@ -117,6 +412,7 @@ public class CS245A1 {
             }
 
             output.close();
+            console.flush();
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -124,95 +420,338 @@ public class CS245A1 {
             System.exit(1);
         }
 
+        metrics.checkFinished();
+        metrics.stopReporting();
         System.out.println("\nCompleted Spellcheck");
+        System.out.println(metrics.getSummary());
     }
 
     /***
-     * This function will take a tree object and then find an english.0 file, either online from GitHub, or locally.
-     * Once it finds this file, it will read it line by line, adding the words to the tree object we gave it.
+     * Parallel version of the check loop. Every word is handed to a pool of worker threads that share the same Roots
+     * object, which is only read from. Each word and its Future are kept in a queue in input order and the main thread
+     * writes each result as soon as the one at the front is done, so the output file comes out in the same order as
+     * the input. The queue is capped so a huge input file does not end up all in memory at once.
      *
-     * Runtime: 0(n) where n is the size of the input dictionary.
-     * @param urlStr takes the URL of the online english.0 file we get from config file
-     * @param tree Takes the Tree object we created in the runTree or runTrie function.
+     * Runtime: 0(n / threads * runtime of suggest()) where n is the amount of lines in the input file.
+     * @param tree the Roots object holding the dictionary.
+     * @param mode how to suggest for each misspelled word.
+     * @param input the words of the input file, read to the end.
+     * @param output the output file.
+     * @param console where the results are printed.
+     * @param threads how many worker threads to use.
+     * @throws IOException if the input or output file fails.
      */
-    private static void addDictionary(String urlStr, Roots tree){
-
-        System.out.println("Adding Dictionary...");
-        int wordLimit = 100000000;
+    private static void checkParallel(Roots tree, SuggestMode mode, WordTokenizer input, Writer output,
+                                      Writer console, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        SpellMetrics metrics = SpellMetrics.get();
+        Deque<PendingWord> pending = new ArrayDeque<>();
+        int window = threads * 64;
+        try {
+            while (input.next()) {
+                //The worker needs its own copy, the tokenizer moves on to the next word.
+                String word = input.toString();
+                //A null result means the word is spelled correctly.
+                pending.add(new PendingWord(word, pool.submit(() -> {
+                    boolean correct = tree.checkWord(word);
+                    metrics.checked(correct);
+                    return correct ? null : mode.suggest(tree, word);
+                })));
+
+                if (pending.size() >= window){
+                    PendingWord next = pending.poll();
+                    writeResult(output, console, next.word, await(next.result));
+                }
+            }
+            while (!pending.isEmpty()){
+                PendingWord next = pending.poll();
+                writeResult(output, console, next.word, await(next.result));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
+    /***
+     * Two pass version of the check loop, for big inputs where the same words come up over and over. The first pass
+     * only counts the distinct words, in a TokenTable. Then each distinct word is checked, and suggested for if it is
+     * misspelled, exactly once. Last the input is read again and each line is answered from that table in input
+     * order, or with report a list of the misspellings, most common first, is written instead.
+     *
+     * Runtime: 0(n + d * runtime of suggest()) where n is the amount of lines in the input file and d is the number
+     * of distinct words in it.
+     * @param tree the Roots object holding the dictionary.
+     * @param mode how to suggest for each misspelled word.
+     * @param input the words of the input file, read to the end.
+     * @param inputPath the input file, to read it again.
+     * @param output the output file.
+     * @param console where the results are printed.
+     * @param threads how many worker threads to check the distinct words on.
+     * @param report true to write the misspelling report instead of the answer for each line.
+     * @throws IOException if the input or output file fails.
+     */
+    private static void checkDistinct(Roots tree, SuggestMode mode, WordTokenizer input, String inputPath,
+                                      Writer output, Writer console, int threads, boolean report) throws IOException {
+        TokenTable table = new TokenTable();
+        long lines = 0;
+        while (input.next()){
+            table.add(input);
+            lines++;
+        }
+        console.write(lines + " Words, " + table.size() + " Distinct." + System.lineSeparator());
 
-        Reader obj = null;
+        String[] resolved = resolve(tree, mode, table, threads);
 
-        if (urlStr != null) {
+        if (report){
+            writeReport(output, console, table, resolved);
+            return;
+        }
+        try (Reader again = new FileReader(inputPath)) {
+            WordTokenizer words = new WordTokenizer(again);
+            while (words.next()){
+                int id = table.find(words);
+                if (id < 0){
+                    //The file changed after the first pass, so this word was never checked.
+                    boolean correct = tree.checkWord(words);
+                    SpellMetrics.get().checked(correct);
+                    writeResult(output, console, words, correct ? null : mode.suggest(tree, words.toString()));
+                } else {
+                    writeResult(output, console, words, resolved[id]);
+                }
+            }
+        }
+    }
 
-            URL url = null;
-            try {
-                url = new URL(urlStr);
+    /***
+     * Checks every distinct word once, splitting them up across a pool of worker threads if there is more than one.
+     * @param tree the Roots object holding the dictionary.
+     * @param mode how to suggest for each misspelled word.
+     * @param table the distinct words.
+     * @param threads how many worker threads to use.
+     * @return the suggestion for each word by id, null if it is spelled correctly.
+     */
+    private static String[] resolve(Roots tree, SuggestMode mode, TokenTable table, int threads){
+        String[] resolved = new String[table.size()];
+        if (threads < 2){
+            resolve(tree, mode, table, resolved, 0, table.size());
+            return resolved;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            //More parts than threads, so a part full of slow suggests does not hold the others up.
+            int part = Math.max(1, (table.size() + threads * 8 - 1) / (threads * 8));
+            List<Future<String>> parts = new ArrayList<>();
+            for (int from = 0; from < table.size(); from += part){
+                int start = from;
+                int end = Math.min(table.size(), from + part);
+                parts.add(pool.submit(() -> {
+                    resolve(tree, mode, table, resolved, start, end);
+                    return null;
+                }));
+            }
+            for (Future<String> result : parts){
+                await(result);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return resolved;
+    }
 
-                try {
-                    obj = new InputStreamReader(url.openStream());
-                } catch (IOException e) {
-                    System.out.println("Unable to Access Online english.0. Defaulting to Local...");
-                    obj = getLocalEnglish();
-                }
+    private static void resolve(Roots tree, SuggestMode mode, TokenTable table, String[] resolved, int from, int to){
+        SpellMetrics metrics = SpellMetrics.get();
+        for (int id = from; id < to; id++){
+            String word = table.word(id);
+            boolean correct = tree.checkWord(word);
+            metrics.checked(correct, table.count(id));
+            resolved[id] = correct ? null : mode.suggest(tree, word);
+        }
+    }
 
-            } catch (MalformedURLException e) {
-                System.out.println("Invalid URL. Defaulting to Local...");
-                obj = getLocalEnglish();
+    /***
+     * Writes each distinct misspelling with how many times it came up and its suggestion, most common first, one
+     * tab separated line each. The console only gets the first few.
+     * @param output the output file.
+     * @param console where the top of the report is printed.
+     * @param table the distinct words.
+     * @param resolved the suggestion for each word by id, null if it is spelled correctly.
+     * @throws IOException if the output file fails.
+     */
+    private static void writeReport(Writer output, Writer console, TokenTable table, String[] resolved)
+            throws IOException {
+        List<Integer> misspelled = new ArrayList<>();
+        for (int id = 0; id < table.size(); id++){
+            if (resolved[id] != null){
+                misspelled.add(id);
             }
+        }
+        misspelled.sort((a, b) -> table.count(a) != table.count(b) ? Long.compare(table.count(b), table.count(a))
+                : table.word(a).compareTo(table.word(b)));
+        console.write(misspelled.size() + " Distinct Misspellings:" + System.lineSeparator());
+        for (int i = 0; i < misspelled.size(); i++){
+            int id = misspelled.get(i);
+            String line = table.count(id) + "\t" + table.word(id) + "\t" + resolved[id];
+            output.write(line);
+            output.write(System.lineSeparator());
+            if (i < REPORT_CONSOLE_LINES){
+                console.write(line);
+                console.write(System.lineSeparator());
+            }
+        }
+        if (misspelled.size() > REPORT_CONSOLE_LINES){
+            console.write("..." + System.lineSeparator());
+        }
+    }
 
+    /***
+     * Waits for a word's result from the worker pool.
+     * @param result the Future for the word.
+     * @return the suggestion, or null if the word was correct.
+     */
+    private static String await(Future<String> result){
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking words", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Checking a word failed", e.getCause());
+        }
+    }
+
+    /***
+     * Writes one checked word to the output file and prints it to the console, padded the same as
+     * printf("%-20s %-20s").
+     * @param output the output file.
+     * @param console where the results are printed.
+     * @param word the word from the input file.
+     * @param suggest the suggested spelling, or null if the word is spelled correctly.
+     * @throws IOException if the output file fails.
+     */
+    private static void writeResult(Writer output, Writer console, CharSequence word, String suggest)
+            throws IOException {
+        if (suggest == null){
+            write(output, word);
+            output.write(System.lineSeparator());
+            write(console, word);
+            pad(console, word.length());
+            console.write(' ');
+            console.write("(Correct)");
+            pad(console, "(Correct)".length());
         } else {
-            System.out.println("URL for english.0 not found in config. Defaulting to Local...");
-            obj = getLocalEnglish();
+            output.write(suggest);
+            output.write(System.lineSeparator());
+            String result = "(Incorrect Suggested: " + suggest +")";
+            write(console, word);
+            pad(console, word.length());
+            console.write(' ');
+            console.write(result);
+            pad(console, result.length());
         }
+        console.write(System.lineSeparator());
+    }
 
-        if (obj != null){
-            try (BufferedReader br = new BufferedReader(obj)) {
-                String line;
-                int counter = 0;
-                while ((line = br.readLine()) != null) {
+    /***
+     * Writes a word, copying straight out of the tokenizer's buffer if that is where it is.
+     */
+    private static void write(Writer out, CharSequence word) throws IOException {
+        if (word instanceof WordTokenizer){
+            ((WordTokenizer) word).writeTo(out);
+        } else {
+            out.write(word.toString());
+        }
+    }
 
-                    if (line.compareTo("") != 0) {
-                        //System.out.println(line);
-                        // read each word from the file and check if it in the dictionary
-                        tree.add(line.toLowerCase());
+    /***
+     * Pads a column out to 20 chars, like %-20s.
+     */
+    private static void pad(Writer out, int length) throws IOException {
+        for (int i = length; i < 20; i++){
+            out.write(' ');
+        }
+    }
 
-                        if (counter == wordLimit) {
-                            break;
-                        }
-                        counter++;
-                    }
-                }
-            } catch (IOException e) {
-                System.out.println("Failed File Input. Exiting.");
-                System.exit(1);
+    /***
+     * Looks for an option with no value, like "--dedupe", after the input and output file names.
+     * @param args the launch args.
+     * @param name the option, including the dashes.
+     * @return true if it is there.
+     */
+    private static boolean flag(String[] args, String name){
+        for (int i = 2; i < args.length; i++){
+            if (args[i].compareTo(name) == 0){
+                return true;
             }
-
-            System.out.println("Dictionary Added.");
-        } else {
-            System.out.println("Unable to find an english.0. Exiting...");
-            System.exit(1);
         }
+        return false;
     }
 
     /***
-     * getLocalEnglish() is called when we need to look for a local copy of engligh.0 of we can't connect to the web and
-     * download the online version from GitHub. If we cant find the file locally we need to exit and give up because we
-     * cannot build the dictionary.
-     *
-     * Runtime: 0(1) as it just returns the Reader object if it exists. Exits if it dosen't.
-     * @return a FileReader object for the local english.0 file.
+     * Finds the value given after an option on the command line, like the 4 in "--threads 4". The input and output
+     * file names always come first, so options are only looked for after them.
+     * @param args the launch args.
+     * @param name the option, including the dashes.
+     * @return the value after it, or null if the option is not there.
      */
-    private static Reader getLocalEnglish(){
-        Reader obj = null;
-        try {
-            obj = new FileReader("english.0");
-            return obj;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            System.out.println("Neither Online of Offline english.0 found. Exiting...");
-            System.exit(1);
+    private static String option(String[] args, String name){
+        for (int i = 2; i < args.length - 1; i++){
+            if (args[i].compareTo(name) == 0){
+                return args[i + 1];
+            }
         }
         return null;
     }
+
+    /***
+     * A word handed to the pool in checkParallel, and the answer it will get.
+     */
+    private static class PendingWord {
+        final String word;
+        final Future<String> result;
+
+        PendingWord(String word, Future<String> result){
+            this.word = word;
+            this.result = result;
+        }
+    }
+
+    /***
+     * How each misspelled word gets its suggestion: the one from suggest(), the best few from suggestTop(), or the
+     * closest word that can be found within a time budget.
+     */
+    private static class SuggestMode {
+        static final SuggestMode SINGLE = new SuggestMode(0, WordFrequencies.NONE, null);
+
+        final int count;
+        final WordFrequencies frequencies;
+        final Duration budget;
+
+        /***
+         * @param count how many ranked suggestions to give, 0 for the one from suggest().
+         * @param frequencies the word counts to rank them with.
+         * @param budget how long each suggest may take, null for no limit.
+         */
+        SuggestMode(int count, WordFrequencies frequencies, Duration budget){
+            this.count = count;
+            this.frequencies = frequencies;
+            this.budget = budget;
+        }
+
+        /***
+         * Asks the tree for a suggestion, through SpellMetrics so it is timed.
+         * @param tree the Roots object holding the dictionary.
+         * @param word the misspelled word.
+         * @return the suggestion, or the best few separated by commas. The word itself if there is nothing to suggest.
+         */
+        String suggest(Roots tree, String word){
+            if (count > 0){
+                List<String> top = SpellMetrics.get().suggestTop(tree, word, count, frequencies);
+                return top.isEmpty() ? word : String.join(", ", top);
+            }
+            if (budget != null){
+                return SpellMetrics.get().suggest(tree, word, budget).word;
+            }
+            return SpellMetrics.get().suggest(tree, word);
+        }
+    }
 }
\ No newline at end of file
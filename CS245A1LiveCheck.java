@@ -3,6 +3,7 @@ REQUIRES JAVAFX LIB INSTALLED
  */
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -16,11 +17,19 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.io.*;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.time.Duration;
 import java.util.Properties;
 
 public class CS245A1LiveCheck extends Application{
+
+    // How long the text has to stay the same before a suggestion is worked out, if live.debounce.ms does not say.
+    private static final long DEFAULT_DEBOUNCE_MS = 75;
+
+    // How many completions to show under the suggestion, if complete.count does not say. 0 turns them off.
+    private static final int DEFAULT_COMPLETIONS = 5;
+
+    private SuggestionService service;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -32,6 +41,12 @@ public class CS245A1LiveCheck extends Application{
         Roots tree;
 
         String dict_url = null;
+        String snapshot = null;
+        //Each keystroke gets at most this long to come up with a suggestion, if suggest.budget.ms is set.
+        Duration budget = null;
+        Duration debounce = Duration.ofMillis(DEFAULT_DEBOUNCE_MS);
+        int completions = DEFAULT_COMPLETIONS;
+        String freqPath = WordFrequencies.DEFAULT_PATH;
         try (InputStream input = new FileInputStream("a1properties.txt")) {
 
             //Load Properties file and extract value.
@@ -39,6 +54,32 @@ public class CS245A1LiveCheck extends Application{
             prop.load(input);
             String ds_type = prop.getProperty("storage");
             dict_url = prop.getProperty("dict.url");
+            String budgetMs = prop.getProperty("suggest.budget.ms");
+            if (budgetMs != null){
+                try {
+                    budget = Duration.ofMillis(Long.parseLong(budgetMs.trim()));
+                } catch (NumberFormatException e) {
+                    System.out.println("suggest.budget.ms needs to be a number, got " + budgetMs + ". Ignoring it...");
+                }
+            }
+            String debounceMs = prop.getProperty("live.debounce.ms");
+            if (debounceMs != null){
+                try {
+                    debounce = Duration.ofMillis(Long.parseLong(debounceMs.trim()));
+                } catch (NumberFormatException e) {
+                    System.out.println("live.debounce.ms needs to be a number, got " + debounceMs + ". Ignoring it...");
+                }
+            }
+            String completeCount = prop.getProperty("complete.count");
+            if (completeCount != null){
+                try {
+                    completions = Math.max(0, Integer.parseInt(completeCount.trim()));
+                } catch (NumberFormatException e) {
+                    System.out.println("complete.count needs to be a number, got " + completeCount
+                            + ". Ignoring it...");
+                }
+            }
+            freqPath = prop.getProperty("freq.path", freqPath);
 
             //Looking at values from config file, this will choose what kind of tree to make.
             if (ds_type.compareTo("tree") == 0){
@@ -51,6 +92,37 @@ public class CS245A1LiveCheck extends Application{
                 System.out.println("Selecting Trie...");
                 tree = new Trie();
 
+            } else if (ds_type.compareTo("symspell") == 0){
+                //Make Symmetric Delete index
+                System.out.println("Selecting SymSpell...");
+                tree = new SymSpell();
+
+            } else if (ds_type.compareTo("bktree") == 0){
+                //Make BK-Tree
+                System.out.println("Selecting BK-Tree...");
+                tree = new BKTree();
+
+            } else if (ds_type.compareTo("datrie") == 0){
+                //Make Double-Array Trie
+                System.out.println("Selecting Double-Array Trie...");
+                tree = new DoubleArrayTrie();
+
+            } else if (ds_type.compareTo("dawg") == 0){
+                //Make minimal automaton
+                System.out.println("Selecting DAWG...");
+                tree = new Dawg();
+
+            } else if (ds_type.compareTo("concurrent") == 0){
+                //Make Trie that can be read while words are added
+                System.out.println("Selecting Concurrent Trie...");
+                tree = new ConcurrentTrie();
+
+            } else if (ds_type.compareTo("mapped") == 0){
+                //Map the compiled Double-Array Trie snapshot instead of adding the words again.
+                System.out.println("Selecting Mapped Snapshot...");
+                snapshot = prop.getProperty("snapshot.path", DictionaryLoader.DEFAULT_SNAPSHOT);
+                tree = null;
+
             } else {
                 //Default to Trie if config is set to unknown value.
                 System.out.println("Unknown Structure ... Defaulting to Trie...");
@@ -63,7 +135,17 @@ public class CS245A1LiveCheck extends Application{
             tree = new Trie();
         }
 
-        addDictionary(dict_url, tree);
+        if (snapshot != null){
+            tree = DictionaryLoader.loadSnapshot(dict_url, snapshot);
+        } else {
+            DictionaryLoader.addDictionary(dict_url, tree);
+        }
+        if (completions > 0){
+            //Ranked once here so each keystroke only walks down the word to get its completions.
+            tree.rankCompletions(WordFrequencies.load(freqPath), completions);
+        }
+        //Suggest timings and tier counts can be watched over JMX while typing.
+        SpellMetrics.get().register();
 
         // Here on is the JavaFX =======================================================================================
 
@@ -76,6 +158,12 @@ public class CS245A1LiveCheck extends Application{
         //Creating label for what the suggestion is
         Label suggestion = new Label("");
 
+        //creating label completions
+        Text text3 = new Text("Completions:");
+
+        //Creating label for the words that start with what is typed
+        Label completion = new Label("");
+
         //Creating field for entering text
         TextField textField = new TextField();
 
@@ -94,7 +182,9 @@ public class CS245A1LiveCheck extends Application{
         gridPane.add(suggestion, 1, 0);
         gridPane.add(text2, 0, 1);
         gridPane.add(textField, 1, 1);
-        gridPane.add(button2, 1, 2);
+        gridPane.add(text3, 0, 2);
+        gridPane.add(completion, 1, 2);
+        gridPane.add(button2, 1, 3);
 
         //Creating a scene object
         Scene scene = new Scene(gridPane);
@@ -105,23 +195,14 @@ public class CS245A1LiveCheck extends Application{
         //Adding scene to the stage
         stage.setScene(scene);
 
-        Roots finalTree = tree;
+        //Suggestions are worked out on a background thread and set on the label back on the FX thread, so a slow
+        // suggest never freezes the typing.
+        service = new SuggestionService(tree, debounce, budget, completions, Platform::runLater);
         textField.textProperty().addListener((observable, oldValue, newValue) -> {
 
             //System.out.println("textfield changed from " + oldValue + " to " + newValue);
 
-            String result = newValue.substring(newValue.lastIndexOf(' ') + 1).trim()
-                    .replaceAll("[^a-zA-Z]", "").toLowerCase();
-
-            if (result.compareTo("") != 0){
-                if (finalTree.checkWord(result)){
-                    suggestion.setText(result);
-                } else {
-                    suggestion.setText(finalTree.suggest(result));
-                }
-            } else {
-                suggestion.setText("");
-            }
+            service.request(newValue, suggestion::setText, words -> completion.setText(String.join(", ", words)));
 
         });
 
@@ -130,7 +211,9 @@ public class CS245A1LiveCheck extends Application{
             public void handle(ActionEvent e)
             {
                textField.setText("");
+               service.cancel();
                suggestion.setText("");
+               completion.setText("");
             }
         };
 
@@ -140,94 +223,10 @@ public class CS245A1LiveCheck extends Application{
         stage.show();
     }
 
-
-    /***
-     * This function will take a tree object and then find an english.0 file, either online from GitHub, or locally.
-     * Once it finds this file, it will read it line by line, adding the words to the tree object we gave it.
-     *
-     * Runtime: 0(n) where n is the size of the input dictionary.
-     * @param urlStr takes the URL of the online english.0 file we get from config file
-     * @param tree Takes the Tree object we created in the runTree or runTrie function.
-     */
-    private static void addDictionary(String urlStr, Roots tree){
-
-        System.out.println("Adding Dictionary...");
-        int wordLimit = 100000000;
-
-
-        Reader obj = null;
-
-        if (urlStr != null) {
-
-            URL url = null;
-            try {
-                url = new URL(urlStr);
-
-                try {
-                    obj = new InputStreamReader(url.openStream());
-                } catch (IOException e) {
-                    System.out.println("Unable to Access Online english.0. Defaulting to Local...");
-                    obj = getLocalEnglish();
-                }
-
-            } catch (MalformedURLException e) {
-                System.out.println("Invalid URL. Defaulting to Local...");
-                obj = getLocalEnglish();
-            }
-
-        } else {
-            System.out.println("URL for english.0 not found in config. Defaulting to Local...");
-            obj = getLocalEnglish();
-        }
-
-        if (obj != null){
-            try (BufferedReader br = new BufferedReader(obj)) {
-                String line;
-                int counter = 0;
-                while ((line = br.readLine()) != null) {
-
-                    if (line.compareTo("") != 0) {
-                        //System.out.println(line);
-                        // read each word from the file and check if it in the dictionary
-                        tree.add(line.toLowerCase());
-
-                        if (counter == wordLimit) {
-                            break;
-                        }
-                        counter++;
-                    }
-                }
-            } catch (IOException e) {
-                System.out.println("Failed File Input. Exiting.");
-                System.exit(1);
-            }
-
-            System.out.println("Dictionary Added.");
-        } else {
-            System.out.println("Unable to find an english.0. Exiting...");
-            System.exit(1);
-        }
-    }
-
-
-    /***
-     * getLocalEnglish() is called when we need to look for a local copy of engligh.0 of we can't connect to the web and
-     * download the online version from GitHub. If we cant find the file locally we need to exit and give up because we
-     * cannot build the dictionary.
-     *
-     * Runtime: 0(1) as it just returns the Reader object if it exists. Exits if it dosen't.
-     * @return a FileReader object for the local english.0 file.
-     */
-    private static Reader getLocalEnglish(){
-        Reader obj = null;
-        try {
-            obj = new FileReader("english.0");
-            return obj;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            System.out.println("Neither Online of Offline english.0 found. Exiting...");
-            System.exit(1);
+    @Override
+    public void stop(){
+        if (service != null){
+            service.close();
         }
-        return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+/*
+ * Caches suggestions and known misspellings in front of any Roots object.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CachingRoots implements Roots {
+    /** Real input repeats the same few misspellings over and over, and every one of them costs a full suggest. This
+     * wraps another Roots object and remembers the suggestions it gave, up to a fixed number of words.
+     *
+     * The suggestions are kept in LRU order, but a new word only gets in when the cache is full if it has been asked
+     * for more often than the word it would push out (TinyLFU admission). How often each word is asked for is counted
+     * in a small count-min sketch, which is halved every so often so old counts fade. That stops a long run of words
+     * that are only misspelled once from flushing out the misspellings that keep coming back.
+     *
+     * Words that checkWord said were not in the dictionary go in a separate direct-mapped table, so a repeated
+     * misspelling is turned away without walking the structure. Looking a word up there hashes the chars in place,
+     * so the CharSequence path stays free of Strings.
+     *
+     * Adding words clears both caches, since a new word can change what is correct and what gets suggested. Every
+     * clear moves the generation on, and an answer worked out before a clear is not stored after it, so a check or
+     * suggest that was already running when the words went in cannot put an old answer back.
+     *
+     * Only suggest(word) is cached. suggestTop (suggest.count) and the budgeted suggest (suggest.budget.ms) go to the
+     * structure every time, through collect: the first depends on k and the word counts as well as the word, and
+     * the second on how much time the walk had, so neither has one answer per word to keep.
+     **/
+
+    // Suggest cache: at most capacity words, guarded by this.
+    private final Roots roots;
+    private final int capacity;
+    private final LinkedHashMap<String, String> suggestions;
+    private final FrequencySketch sketch;
+
+    // Negative cache: words that are known to not be in the dictionary. A slot just holds the last miss hashed to it.
+    private final AtomicReferenceArray<String> misses;
+
+    // How many times the caches have been cleared.
+    private final AtomicInteger generation;
+
+    private final LongAdder hits;
+    private final LongAdder missCount;
+    private final LongAdder evictions;
+    private final LongAdder rejections;
+    private final LongAdder negativeHits;
+
+    /***
+     * @param roots the structure holding the dictionary.
+     * @param capacity the most suggestions to keep. The negative cache gets a quarter as many slots.
+     */
+    CachingRoots(Roots roots, int capacity){
+        if (capacity < 1){
+            throw new IllegalArgumentException("cache size must be at least 1, got " + capacity);
+        }
+        this.roots = roots;
+        this.capacity = capacity;
+        this.suggestions = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(capacity);
+        this.misses = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(16, capacity / 4)));
+        this.generation = new AtomicInteger();
+        this.hits = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictions = new LongAdder();
+        this.rejections = new LongAdder();
+        this.negativeHits = new LongAdder();
+    }
+
+    /***
+     * Wraps roots in a cache of the given size, or gives it back as it is if size is 0 or less.
+     * @param roots the structure holding the dictionary.
+     * @param size the cache.size from the config file.
+     * @return the Roots object to check words with.
+     */
+    static Roots wrap(Roots roots, int size){
+        return size > 0 ? new CachingRoots(roots, size) : roots;
+    }
+
+    @Override
+    public void add(String word){
+        roots.add(word);
+        clear();
+    }
+
+    @Override
+    public void addAll(List<String> words){
+        roots.addAll(words);
+        clear();
+    }
+
+    @Override
+    public boolean checkWord(String word){ return checkWord(word, 0, word.length()); }
+
+    /***
+     * Checks the negative cache first, then the structure. Only a miss makes a String, to remember it by.
+     *
+     * Runtime: O(n) where n is length of word when it is a known miss, otherwise the runtime of the wrapped checkWord.
+     * @param word holds the word we are looking for.
+     * @param from index of the first char of the word.
+     * @param to index just past the last char of the word.
+     * @return true if the word exists, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        int slot = slot(hash(word, from, to));
+        String known = misses.get(slot);
+        if (known != null && sameChars(known, word, from, to)){
+            negativeHits.increment();
+            return false;
+        }
+        int before = generation.get();
+        if (roots.checkWord(word, from, to)){
+            return true;
+        }
+        if (generation.get() == before){
+            String miss = word.subSequence(from, to).toString();
+            misses.set(slot, miss);
+            if (generation.get() != before){
+                //A clear got in between, and may have already passed this slot.
+                misses.compareAndSet(slot, miss, null);
+            }
+        }
+        return false;
+    }
+
+    /***
+     * Gives back the cached suggestion if there is one. Otherwise asks the structure, outside the lock so slow
+     * suggestions do not hold up other threads, and then offers the result to the cache.
+     *
+     * Runtime: O(1) on a hit, otherwise the runtime of the wrapped suggest.
+     * @param word String of the misspelled word.
+     * @return String of the suggested correct spelling.
+     */
+    @Override
+    public String suggest(String word){
+        String cached;
+        synchronized (this){
+            sketch.increment(word.hashCode());
+            cached = suggestions.get(word);
+        }
+        if (cached != null){
+            hits.increment();
+            return cached;
+        }
+        missCount.increment();
+        int before = generation.get();
+        String suggestion = roots.suggest(word);
+        admit(word, suggestion, before);
+        return suggestion;
+    }
+
+    /***
+     * Bounded suggest is passed straight through, the answer depends on the bound as well as the word.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){ return roots.suggest(word, maxDistance); }
+
+    @Override
+    public void collect(String word, Nearest nearest){ roots.collect(word, nearest); }
+
+    @Override
+    public void rankCompletions(WordFrequencies frequencies, int k){ roots.rankCompletions(frequencies, k); }
+
+    @Override
+    public List<String> complete(String prefix, int k){ return roots.complete(prefix, k); }
+
+    @Override
+    public long sizeInBytes(){ return roots.sizeInBytes(); }
+
+    /***
+     * Puts a suggestion in the cache. When the cache is full, the least recently used word is only pushed out if the
+     * new word has been asked for more often.
+     * @param before the generation from before the suggestion was worked out. Nothing is stored if it has moved on.
+     */
+    private synchronized void admit(String word, String suggestion, int before){
+        if (generation.get() != before || suggestions.containsKey(word)){
+            return;
+        }
+        if (suggestions.size() >= capacity){
+            Iterator<String> eldest = suggestions.keySet().iterator();
+            String victim = eldest.next();
+            if (sketch.frequency(word.hashCode()) <= sketch.frequency(victim.hashCode())){
+                rejections.increment();
+                return;
+            }
+            eldest.remove();
+            evictions.increment();
+        }
+        suggestions.put(word, suggestion);
+    }
+
+    /***
+     * Empties both caches. The counters are kept. The generation moves on first, so anything stored after this
+     * starts either sees it or is taken out again.
+     */
+    private void clear(){
+        synchronized (this){
+            generation.incrementAndGet();
+            suggestions.clear();
+        }
+        for (int i = 0; i < misses.length(); i++){
+            misses.set(i, null);
+        }
+    }
+
+    /***
+     * The same hash String.hashCode() would give for the range, so no String is needed to find its slot.
+     */
+    private static int hash(CharSequence word, int from, int to){
+        int hash = 0;
+        for (int i = from; i < to; i++){
+            hash = 31 * hash + word.charAt(i);
+        }
+        return hash;
+    }
+
+    private int slot(int hash){
+        return (hash ^ (hash >>> 16)) & (misses.length() - 1);
+    }
+
+    private static boolean sameChars(String known, CharSequence word, int from, int to){
+        if (known.length() != to - from){
+            return false;
+        }
+        for (int i = 0; i < known.length(); i++){
+            if (known.charAt(i) != word.charAt(from + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /***
+     * Hit, miss and eviction counts for the end of a run.
+     */
+    @Override
+    public String toString(){
+        long hit = hits.sum();
+        long miss = missCount.sum();
+        long total = hit + miss;
+        return "Suggest Cache: " + hit + " hits, " + miss + " misses"
+                + (total > 0 ? " (" + (100 * hit / total) + "% hit rate)" : "")
+                + ", " + evictions.sum() + " evictions, " + rejections.sum() + " rejected. "
+                + "Negative Cache: " + negativeHits.sum() + " hits.";
+    }
+
+    /***
+     * Count-min sketch of how often each word has been asked for. Four rows of 4 bit counters packed into longs, so
+     * it takes 8 bytes per cached word. A word's count is the smallest of its four counters. After ten times capacity
+     * increments every counter is halved, so words that were popular a long time ago do not stay in forever.
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L};
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity){
+            int width = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            table = new long[width];
+            mask = width - 1;
+            sampleSize = 10 * capacity;
+        }
+
+        /***
+         * Index of the counter for this row. Each long holds 16 counters, the row picks which 4 of them.
+         */
+        private int counter(int hash, int row){
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return ((int) h & mask) << 4 | row << 2 | (int) (h >>> 40) & 3;
+        }
+
+        int frequency(int hash){
+            int min = 15;
+            for (int row = 0; row < 4; row++){
+                int c = counter(hash, row);
+                min = Math.min(min, (int) (table[c >>> 4] >>> ((c & 15) << 2)) & 15);
+            }
+            return min;
+        }
+
+        void increment(int hash){
+            boolean added = false;
+            for (int row = 0; row < 4; row++){
+                int c = counter(hash, row);
+                int shift = (c & 15) << 2;
+                if (((table[c >>> 4] >>> shift) & 15) != 15){
+                    table[c >>> 4] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize){
+                reset();
+            }
+        }
+
+        private void reset(){
+            for (int i = 0; i < table.length; i++){
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+    }
+}
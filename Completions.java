@@ -0,0 +1,75 @@
+/*
+ * The k best words below one node, worked out once when the dictionary is ranked.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+class Completions {
+    /** Trie and Tree rank completions bottom up. A node's best k words can only be its own word, if it is one, and
+     * the best k of each of its children, so each node merges those few lists instead of looking at its whole
+     * subtree. Every node then holds its own list, and complete(prefix, k) is a walk down the prefix and a copy of
+     * the list it ends on, however many words are below it.
+     *
+     * A node that is not a word and has one child has the same list as that child, so it is given the child's array
+     * instead of a copy. Those chains are most of the nodes in a Tree.
+     *
+     * Words are ranked by how common they are, then shortest first, then alphabetically, so without a count file
+     * the shortest completions come first.
+     **/
+
+    static final String[] NONE = new String[0];
+
+    private final int k;
+    private final Comparator<String> rank;
+
+    /***
+     * @param k how many words each node keeps.
+     * @param frequencies how common each word is, WordFrequencies.NONE to rank on length alone.
+     */
+    Completions(int k, WordFrequencies frequencies){
+        if (k < 1){
+            throw new IllegalArgumentException("need to keep at least 1 completion, got " + k);
+        }
+        this.k = k;
+        this.rank = Comparator.comparingLong((String word) -> frequencies.count(word)).reversed()
+                .thenComparingInt(String::length)
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    /***
+     * How many words each node keeps.
+     */
+    int size(){ return k; }
+
+    /***
+     * The best k of a node's own word and its children's lists.
+     *
+     * Runtime: O(c*k log(c*k)) where c is the number of children.
+     * @param candidates the node's word, if it is one, and every word in its children's lists.
+     * @return the best k, best first.
+     */
+    String[] best(List<String> candidates){
+        if (candidates.isEmpty()){
+            return NONE;
+        }
+        candidates.sort(rank);
+        int size = Math.min(k, candidates.size());
+        return candidates.subList(0, size).toArray(new String[size]);
+    }
+
+    /***
+     * The first k words of a ranked list.
+     * @param ranked a node's list.
+     * @param k how many the caller wants.
+     * @return up to k words, best first.
+     */
+    static List<String> first(String[] ranked, int k){
+        List<String> words = new ArrayList<>(Math.min(k, ranked.length));
+        for (int i = 0; i < ranked.length && i < k; i++){
+            words.add(ranked[i]);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Single Char Per Node Trie that can be read from while words are being added.
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+public class ConcurrentTrie implements Roots {
+    /** Trie rewrites child arrays in place and Tree adds to LinkedLists, so neither can be read while another thread
+     * adds a word. Here a node's children are an AtomicReferenceArray with one slot per char, and a new node is only
+     * put in a slot with compareAndSet, so a slot goes from empty to its final node exactly once and is never changed
+     * after that. isWord is volatile and only ever goes from false to true.
+     *
+     * So readers never lock and never see half of something: checkWord and suggest just follow the slots that are set
+     * right now. A word being added shows up the moment its isWord is set, and adding is safe from any number of
+     * threads because two threads racing for the same slot both end up using whichever node won.
+     **/
+
+    private final Node root;
+
+    ConcurrentTrie(){
+        root = new Node();
+    }
+
+    private static class Node {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, AtomicReferenceArray> CHILDREN =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, AtomicReferenceArray.class, "children");
+
+        volatile boolean isWord;
+        // Made when the first child is added, so the leaves do not pay for 27 empty slots.
+        volatile AtomicReferenceArray<Node> children;
+
+        Node getChild(int index){
+            AtomicReferenceArray<Node> slots = children;
+            return slots == null ? null : slots.get(index);
+        }
+
+        /***
+         * Gets the child in the slot, putting a new node there if it is empty. If another thread fills the slot
+         * first, its node is used instead.
+         */
+        Node getOrAddChild(int index){
+            AtomicReferenceArray<Node> slots = children;
+            if (slots == null){
+                CHILDREN.compareAndSet(this, null, new AtomicReferenceArray<Node>(Alphabet.SIZE));
+                slots = children;
+            }
+            Node child = slots.get(index);
+            if (child == null){
+                Node made = new Node();
+                child = slots.compareAndSet(index, null, made) ? made : slots.get(index);
+            }
+            return child;
+        }
+    }
+
+    /***
+     * Adds a word, making the nodes it is missing. Safe to call from many threads, and while others are reading.
+     *
+     * Runtime: O(n) where n is the length of the word.
+     * @param word the word we are adding.
+     */
+    @Override
+    public void add(String word){
+        Node current = root;
+        for (int i = 0; i < word.length(); i++){
+            int index = Alphabet.indexOf(word.charAt(i));
+            if (index < 0){
+                throw new IllegalArgumentException("Can not add \"" + word + "\", '" + word.charAt(i)
+                        + "' is not a letter or an apostrophe");
+            }
+            current = current.getOrAddChild(index);
+        }
+        current.isWord = true;
+    }
+
+    /***
+     * Adds a whole list of words. Every add is already thread safe, so the list is just split across the common
+     * ForkJoinPool with no merging afterwards.
+     * @param words the words we are adding.
+     */
+    @Override
+    public void addAll(List<String> words){
+        if (Runtime.getRuntime().availableProcessors() < 2){
+            //Nothing to gain from splitting the work on one core.
+            Roots.super.addAll(words);
+            return;
+        }
+        words.parallelStream().forEach(this::add);
+    }
+
+    @Override
+    public boolean checkWord(String word){ return checkWord(word, 0, word.length()); }
+
+    /***
+     * Checks a word by following one slot per char. No locks, so it never waits for an add.
+     *
+     * Runtime: O(n) where n is length of word.
+     * @param word holds the word we are looking for.
+     * @param from index of the first char of the word.
+     * @param to index just past the last char of the word.
+     * @return true if the word exists, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        Node current = root;
+        for (int i = from; i < to; i++){
+            int index = Alphabet.indexOf(word.charAt(i));
+            if (index < 0){
+                return false;
+            }
+            current = current.getChild(index);
+            if (current == null){
+                return false;
+            }
+        }
+        return current.isWord;
+    }
+
+    /***
+     * Bounded suggest, the same row-per-node walk as Tree. Words added while the walk is going on may or may not be
+     * seen, depending on whether the walk has already passed their branch.
+     *
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        Nearest nearest = new Nearest(maxDistance);
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+        return nearest.word;
+    }
+
+    /***
+     * Runs the same walk, offering the words to nearest. That is a TopSuggestions for the k best words, or a Nearest
+     * with a deadline for the budgeted suggest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+    }
+
+    /***
+     * Recursive part of the bounded suggest.
+     * @param node node whose children we are looking at.
+     * @param depth depth of node, the root is 0.
+     * @param rows the rows for the path down to node.
+     * @param path the chars on the path down to node.
+     * @param nearest the best word so far and the current bound.
+     */
+    private void suggest(Node node, int depth, EditDistance rows, StringBuilder path, Nearest nearest){
+        AtomicReferenceArray<Node> slots = node.children;
+        if (slots == null){
+            return;
+        }
+        char prevCh = depth > 0 ? path.charAt(depth - 1) : 0;
+        for (int index = 0; index < Alphabet.SIZE; index++){
+            Node child = slots.get(index);
+            if (child == null){
+                continue;
+            }
+            char ch = Alphabet.charAt(index);
+            if (rows.push(depth + 1, ch, prevCh) > nearest.bound()){
+                continue;
+            }
+            path.append(ch);
+            if (child.isWord){
+                nearest.offer(path, rows.distance(depth + 1));
+            }
+            suggest(child, depth + 1, rows, path, nearest);
+            path.setLength(depth);
+        }
+    }
+
+    /***
+     * Estimates the heap used by the trie by walking every node. Nodes with children pay for an
+     * AtomicReferenceArray and its 27 slots.
+     *
+     * Runtime: O(n) where n is the number of nodes.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){ return MemoryEstimate.object(MemoryEstimate.REFERENCE) + sizeInBytes(root); }
+
+    private long sizeInBytes(Node node){
+        long bytes = MemoryEstimate.object(1 + MemoryEstimate.REFERENCE);
+        AtomicReferenceArray<Node> slots = node.children;
+        if (slots != null){
+            bytes += MemoryEstimate.object(MemoryEstimate.REFERENCE)
+                    + MemoryEstimate.array(slots.length(), MemoryEstimate.REFERENCE);
+            for (int index = 0; index < slots.length(); index++){
+                Node child = slots.get(index);
+                if (child != null){
+                    bytes += sizeInBytes(child);
+                }
+            }
+        }
+        return bytes;
+    }
+}
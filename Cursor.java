@@ -0,0 +1,109 @@
+/*
+ * A word being typed one char at a time, checked against a Roots object as it goes.
+ */
+
+interface Cursor {
+    /** A cursor remembers where the chars typed so far got to in the structure, so typing one more char only has to
+     * take one more step instead of starting again from the root. Trie and Tree keep a stack with one entry per
+     * char, so retreat() is just a pop. When suggest() has to look past the path, a Frontier keeps one edit distance
+     * row per char typed, so that search also picks up where the last one stopped. Structures without their own
+     * cursor get a Rescan, which is no faster than calling checkWord and suggest on the whole word.
+     *
+     * A cursor belongs to one thread, and stops being valid if words are added to the structure.
+     **/
+
+    /***
+     * Types one more char.
+     * @param ch the char.
+     */
+    void advance(char ch);
+
+    /***
+     * Takes back the last char typed. Does nothing if nothing has been typed.
+     */
+    void retreat();
+
+    /***
+     * @return how many chars have been typed.
+     */
+    int length();
+
+    /***
+     * @return the chars typed so far.
+     */
+    String word();
+
+    /***
+     * @param index which char, 0 for the first.
+     * @return one of the chars typed so far.
+     */
+    char charAt(int index);
+
+    /***
+     * @return true if the chars typed so far are a dictionary word.
+     */
+    boolean isWord();
+
+    /***
+     * Suggests a spelling for the chars typed so far, the same answer Roots.suggest(word()) gives.
+     * @return String of the suggested correct spelling.
+     */
+    String suggest();
+
+    /***
+     * Retreats to where word and the chars typed so far stop agreeing, then types the rest of word. Going from one
+     * keystroke to the next is then one step, however long the word is.
+     * @param word the word as it is now.
+     */
+    default void moveTo(CharSequence word){
+        int common = 0;
+        int most = Math.min(length(), word.length());
+        while (common < most && charAt(common) == word.charAt(common)){
+            common++;
+        }
+        while (length() > common){
+            retreat();
+        }
+        for (int i = common; i < word.length(); i++){
+            advance(word.charAt(i));
+        }
+    }
+
+    /***
+     * Cursor for any Roots object. It only keeps the chars, and asks the structure about the whole word each time.
+     */
+    class Rescan implements Cursor {
+        private final Roots roots;
+        private final StringBuilder typed;
+
+        Rescan(Roots roots){
+            this.roots = roots;
+            this.typed = new StringBuilder();
+        }
+
+        @Override
+        public void advance(char ch){ typed.append(ch); }
+
+        @Override
+        public void retreat(){
+            if (typed.length() > 0){
+                typed.setLength(typed.length() - 1);
+            }
+        }
+
+        @Override
+        public int length(){ return typed.length(); }
+
+        @Override
+        public String word(){ return typed.toString(); }
+
+        @Override
+        public char charAt(int index){ return typed.charAt(index); }
+
+        @Override
+        public boolean isWord(){ return roots.checkWord(typed); }
+
+        @Override
+        public String suggest(){ return roots.suggest(typed.toString()); }
+    }
+}
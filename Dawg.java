@@ -0,0 +1,289 @@
+/*
+ * Minimal Acyclic Automaton (DAWG) Implementation.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Dawg implements Roots {
+
+    private DawgNode root;
+    private List<String> pending; // words added since the automaton was last built.
+    private volatile boolean built;
+
+    Dawg(){
+        root = new DawgNode();
+        pending = new ArrayList<>();
+        built = false;
+    }
+
+    private static class DawgNode {
+        boolean isWord;
+        char[] labels;       // chars on the outgoing edges, in sorted order.
+        DawgNode[] targets;  // targets[i] is where the edge labelled labels[i] goes.
+
+        DawgNode() {
+            isWord = false;
+            labels = new char[0];
+            targets = new DawgNode[0];
+        }
+
+        DawgNode getChild(char c) {
+            for (int i = 0; i < labels.length; i++)
+                if (labels[i] == c)
+                    return targets[i];
+            return null;
+        }
+
+        void addChild(char c, DawgNode child) {
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            targets = Arrays.copyOf(targets, targets.length + 1);
+            labels[labels.length - 1] = c;
+            targets[targets.length - 1] = child;
+        }
+
+        DawgNode lastChild() { return targets[targets.length - 1]; }
+
+        void setLastChild(DawgNode child) { targets[targets.length - 1] = child; }
+
+        /***
+         * Two states are equivalent if they agree on being a word and have the same edges to the very same states.
+         * Children are always minimized before their parent, so comparing them by reference is enough.
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof DawgNode))
+                return false;
+            DawgNode node = (DawgNode) other;
+            if (isWord != node.isWord || !Arrays.equals(labels, node.labels))
+                return false;
+            for (int i = 0; i < targets.length; i++)
+                if (targets[i] != node.targets[i])
+                    return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = isWord ? 1 : 0;
+            for (int i = 0; i < labels.length; i++)
+                hash = 31 * (31 * hash + labels[i]) + System.identityHashCode(targets[i]);
+            return hash;
+        }
+    }
+
+    /***
+     * Queues a word. The automaton is built from the sorted list of every word the first time it is queried, and
+     * rebuilt if more words are added after that.
+     *
+     * Runtime: O(1). The build is O(n) in the total length of the words.
+     * @param word the word we are adding.
+     */
+    @Override
+    public synchronized void add(String word){
+        pending.add(word);
+        built = false;
+    }
+
+    /***
+     * Checks a word by following one edge per char.
+     *
+     * Runtime: O(n) where n is length of word, times up to 27 labels to scan per state.
+     * @param word The word we are looking for.
+     * @return true if the word exists, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(String word){
+        return checkWord(word, 0, word.length());
+    }
+
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        ensureBuilt();
+        DawgNode current = root;
+        for (int i = from; i < to && current != null; i++){
+            current = current.getChild(word.charAt(i));
+        }
+        return current != null && current.isWord;
+    }
+
+    /***
+     * Bounded suggest. Every path from the root spells exactly one word, so the same row-per-node walk as Trie works
+     * here. A shared suffix state is simply walked once for each path that reaches it.
+     *
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        ensureBuilt();
+        Nearest nearest = new Nearest(maxDistance);
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+        return nearest.word;
+    }
+
+    /***
+     * Runs the same walk, offering the words to nearest. That is a TopSuggestions for the k best words, or a Nearest
+     * with a deadline for the budgeted suggest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        ensureBuilt();
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+    }
+
+    /***
+     * Recursive part of the bounded suggest.
+     * @param node state whose edges we are looking at.
+     * @param depth length of the path to node.
+     * @param rows the rows for the path down to node.
+     * @param path the chars on the path down to node.
+     * @param nearest the best word so far and the current bound.
+     */
+    private void suggest(DawgNode node, int depth, EditDistance rows, StringBuilder path, Nearest nearest){
+        char prevCh = depth > 0 ? path.charAt(depth - 1) : 0;
+        for (int i = 0; i < node.labels.length; i++){
+            if (rows.push(depth + 1, node.labels[i], prevCh) > nearest.bound()){
+                continue;
+            }
+            path.append(node.labels[i]);
+            if (node.targets[i].isWord){
+                nearest.offer(path, rows.distance(depth + 1));
+            }
+            suggest(node.targets[i], depth + 1, rows, path, nearest);
+            path.setLength(depth);
+        }
+    }
+
+    /***
+     * Estimates the heap used by the automaton, counting each shared state once.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){
+        ensureBuilt();
+        Map<DawgNode, Boolean> seen = new IdentityHashMap<>();
+        return MemoryEstimate.object(2 * MemoryEstimate.REFERENCE + 1) + sizeInBytes(root, seen);
+    }
+
+    private long sizeInBytes(DawgNode node, Map<DawgNode, Boolean> seen){
+        if (seen.put(node, Boolean.TRUE) != null){
+            return 0;
+        }
+        long bytes = MemoryEstimate.object(1 + 2 * MemoryEstimate.REFERENCE)
+                + MemoryEstimate.array(node.labels.length, 2)
+                + MemoryEstimate.array(node.targets.length, MemoryEstimate.REFERENCE);
+        for (DawgNode target : node.targets){
+            bytes += sizeInBytes(target, seen);
+        }
+        return bytes;
+    }
+
+    /***
+     * Builds the automaton if words were added since the last build. Queries can come from many threads, so only
+     * the first one to get here does the build.
+     */
+    private void ensureBuilt(){
+        if (!built){
+            synchronized (this){
+                if (!built){
+                    build();
+                    built = true;
+                }
+            }
+        }
+    }
+
+    /***
+     * Incremental construction from a sorted list (Daciuk et al.). Each word only shares its common prefix with the
+     * word before it, so once a word is added, the states past that prefix can never change again. Those states are
+     * minimized right away: if an equivalent state is already registered the edge is pointed at that one instead,
+     * which is how the shared -ing, -ed and -'s endings collapse into one copy.
+     */
+    private void build(){
+        List<String> words = new ArrayList<>(pending);
+        collect(root, new StringBuilder(), words);
+        words.sort(null);
+        pending = new ArrayList<>();
+
+        root = new DawgNode();
+        HashMap<DawgNode, DawgNode> register = new HashMap<>();
+        String previous = null;
+        for (String word : words){
+            if (word.equals(previous)){
+                continue;
+            }
+            if (previous == null){
+                previous = "";
+            }
+            int common = 0;
+            int max = Math.min(word.length(), previous.length());
+            while (common < max && word.charAt(common) == previous.charAt(common)){
+                common++;
+            }
+
+            // The part of the previous word past the common prefix is finished, so minimize it.
+            DawgNode node = root;
+            for (int i = 0; i < common; i++){
+                node = node.lastChild();
+            }
+            if (node.targets.length > 0 && common < previous.length()){
+                node.setLastChild(minimize(node.lastChild(), register));
+            }
+
+            for (int i = common; i < word.length(); i++){
+                DawgNode next = new DawgNode();
+                node.addChild(word.charAt(i), next);
+                node = next;
+            }
+            node.isWord = true;
+            previous = word;
+        }
+        if (root.targets.length > 0){
+            root.setLastChild(minimize(root.lastChild(), register));
+        }
+    }
+
+    /***
+     * Minimizes the most recently added branch from node down, deepest states first.
+     * @param node the state to minimize.
+     * @param register every state that is already minimized.
+     * @return node, or the registered state it is equivalent to.
+     */
+    private DawgNode minimize(DawgNode node, Map<DawgNode, DawgNode> register){
+        if (node.targets.length > 0){
+            node.setLastChild(minimize(node.lastChild(), register));
+        }
+        DawgNode existing = register.get(node);
+        if (existing != null){
+            return existing;
+        }
+        register.put(node, node);
+        return node;
+    }
+
+    /***
+     * Adds every word the automaton accepts to the list, used to carry the old words over to a rebuild.
+     */
+    private void collect(DawgNode node, StringBuilder path, List<String> words){
+        if (node.isWord){
+            words.add(path.toString());
+        }
+        for (int i = 0; i < node.labels.length; i++){
+            path.append(node.labels[i]);
+            collect(node.targets[i], path, words);
+            path.setLength(path.length() - 1);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Finds english.0 and loads it into a Roots object. Shared by CS245A1 and CS245A1LiveCheck.
+ */
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+class DictionaryLoader {
+
+    // Where the compiled snapshot goes if a1properties.txt does not say.
+    static final String DEFAULT_SNAPSHOT = "english.0.dat";
+
+    // The local copy of the dictionary, used when there is no URL or it cannot be reached.
+    static final String LOCAL_DICTIONARY = "english.0";
+
+    // How long to wait for the online english.0 to answer, and then for each read, before using the local copy.
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 10000;
+
+    // The most words read from a dictionary.
+    private static final int WORD_LIMIT = 100000000;
+
+    /***
+     * This function will take a tree object and then find an english.0 file, either online from GitHub, or locally.
+     * Once it finds this file, it will read it line by line, adding the words to the tree object we gave it.
+     *
+     * Runtime: 0(n) where n is the size of the input dictionary.
+     * @param urlStr takes the URL of the online english.0 file we get from config file
+     * @param tree Takes the Tree object we created from the config file.
+     */
+    static void addDictionary(String urlStr, Roots tree){
+
+        System.out.println("Adding Dictionary...");
+
+        Reader obj = openDictionary(urlStr);
+
+        if (obj != null){
+            List<String> words = null;
+            try {
+                words = readWords(obj);
+            } catch (IOException e) {
+                System.out.println("Failed File Input. Exiting.");
+                System.exit(1);
+            }
+            addWords(words, tree);
+        } else {
+            System.out.println("Unable to find an english.0. Exiting...");
+            System.exit(1);
+        }
+    }
+
+    /***
+     * Reads the words of a dictionary, one per line, lowercased. Blank lines are skipped.
+     *
+     * Runtime: 0(n) where n is the size of the input dictionary.
+     * @param obj the dictionary, closed once it has been read.
+     * @return the words, in the order they are in the file.
+     * @throws IOException if the dictionary cannot be read.
+     */
+    static List<String> readWords(Reader obj) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(obj)) {
+            String line;
+            int counter = 0;
+            while ((line = br.readLine()) != null) {
+
+                if (line.compareTo("") != 0) {
+                    // read each word from the file, they are all added together in addWords
+                    words.add(line.toLowerCase());
+
+                    if (counter == WORD_LIMIT) {
+                        break;
+                    }
+                    counter++;
+                }
+            }
+        }
+        return words;
+    }
+
+    /***
+     * Adds the words to the tree all at once, and records how long it took.
+     * @param words the words of the dictionary.
+     * @param tree the empty Roots object.
+     */
+    static void addWords(List<String> words, Roots tree){
+        //Structures that can build in parallel split the list up across cores here.
+        long start = System.nanoTime();
+        tree.addAll(words);
+        long nanos = System.nanoTime() - start;
+        long millis = nanos / 1000000;
+        SpellMetrics.get().dictionaryLoaded(words.size(), nanos);
+
+        System.out.println("Dictionary Added in " + millis + " ms. Estimated Size: " + tree.sizeInBytes() / 1024
+                + " KB");
+    }
+
+    /***
+     * Loads the dictionary from a compiled snapshot. The snapshot keeps the hash of the dictionary it was compiled
+     * from, and is only mapped if the dictionary still hashes the same, so a dictionary from a URL is always read
+     * again. The local file is the one exception: the snapshot also keeps a description of it (see
+     * describeDictionary), and while that still matches the file is not read at all. If the description has changed
+     * the file is hashed, since a file that was only touched or copied still has the same words, and the snapshot is
+     * only compiled again if the hash differs too.
+     *
+     * Runtime: O(1) when the local file has not changed. O(n) where n is the size of the dictionary file to hash it
+     * otherwise, and always for a URL. No words are inserted unless the snapshot has to be rebuilt.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @param snapshotPath where the snapshot lives.
+     * @return the mapped trie.
+     */
+    static DoubleArrayTrie loadSnapshot(String urlStr, String snapshotPath){
+        long start = System.nanoTime();
+        Path file = Paths.get(snapshotPath);
+        //Looked at before the file is read, so a change part way through is caught on the next start.
+        String source = describeDictionary(urlStr);
+        DoubleArrayTrie trie = source != null ? DoubleArrayTrie.mapSnapshot(file, null, source) : null;
+        if (trie == null){
+            byte[] hash = hashDictionary(urlStr);
+            trie = DoubleArrayTrie.mapSnapshot(file, hash, null);
+            if (trie == null){
+                System.out.println("Snapshot Missing or Out of Date. Compiling...");
+                compileSnapshot(urlStr, snapshotPath, hash, source);
+                trie = DoubleArrayTrie.mapSnapshot(file, hash, null);
+                if (trie == null){
+                    System.out.println("Unable to Map Snapshot. Exiting...");
+                    System.exit(1);
+                }
+                return trie;
+            }
+            if (source != null){
+                //Same words, so just write the new description down for next time.
+                try {
+                    trie.writeSnapshot(file, hash, source);
+                } catch (IOException e) {
+                    System.out.println("Could not Update Snapshot " + snapshotPath + " (" + e + ").");
+                }
+            }
+        }
+        System.out.println("Mapped Snapshot " + snapshotPath + ".");
+        SpellMetrics.get().dictionaryLoaded(trie.wordCount(), System.nanoTime() - start);
+        return trie;
+    }
+
+    /***
+     * Builds a DoubleArrayTrie from the dictionary and writes it out as a snapshot.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @param snapshotPath where to write the snapshot.
+     */
+    static void compileSnapshot(String urlStr, String snapshotPath){
+        String source = describeDictionary(urlStr);
+        compileSnapshot(urlStr, snapshotPath, hashDictionary(urlStr), source);
+    }
+
+    private static void compileSnapshot(String urlStr, String snapshotPath, byte[] hash, String source){
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        addDictionary(urlStr, trie);
+        try {
+            trie.writeSnapshot(Paths.get(snapshotPath), hash, source);
+            System.out.println("Wrote Snapshot " + snapshotPath + ".");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Could not write Snapshot File. Exiting...");
+            System.exit(1);
+        }
+    }
+
+    /***
+     * Says which version of the local dictionary openDictionary would read, without reading it: its path, size,
+     * modified time, and where the file system has them its change time and file key. The change time is set by the
+     * file system on every write and cannot be set back the way the modified time can (touch -r), so an edit that
+     * keeps the size is still seen. A URL is not described, since a server's ETag or Last-Modified may not change
+     * with the text, so it is always hashed instead.
+     *
+     * Runtime: O(1), a stat.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @return the description, or null if there is a URL or no local file.
+     */
+    static String describeDictionary(String urlStr){
+        if (urlStr != null){
+            return null;
+        }
+        Path local = Paths.get(LOCAL_DICTIONARY).toAbsolutePath();
+        try {
+            StringBuilder description = new StringBuilder(local + " size=" + Files.size(local) + " modified="
+                    + Files.getLastModifiedTime(local).toMillis());
+            try {
+                description.append(" changed=").append(((FileTime) Files.getAttribute(local, "unix:ctime")).toMillis());
+            } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                //Not a unix file system, so the size and modified time have to do.
+            }
+            Object key = Files.readAttributes(local, BasicFileAttributes.class).fileKey();
+            if (key != null){
+                description.append(" key=").append(key);
+            }
+            return description.toString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /***
+     * SHA-256 of the dictionary text, read from the same place addDictionary would read it.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @return the 32 byte hash.
+     */
+    static byte[] hashDictionary(String urlStr){
+        Reader obj = openDictionary(urlStr);
+        if (obj == null){
+            System.out.println("Unable to find an english.0. Exiting...");
+            System.exit(1);
+        }
+        try (Reader reader = obj) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            char[] chars = new char[8192];
+            int read;
+            while ((read = reader.read(chars)) != -1){
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars, 0, read));
+                digest.update(bytes);
+            }
+            return digest.digest();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            System.out.println("Failed File Input. Exiting.");
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /***
+     * Opens english.0, trying the URL from the config first and falling back to the local copy. Exits if there is
+     * neither.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @return a Reader over the dictionary.
+     */
+    static Reader openDictionary(String urlStr){
+        try {
+            return reopenDictionary(urlStr);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            System.out.println("Neither Online of Offline english.0 found. Exiting...");
+            System.exit(1);
+        }
+        return null;
+    }
+
+    /***
+     * Opens english.0 the same way as openDictionary, but throws instead of exiting when there is no copy, so a
+     * reload that cannot find it can keep the dictionary it has. Both copies are read as UTF-8.
+     * @param urlStr the URL of the online english.0 from the config file, or null.
+     * @return a Reader over the dictionary.
+     * @throws FileNotFoundException if the URL cannot be read and there is no local copy.
+     */
+    static Reader reopenDictionary(String urlStr) throws FileNotFoundException {
+        Reader obj = null;
+
+        if (urlStr != null) {
+
+            URL url = null;
+            try {
+                url = new URL(urlStr);
+
+                try {
+                    URLConnection connection = url.openConnection();
+                    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                    connection.setReadTimeout(READ_TIMEOUT_MS);
+                    obj = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    System.out.println("Unable to Access Online english.0. Defaulting to Local...");
+                    obj = getLocalEnglish();
+                }
+
+            } catch (MalformedURLException e) {
+                System.out.println("Invalid URL. Defaulting to Local...");
+                obj = getLocalEnglish();
+            }
+
+        } else {
+            System.out.println("URL for english.0 not found in config. Defaulting to Local...");
+            obj = getLocalEnglish();
+        }
+        return obj;
+    }
+
+    /***
+     * getLocalEnglish() is called when we need to look for a local copy of engligh.0 of we can't connect to the web and
+     * download the online version from GitHub.
+     *
+     * Runtime: 0(1) as it just returns the Reader object if it exists.
+     * @return a Reader over the local english.0 file, as UTF-8.
+     * @throws FileNotFoundException if there is no local copy.
+     */
+    private static Reader getLocalEnglish() throws FileNotFoundException {
+        return new InputStreamReader(new FileInputStream(LOCAL_DICTIONARY), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Double-Array Trie Implementation.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DoubleArrayTrie implements Roots {
+
+    // check[] value for a slot that no state is using.
+    private static final int FREE = -1;
+
+    // First int of a snapshot file, "CS24", then the format version.
+    private static final int MAGIC = 0x43533234;
+    private static final int VERSION = 2;
+    // The header up to the source description, which is as long as it needs to be.
+    private static final int FIXED_HEADER_BYTES = 4 + 4 + 32 + 4 + 4 + 4;
+
+    private int[] base;      // base[s] + code of a char is the slot of the child of s on that char.
+    private int[] check;     // check[t] is the parent of state t, so a slot only belongs to s if check[t] == s.
+    private long[] terminal; // bit s is set if state s ends a word.
+    private int size;        // one past the highest slot in use.
+    private int nextFree;    // where the search for free slots starts during a build.
+
+    // Queries read through these views. They wrap the arrays above after a build, or point straight into a mapped
+    // snapshot file, in which case the arrays are null.
+    private IntBuffer baseView;
+    private IntBuffer checkView;
+    private LongBuffer terminalView;
+    private boolean mapped;
+
+    private List<String> pending; // words added since the arrays were last built.
+    private volatile boolean built;
+
+    DoubleArrayTrie(){
+        base = new int[0];
+        check = new int[0];
+        terminal = new long[0];
+        size = 0;
+        wrapArrays();
+        pending = new ArrayList<>();
+        built = false;
+    }
+
+    /***
+     * Queues a word. The arrays are built from the sorted list of every word the first time the trie is queried, and
+     * rebuilt if more words are added after that.
+     *
+     * Runtime: O(1). The cost is paid by the build, which is O(n) in the total length of the words plus the time it
+     * takes to find a free spot for each state's children.
+     * @param word the word we are adding.
+     */
+    @Override
+    public synchronized void add(String word){
+        for (int i = 0; i < word.length(); i++){
+            if (Alphabet.indexOf(word.charAt(i)) < 0){
+                throw new IllegalArgumentException("Cannot store '" + word.charAt(i) + "' in " + word);
+            }
+        }
+        pending.add(word);
+        built = false;
+    }
+
+    /***
+     * Checks a word by stepping one slot per char. Each step is two array reads, with no objects to follow.
+     *
+     * Runtime: O(n) where n is length of word.
+     * @param word The word we are looking for.
+     * @return true if the word exists in trie, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(String word){
+        return checkWord(word, 0, word.length());
+    }
+
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        ensureBuilt();
+        int state = 0;
+        for (int i = from; i < to; i++){
+            state = child(state, word.charAt(i));
+            if (state < 0){
+                return false;
+            }
+        }
+        return isTerminal(state);
+    }
+
+    /***
+     * Bounded suggest. The same row-per-node walk as Trie, stepping over the arrays instead of child pointers.
+     *
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        ensureBuilt();
+        Nearest nearest = new Nearest(maxDistance);
+        EditDistance rows = new EditDistance(word);
+        suggest(0, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+        return nearest.word;
+    }
+
+    /***
+     * Runs the same walk, offering the words to nearest. That is a TopSuggestions for the k best words, or a Nearest
+     * with a deadline for the budgeted suggest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        ensureBuilt();
+        EditDistance rows = new EditDistance(word);
+        suggest(0, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+    }
+
+    /***
+     * Recursive part of the bounded suggest.
+     * @param state state whose children we are looking at.
+     * @param depth depth of state, the root is 0.
+     * @param rows the rows for the path down to state.
+     * @param path the chars on the path down to state.
+     * @param nearest the best word so far and the current bound.
+     */
+    private void suggest(int state, int depth, EditDistance rows, StringBuilder path, Nearest nearest){
+        char prevCh = depth > 0 ? path.charAt(depth - 1) : 0;
+        for (int index = 0; index < Alphabet.SIZE; index++){
+            int next = baseView.get(state) + index + 1;
+            if (next >= size || checkView.get(next) != state){
+                continue;
+            }
+            char ch = Alphabet.charAt(index);
+            if (rows.push(depth + 1, ch, prevCh) > nearest.bound()){
+                continue;
+            }
+            path.append(ch);
+            if (isTerminal(next)){
+                nearest.offer(path, rows.distance(depth + 1));
+            }
+            suggest(next, depth + 1, rows, path, nearest);
+            path.setLength(depth);
+        }
+    }
+
+    /***
+     * The heap is just the three arrays, whatever the number of words. A mapped snapshot keeps them off the heap.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){
+        ensureBuilt();
+        long bytes = MemoryEstimate.object(7 * MemoryEstimate.REFERENCE + 2 * 4 + 2)
+                + 3 * MemoryEstimate.object(4 * 4 + 2 * MemoryEstimate.REFERENCE);
+        if (!mapped){
+            bytes += MemoryEstimate.array(base.length, 4) + MemoryEstimate.array(check.length, 4)
+                    + MemoryEstimate.array(terminal.length, 8);
+        }
+        return bytes;
+    }
+
+    /***
+     * Writes the built arrays to a flat file that mapSnapshot can query in place. The file is written next to the
+     * target first and then moved over it, so a reader never sees half a snapshot.
+     *
+     * Layout: magic, version, 32 byte hash of the source dictionary, size, terminal length, the length and UTF-8
+     * bytes of the source description, padding up to a multiple of 8 bytes, then base, check and terminal one after
+     * the other.
+     * @param file where to write the snapshot.
+     * @param sourceHash SHA-256 of the dictionary the trie was built from.
+     * @param source DictionaryLoader.describeDictionary of the dictionary when it was read, or null.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeSnapshot(Path file, byte[] sourceHash, String source) throws IOException {
+        ensureBuilt();
+        byte[] description = (source != null ? source : "").getBytes(StandardCharsets.UTF_8);
+        int headerBytes = headerBytes(description.length);
+        int terminalLength = terminalView.limit();
+        long bytes = headerBytes + 8L * size + 8L * terminalLength;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            out.putInt(MAGIC).putInt(VERSION).put(sourceHash, 0, 32).putInt(size).putInt(terminalLength)
+                    .putInt(description.length).put(description);
+            out.position(headerBytes);
+            for (int i = 0; i < size; i++){
+                out.putInt(baseView.get(i));
+            }
+            for (int i = 0; i < size; i++){
+                out.putInt(checkView.get(i));
+            }
+            for (int i = 0; i < terminalLength; i++){
+                out.putLong(terminalView.get(i));
+            }
+            out.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /***
+     * Opens a snapshot written by writeSnapshot with FileChannel.map and answers queries straight out of the mapped
+     * file. Nothing is copied onto the heap and no per-word objects are made, so this is about as fast as opening
+     * the file.
+     *
+     * The snapshot is taken if it was written with the same source description, or failing that, from a dictionary
+     * with the same hash. Checking the description first means an unchanged dictionary never has to be read, so
+     * DictionaryLoader only gives one for the local file, where it can trust the file system to say what changed.
+     *
+     * Runtime: O(1), apart from the OS paging the file in as it is read.
+     * @param file the snapshot file.
+     * @param sourceHash SHA-256 of the dictionary we expect it to have been built from, or null to only check source.
+     * @param source DictionaryLoader.describeDictionary of the dictionary as it is now, or null to only check the hash.
+     * @return the mapped trie, or null if the file is missing, not a snapshot, or was built from another dictionary.
+     */
+    public static DoubleArrayTrie mapSnapshot(Path file, byte[] sourceHash, String source){
+        if (!Files.isRegularFile(file)){
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < FIXED_HEADER_BYTES){
+                return null;
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] hash = new byte[32];
+            if (in.getInt() != MAGIC || in.getInt() != VERSION){
+                return null;
+            }
+            in.get(hash);
+            int size = in.getInt();
+            int terminalLength = in.getInt();
+            int descriptionLength = in.getInt();
+            if (size < 1 || terminalLength < 0 || descriptionLength < 0
+                    || descriptionLength > channel.size() - FIXED_HEADER_BYTES){
+                return null;
+            }
+            byte[] description = new byte[descriptionLength];
+            in.get(description);
+            boolean sameSource = source != null && descriptionLength > 0
+                    && source.compareTo(new String(description, StandardCharsets.UTF_8)) == 0;
+            if (!sameSource && !(sourceHash != null && Arrays.equals(hash, sourceHash))){
+                return null;
+            }
+            int headerBytes = headerBytes(descriptionLength);
+            if (channel.size() != headerBytes + 8L * size + 8L * terminalLength){
+                return null;
+            }
+
+            DoubleArrayTrie trie = new DoubleArrayTrie();
+            trie.base = null;
+            trie.check = null;
+            trie.terminal = null;
+            trie.size = size;
+            trie.baseView = slice(in, headerBytes, 4L * size).asIntBuffer();
+            trie.checkView = slice(in, headerBytes + 4L * size, 4L * size).asIntBuffer();
+            trie.terminalView = slice(in, headerBytes + 8L * size, 8L * terminalLength).asLongBuffer();
+            trie.mapped = true;
+            trie.built = true;
+            return trie;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /***
+     * How long the header is with a source description of the given length, padded so the arrays after it start on
+     * a multiple of 8 bytes.
+     */
+    private static int headerBytes(int descriptionLength){
+        return (FIXED_HEADER_BYTES + descriptionLength + 7) & ~7;
+    }
+
+    /***
+     * How many words the trie holds, one for each terminal bit. Cheap enough for a mapped snapshot, the bits are
+     * one long for every 64 states.
+     * @return the number of words.
+     */
+    int wordCount(){
+        ensureBuilt();
+        int words = 0;
+        for (int i = 0; i < terminalView.limit(); i++){
+            words += Long.bitCount(terminalView.get(i));
+        }
+        return words;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long length){
+        ByteBuffer copy = buffer.duplicate();
+        copy.position((int) offset);
+        copy.limit((int) (offset + length));
+        return copy.slice();
+    }
+
+    /***
+     * Follows the slot for ch out of state.
+     * @param state state we are in.
+     * @param ch char to follow.
+     * @return the child state, or -1 if there is no such child.
+     */
+    private int child(int state, char ch){
+        int index = Alphabet.indexOf(ch);
+        if (index < 0){
+            return -1;
+        }
+        int next = baseView.get(state) + index + 1;
+        return (next < size && checkView.get(next) == state) ? next : -1;
+    }
+
+    private boolean isTerminal(int state){ return (terminalView.get(state >>> 6) & (1L << state)) != 0; }
+
+    private void wrapArrays(){
+        baseView = IntBuffer.wrap(base);
+        checkView = IntBuffer.wrap(check);
+        terminalView = LongBuffer.wrap(terminal);
+        mapped = false;
+    }
+
+    /***
+     * Builds the arrays if words were added since the last build. Queries can come from many threads, so only the
+     * first one to get here does the build.
+     */
+    private void ensureBuilt(){
+        if (!built){
+            synchronized (this){
+                if (!built){
+                    build();
+                    built = true;
+                }
+            }
+        }
+    }
+
+    /***
+     * Builds the arrays from every word already in them plus the pending ones, sorted so each state's words are next
+     * to each other in the list. A mapped snapshot gets rebuilt onto the heap this way if words are added to it.
+     */
+    private void build(){
+        List<String> words = new ArrayList<>(pending);
+        if (size > 0){
+            collect(0, new StringBuilder(), words);
+        }
+        words.sort(null);
+        pending = new ArrayList<>();
+        int unique = 0;
+        for (String word : words){
+            if (unique == 0 || !word.equals(words.get(unique - 1))){
+                words.set(unique++, word);
+            }
+        }
+        words.subList(unique, words.size()).clear();
+
+        int capacity = Math.max(64, words.size() * 3);
+        base = new int[capacity];
+        check = new int[capacity];
+        Arrays.fill(check, FREE);
+        terminal = new long[(capacity >>> 6) + 1];
+        check[0] = 0;
+        size = 1;
+        nextFree = 1;
+
+        if (!words.isEmpty()){
+            place(0, words, 0, words.size(), 0);
+        }
+
+        // Nothing past size is ever read, so drop the spare capacity.
+        base = Arrays.copyOf(base, size);
+        check = Arrays.copyOf(check, size);
+        terminal = Arrays.copyOf(terminal, (size >>> 6) + 1);
+        wrapArrays();
+    }
+
+    /***
+     * Gives a state its children. Finds a base where every child slot is free, claims those slots, then recurs into
+     * each child with the part of the list that goes through it.
+     * @param state the state being placed.
+     * @param words the sorted words.
+     * @param from first word under this state.
+     * @param to one past the last word under this state.
+     * @param depth how many chars of each word the path to this state covers.
+     */
+    private void place(int state, List<String> words, int from, int to, int depth){
+        if (words.get(from).length() == depth){
+            //Shorter words sort first, so only the first word in the range can end here.
+            setTerminal(state);
+            from++;
+        }
+        if (from == to){
+            return;
+        }
+
+        // Split the range into one run of words per next char.
+        int[] codes = new int[Alphabet.SIZE];
+        int[] starts = new int[Alphabet.SIZE + 1];
+        int count = 0;
+        for (int i = from; i < to; i++){
+            int code = Alphabet.indexOf(words.get(i).charAt(depth)) + 1;
+            if (count == 0 || codes[count - 1] != code){
+                codes[count] = code;
+                starts[count] = i;
+                count++;
+            }
+        }
+        starts[count] = to;
+
+        int b = findBase(codes, count);
+        base[state] = b;
+        for (int k = 0; k < count; k++){
+            check[b + codes[k]] = state;
+            size = Math.max(size, b + codes[k] + 1);
+        }
+        for (int k = 0; k < count; k++){
+            place(b + codes[k], words, starts[k], starts[k + 1], depth + 1);
+        }
+    }
+
+    /***
+     * Finds the lowest base at or after nextFree where every child slot is free.
+     * @param codes codes of the children.
+     * @param count how many codes there are.
+     * @return the base.
+     */
+    private int findBase(int[] codes, int count){
+        int lowest = codes[0];
+        for (int k = 1; k < count; k++){
+            lowest = Math.min(lowest, codes[k]);
+        }
+        int taken = 0;
+        for (int pos = nextFree; ; pos++){
+            grow(pos + Alphabet.SIZE + 1);
+            if (check[pos] != FREE){
+                taken++;
+                continue;
+            }
+            if (taken * 20 > (pos - nextFree) * 19){
+                // Almost everything up to here is taken, so later searches can start from here.
+                nextFree = pos;
+                taken = 0;
+            }
+            int b = pos - lowest;
+            if (b < 1){
+                continue;
+            }
+            boolean fits = true;
+            for (int k = 0; k < count && fits; k++){
+                fits = check[b + codes[k]] == FREE;
+            }
+            if (fits){
+                return b;
+            }
+        }
+    }
+
+    private void grow(int needed){
+        if (needed <= check.length){
+            return;
+        }
+        int capacity = Math.max(needed, check.length * 2);
+        int old = check.length;
+        base = Arrays.copyOf(base, capacity);
+        check = Arrays.copyOf(check, capacity);
+        Arrays.fill(check, old, capacity, FREE);
+        terminal = Arrays.copyOf(terminal, (capacity >>> 6) + 1);
+    }
+
+    private void setTerminal(int state){ terminal[state >>> 6] |= 1L << state; }
+
+    /***
+     * Adds every word under state to the list, used to carry the old words over to a rebuild.
+     */
+    private void collect(int state, StringBuilder path, List<String> words){
+        if (isTerminal(state)){
+            words.add(path.toString());
+        }
+        for (int index = 0; index < Alphabet.SIZE; index++){
+            int next = baseView.get(state) + index + 1;
+            if (next < size && checkView.get(next) == state){
+                path.append(Alphabet.charAt(index));
+                collect(next, path, words);
+                path.setLength(path.length() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Row-per-node edit distance used by the bounded suggest walks.
+ */
+
+import java.util.Arrays;
+
+class EditDistance {
+    /** This keeps one Damerau-Levenshtein (optimal string alignment) row per depth of a tree walk. Walking down one
+     * node only has to compute one new row from the two rows above it, and walking back up is free because the rows
+     * for the shallower depths are still there. The row minimum tells the walk when a whole subtree can be skipped.
+     **/
+
+    // Most real typos are one or two edits away, so suggest tries this bound before falling back to a wider one.
+    static final int TYPO_DISTANCE = 2;
+
+    private final CharSequence word;
+    private int[][] rows;
+    private long pushes;
+
+    EditDistance(CharSequence word){
+        this.word = word;
+        this.rows = new int[16][];
+        int[] first = new int[word.length() + 1];
+        for (int j = 0; j < first.length; j++){
+            first[j] = j;
+        }
+        rows[0] = first;
+    }
+
+    /***
+     * Computes the row for a node at the given depth whose edge char is ch. The rows for depth-1 (and depth-2 for
+     * transpositions) must already have been pushed on this walk.
+     *
+     * Runtime: O(m) where m is the length of the word we are suggesting for.
+     * @param depth depth of the node, the root is depth 0.
+     * @param ch the char on the edge into this node.
+     * @param prevCh the char on the edge into the parent, ignored at depth 1.
+     * @return the smallest value in the new row. If it is bigger than the bound, nothing below this node can match.
+     */
+    int push(int depth, char ch, char prevCh){
+        pushes++;
+        if (depth >= rows.length){
+            int[][] bigger = new int[Math.max(rows.length * 2, depth + 1)][];
+            System.arraycopy(rows, 0, bigger, 0, rows.length);
+            rows = bigger;
+        }
+        int[] prev = rows[depth - 1];
+        int[] row = rows[depth];
+        if (row == null){
+            row = new int[prev.length];
+            rows[depth] = row;
+        }
+
+        row[0] = depth;
+        int min = depth;
+        for (int j = 1; j < row.length; j++){
+            char wc = word.charAt(j - 1);
+            int cost = (wc == ch) ? 0 : 1;
+            int value = Math.min(Math.min(prev[j] + 1, row[j - 1] + 1), prev[j - 1] + cost);
+            if (depth > 1 && j > 1 && wc == prevCh && word.charAt(j - 2) == ch){
+                //Swapped letters, "recieve" -> "receive", only cost one edit.
+                value = Math.min(value, rows[depth - 2][j - 2] + 1);
+            }
+            row[j] = value;
+            if (value < min){
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /***
+     * How many rows this walk has computed, which is how many nodes it looked at.
+     */
+    long pushes(){ return pushes; }
+
+    /***
+     * Distance between the whole word and the path down to the given depth.
+     * @param depth depth of a node that has been pushed.
+     * @return the edit distance.
+     */
+    int distance(int depth){ return rows[depth][word.length()]; }
+
+    /***
+     * Plain edit distance between two strings, using the same rules as the walk.
+     *
+     * Runtime: O(n*m) where n and m are the lengths of the strings.
+     * @param a first string
+     * @param b second string
+     * @return the edit distance between a and b.
+     */
+    static int between(CharSequence a, CharSequence b){
+        EditDistance rows = new EditDistance(a);
+        for (int i = 0; i < b.length(); i++){
+            rows.push(i + 1, b.charAt(i), i > 0 ? b.charAt(i - 1) : 0);
+        }
+        return rows.distance(b.length());
+    }
+
+    /***
+     * Full Damerau-Levenshtein distance, where swapped letters can also have other edits between them. Unlike the
+     * rows above (which give the optimal string alignment distance) this one is a true metric, so it keeps the
+     * triangle inequality that the BK-tree relies on. The two only differ on odd cases like "ca" -> "abc".
+     *
+     * Runtime: O(n*m) where n and m are the lengths of the strings.
+     * @param a first string
+     * @param b second string
+     * @return the edit distance between a and b.
+     */
+    static int damerau(CharSequence a, CharSequence b){
+        return damerau(a, b, new int[(a.length() + 2) * (b.length() + 2)], new int[128]);
+    }
+
+    /***
+     * Same as damerau(a, b), but works in the given scratch arrays so a search that measures many words against the
+     * same one does not allocate a new table for each.
+     * @param a first string
+     * @param b second string
+     * @param d table of at least (a.length()+2)*(b.length()+2) ints, overwritten.
+     * @param lastRow 128 ints, overwritten.
+     * @return the edit distance between a and b.
+     */
+    static int damerau(CharSequence a, CharSequence b, int[] d, int[] lastRow){
+        int n = a.length();
+        int m = b.length();
+        int width = m + 2;
+        int infinity = n + m;
+        d[0] = infinity;
+        for (int i = 0; i <= n; i++){
+            d[(i + 1) * width] = infinity;
+            d[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= m; j++){
+            d[j + 1] = infinity;
+            d[width + j + 1] = j;
+        }
+
+        // Last row each ASCII char was seen in a. Other chars never count as swapped.
+        Arrays.fill(lastRow, 0);
+        for (int i = 1; i <= n; i++){
+            char ca = a.charAt(i - 1);
+            int lastCol = 0;
+            for (int j = 1; j <= m; j++){
+                char cb = b.charAt(j - 1);
+                int i1 = cb < 128 ? lastRow[cb] : 0;
+                int j1 = lastCol;
+                int cost = 1;
+                if (ca == cb){
+                    cost = 0;
+                    lastCol = j;
+                }
+                int value = Math.min(Math.min(d[i * width + j] + cost, d[(i + 1) * width + j] + 1),
+                        d[i * width + j + 1] + 1);
+                d[(i + 1) * width + j + 1] = Math.min(value, d[i1 * width + j1] + (i - i1 - 1) + 1 + (j - j1 - 1));
+            }
+            if (ca < 128){
+                lastRow[ca] = i;
+            }
+        }
+        return d[(n + 1) * width + m + 1];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,215 @@
+/*
+ * Every place in a dictionary within a few edits of a word being typed, kept one row per char typed.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class Frontier<N> {
+    /** This is the bounded walk of EditDistance turned on its side. EditDistance keeps one row per char of the
+     * dictionary path, across the chars of the whole misspelling, so one more char typed changes every row and the
+     * walk has to start again. Here there is one row per char typed instead, across the places in the dictionary,
+     * and only the places within EditDistance.TYPO_DISTANCE edits of the chars typed so far are kept. Typing one more
+     * char only has to work out one new row from the row before it (and the one before that, for swapped letters),
+     * and taking a char back just drops the last row.
+     *
+     * A row stays small, since almost everything in the dictionary is more than two edits from any prefix (for
+     * english.0 it is never much more than a thousand places), and the distances it does hold are exact. Rows are
+     * worked out when a suggestion is asked for, not on every keystroke, so typing a word that is spelled right costs
+     * nothing.
+     *
+     * The structure says what a place is through Moves. Trie places are part way along an edge, Tree places are
+     * nodes.
+     **/
+
+    /***
+     * How to step down a structure one char at a time.
+     */
+    interface Moves<N> {
+        /***
+         * Adds the places one char below step to out.
+         */
+        void children(Step<N> step, List<Step<N>> out);
+
+        /***
+         * @return true if the chars on the path down to step are a dictionary word.
+         */
+        boolean isWord(Step<N> step);
+    }
+
+    /***
+     * A place in the structure, and the path down to it. Two steps to the same place are equal.
+     */
+    static final class Step<N> {
+        final N node;
+        final int along;  // how far along node's edge, for structures with more than one char per edge.
+        final char label; // the char on the way into this place.
+        final Step<N> up; // the place above, null for the root.
+        private final int depth;
+
+        Step(N node, int along, char label, Step<N> up){
+            this.node = node;
+            this.along = along;
+            this.label = label;
+            this.up = up;
+            this.depth = up != null ? up.depth + 1 : 0;
+        }
+
+        /***
+         * @return the chars on the path down to this place.
+         */
+        String word(){
+            char[] chars = new char[depth];
+            for (Step<N> step = this; step.up != null; step = step.up){
+                chars[step.depth - 1] = step.label;
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            return other instanceof Step && ((Step<?>) other).node == node && ((Step<?>) other).along == along;
+        }
+
+        @Override
+        public int hashCode(){ return System.identityHashCode(node) * 31 + along; }
+    }
+
+    private final CharSequence typed;
+    private final Moves<N> moves;
+    private final List<Map<Step<N>, Integer>> rows;
+    private long steps;
+
+    /***
+     * @param typed the chars typed so far. The caller calls cut() whenever it takes chars off.
+     * @param moves how to step down the structure.
+     * @param root the root of the structure.
+     */
+    Frontier(CharSequence typed, Moves<N> moves, Step<N> root){
+        this.typed = typed;
+        this.moves = moves;
+        this.rows = new ArrayList<>();
+        Map<Step<N>, Integer> first = new HashMap<>();
+        first.put(root, 0);
+        addMissing(first);
+        rows.add(first);
+    }
+
+    /***
+     * Drops the rows for more than length chars, since those chars have been taken back.
+     * @param length how many chars are typed now.
+     */
+    void cut(int length){
+        while (rows.size() > length + 1){
+            rows.remove(rows.size() - 1);
+        }
+    }
+
+    /***
+     * The same word as Nearest would get from a bounded walk over the whole structure: the closest word within bound
+     * of the chars typed, alphabetically first among the closest.
+     *
+     * Runtime: O(r) for each char typed since the last call, where r is the size of a row, then O(r) to look
+     * through the last row.
+     * @param bound the most edits away, no more than EditDistance.TYPO_DISTANCE.
+     * @return the word, or null if there is none within bound.
+     */
+    String nearest(int bound){
+        steps = 0;
+        while (rows.size() <= typed.length()){
+            rows.add(next(rows.size()));
+        }
+        SpellMetrics.get().probed(steps);
+
+        String nearest = null;
+        int nearestDistance = bound + 1;
+        for (Map.Entry<Step<N>, Integer> entry : rows.get(typed.length()).entrySet()){
+            Step<N> step = entry.getKey();
+            int distance = entry.getValue();
+            if (distance > Math.min(bound, nearestDistance) || step.up == null || !moves.isWord(step)){
+                continue;
+            }
+            String word = step.word();
+            if (distance < nearestDistance || word.compareTo(nearest) < 0){
+                nearest = word;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /***
+     * Works out the row for the first length chars typed from the rows before it.
+     */
+    private Map<Step<N>, Integer> next(int length){
+        int bound = EditDistance.TYPO_DISTANCE;
+        char ch = typed.charAt(length - 1);
+        Map<Step<N>, Integer> row = new HashMap<>();
+        for (Map.Entry<Step<N>, Integer> entry : rows.get(length - 1).entrySet()){
+            int distance = entry.getValue();
+            //The typed char is an extra one.
+            lower(row, entry.getKey(), distance + 1, bound);
+            for (Step<N> child : childrenOf(entry.getKey())){
+                //The typed char is the next one on the path, or was typed in its place.
+                lower(row, child, distance + (child.label == ch ? 0 : 1), bound);
+            }
+        }
+        if (length > 1){
+            //The last two chars typed are the next two on the path swapped, "recieve" -> "receive".
+            char prevCh = typed.charAt(length - 2);
+            for (Map.Entry<Step<N>, Integer> entry : rows.get(length - 2).entrySet()){
+                if (entry.getValue() + 1 > bound){
+                    continue;
+                }
+                for (Step<N> middle : childrenOf(entry.getKey())){
+                    if (middle.label != ch){
+                        continue;
+                    }
+                    for (Step<N> child : childrenOf(middle)){
+                        if (child.label == prevCh){
+                            lower(row, child, entry.getValue() + 1, bound);
+                        }
+                    }
+                }
+            }
+        }
+        addMissing(row);
+        return row;
+    }
+
+    /***
+     * Adds the places where the path has chars that were never typed, cheapest first, so each place ends up with
+     * its smallest distance.
+     */
+    private void addMissing(Map<Step<N>, Integer> row){
+        int bound = EditDistance.TYPO_DISTANCE;
+        for (int distance = 0; distance < bound; distance++){
+            List<Step<N>> level = new ArrayList<>();
+            for (Map.Entry<Step<N>, Integer> entry : row.entrySet()){
+                if (entry.getValue() == distance){
+                    level.add(entry.getKey());
+                }
+            }
+            for (Step<N> step : level){
+                for (Step<N> child : childrenOf(step)){
+                    lower(row, child, distance + 1, bound);
+                }
+            }
+        }
+    }
+
+    private List<Step<N>> childrenOf(Step<N> step){
+        List<Step<N>> children = new ArrayList<>();
+        moves.children(step, children);
+        steps += children.size();
+        return children;
+    }
+
+    private static <N> void lower(Map<Step<N>, Integer> row, Step<N> step, int distance, int bound){
+        if (distance <= bound){
+            row.merge(step, distance, Math::min);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Rough heap size numbers for the sizeInBytes() estimates.
+ */
+
+class MemoryEstimate {
+    /** These follow a 64 bit HotSpot JVM with compressed pointers: 12 byte object headers, 16 byte array headers,
+     * 4 byte references and everything padded to 8 bytes. They are estimates for comparing the structures against
+     * each other, not exact numbers.
+     **/
+
+    static final int REFERENCE = 4;
+
+    /***
+     * Size of an object with the given bytes of fields.
+     * @param fieldBytes total size of the fields.
+     * @return bytes used including header and padding.
+     */
+    static long object(long fieldBytes){ return align(12 + fieldBytes); }
+
+    /***
+     * Size of an array.
+     * @param length number of elements.
+     * @param elementBytes size of one element, REFERENCE for object arrays.
+     * @return bytes used including header and padding.
+     */
+    static long array(long length, int elementBytes){ return align(16 + length * elementBytes); }
+
+    /***
+     * Size of a String of plain ASCII chars, including its backing byte array.
+     * @param length number of chars.
+     * @return bytes used.
+     */
+    static long string(int length){ return object(4 + 1 + 1 + REFERENCE) + array(length, 1); }
+
+    /***
+     * Size of one java.util.HashMap entry, not counting the key and value objects.
+     * @return bytes used by the entry plus its share of the table.
+     */
+    static long hashEntry(){ return object(4 + 3 * REFERENCE) + 2 * REFERENCE; }
+
+    private static long align(long bytes){ return (bytes + 7) & ~7L; }
+}
@@ -0,0 +1,65 @@
+/*
+ * The best word found so far by a bounded suggest walk.
+ */
+
+class Nearest {
+    /** Every bounded walk (Trie, Tree, ConcurrentTrie, DoubleArrayTrie, Dawg) keeps going down while the edit distance
+     * of the path can still be within bound, and offers each word it reaches. Here the bound shrinks to the distance of
+     * each word taken, so only a closer word, or one just as close that comes first alphabetically, can replace it.
+     * That way every walk gives back the same word whatever order it reaches them in. TopSuggestions keeps more than
+     * one.
+     *
+     * A Nearest can also have a deadline. The walks ask bound() before every step, and every 32 asks it looks at the
+     * clock. Once the deadline has passed the bound drops to -1, which no distance fits under, so the walk unwinds
+     * straight away without any of the structures having to know about time.
+     **/
+
+    // How many bound() calls go by between looks at the clock. Must be a power of two.
+    private static final int CLOCK_INTERVAL = 32;
+
+    String word;
+    int bound;
+
+    private final long deadline;
+    private int calls;
+    private boolean expired;
+
+    Nearest(int maxDistance){ this(maxDistance, 0); }
+
+    /***
+     * @param maxDistance the most edits a word can be away.
+     * @param deadline System.nanoTime() to stop at, 0 for none.
+     */
+    Nearest(int maxDistance, long deadline){
+        this.bound = maxDistance;
+        this.deadline = deadline;
+    }
+
+    /***
+     * The bound the walk should prune at. -1 once the deadline has passed.
+     */
+    int bound(){
+        if (deadline != 0 && (++calls & (CLOCK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline > 0){
+            expired = true;
+            bound = -1;
+        }
+        return bound;
+    }
+
+    /***
+     * @return true if the walk was cut short by the deadline.
+     */
+    boolean expired(){ return expired; }
+
+    /***
+     * Called by a walk for every word it reaches.
+     * @param candidate the chars of the word, only copied into a String if it is taken.
+     * @param distance its edit distance from the misspelling.
+     */
+    void offer(CharSequence candidate, int distance){
+        if (distance < bound || (distance == bound && (word == null || CharSequence.compare(candidate, word) < 0))){
+            word = candidate.toString();
+            bound = distance;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Builds the dictionary again in the background when english.0 changes, and swaps it in without stopping any checks.
+ */
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+class ReloadableRoots implements Roots, AutoCloseable {
+    /** The dictionary in use is a snapshot: a Roots object that is never changed once it has been swapped in. A
+     * reload reads the dictionary again and builds a whole new Roots on a background thread while checks carry on
+     * against the old one. Once it is built it replaces the old one with a single atomic set, so a check either gets
+     * all of the old dictionary or all of the new one, never a mix, and nothing ever waits for a reload.
+     *
+     * Every call reads the current snapshot once and makes one call on it, so a check that started before the swap
+     * finishes against the snapshot it started with, and nothing is counted or locked. Once the last such call is
+     * done nothing holds the old snapshot any more and the garbage collector takes it, which is logged through a
+     * Cleaner. Anything built on top of the structure, like the Bloom filter or the suggestion cache, comes from the
+     * factory too, so it is rebuilt with it and never answers for the old words.
+     *
+     * A reload happens when reload() is called or, once watch() has been called, shortly after english.0 changes.
+     * reload() reads the source it was given, which may be a URL. A change to the file reads the file itself, since
+     * that is where the change is: reading the URL instead would build the old words again and drop the edit. Reloads
+     * that are asked for while one is waiting to start are folded into it, and if one of them was for a change to the
+     * file the file is what gets read. If the new dictionary cannot be read, or is empty, the old one is kept. Words
+     * added with add() only go into the current snapshot, a reload builds only what is in the file.
+     **/
+
+    // How long the file has to be left alone before a change is loaded, editors often save in more than one write.
+    private static final long SETTLE_MS = 250;
+
+    // Logs each snapshot once the garbage collector has taken it.
+    private static final Cleaner RELEASES = Cleaner.create();
+
+    private final Supplier<Roots> factory;
+    private final Callable<Reader> source;
+    private final AtomicReference<Snapshot> current;
+    private final ScheduledExecutorService builder;
+    private final AtomicBoolean queued;
+    private final AtomicReference<Callable<Reader>> requested; // what the waiting reload reads, null if none waits.
+    private WordFrequencies frequencies; // guarded by this, with completions.
+    private int completions;
+    private WatchService watchService;
+
+    private static class Snapshot {
+        final Roots roots;
+        final int generation;
+
+        Snapshot(Roots roots, int generation){
+            this.roots = roots;
+            this.generation = generation;
+            long started = System.nanoTime();
+            //Must not hold on to roots, or it would never be taken.
+            RELEASES.register(roots, () -> System.out.println("Released Dictionary " + generation + " after "
+                    + Duration.ofNanos(System.nanoTime() - started).toSeconds() + " s."));
+        }
+    }
+
+    /***
+     * @param first the dictionary already built, used until the first reload.
+     * @param factory makes a new empty Roots object, with anything that goes in front of it, for each reload.
+     * @param source opens the dictionary to read for each reload(). Changes seen by watch() read the file instead.
+     */
+    ReloadableRoots(Roots first, Supplier<Roots> factory, Callable<Reader> source){
+        this.factory = factory;
+        this.source = source;
+        this.current = new AtomicReference<>(new Snapshot(first, 1));
+        this.builder = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "dictionary-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queued = new AtomicBoolean();
+        this.requested = new AtomicReference<>();
+    }
+
+    /***
+     * Builds the dictionary again in the background and swaps it in. Returns right away.
+     */
+    void reload(){
+        requested.compareAndSet(null, source);
+        schedule(0);
+    }
+
+    /***
+     * Reloads from file shortly after it is written to, until close() is called. The directory it is in is what gets
+     * watched, so the file being replaced instead of written over is seen too.
+     * @param file the dictionary file.
+     * @throws IOException if the directory cannot be watched.
+     */
+    synchronized void watch(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path name = file.getFileName();
+        Path path = file.toAbsolutePath();
+        Callable<Reader> edited = () -> new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8);
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true){
+                    WatchKey key = service.take();
+                    for (WatchEvent<?> event : key.pollEvents()){
+                        //An overflow has no file name, so anything could have changed.
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())){
+                            requested.set(edited);
+                            schedule(SETTLE_MS);
+                        }
+                    }
+                    if (!key.reset()){
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                //close() was called.
+            }
+        }, "dictionary-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /***
+     * @return which dictionary is in use, 1 for the one it started with.
+     */
+    int generation(){ return current.get().generation; }
+
+    private void schedule(long delayMs){
+        if (queued.compareAndSet(false, true)){
+            builder.schedule(this::rebuild, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /***
+     * Reads the dictionary and builds the new snapshot, on the reload thread.
+     */
+    private void rebuild(){
+        //A change from here on needs another reload, since this one may already have read past it.
+        queued.set(false);
+        Callable<Reader> from = requested.getAndSet(null);
+        if (from == null){
+            //A reload that was asked for just now was already read by the one before this.
+            return;
+        }
+        int generation = current.get().generation;
+        try {
+            List<String> words = DictionaryLoader.readWords(from.call());
+            if (words.isEmpty()){
+                System.out.println("Reloaded Dictionary is Empty. Keeping Dictionary " + generation + "...");
+                return;
+            }
+            System.out.println("Reloading Dictionary...");
+            Roots next = factory.get();
+            DictionaryLoader.addWords(words, next);
+            swap(next);
+        } catch (Exception | OutOfMemoryError e) {
+            //Anything that goes wrong before the swap leaves the old snapshot in use.
+            System.out.println("Could not Reload Dictionary (" + e + "). Keeping Dictionary " + generation + "...");
+        }
+    }
+
+    /***
+     * Ranks the new snapshot the same way as the old one, before anything can read it, and swaps it in.
+     */
+    private synchronized void swap(Roots next){
+        if (completions > 0){
+            next.rankCompletions(frequencies, completions);
+        }
+        int generation = current.get().generation + 1;
+        current.set(new Snapshot(next, generation));
+        System.out.println("Swapped in Dictionary " + generation + ".");
+    }
+
+    @Override
+    public void add(String word){ current.get().roots.add(word); }
+
+    @Override
+    public void addAll(List<String> words){ current.get().roots.addAll(words); }
+
+    @Override
+    public boolean checkWord(String word){ return checkWord(word, 0, word.length()); }
+
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        return current.get().roots.checkWord(word, from, to);
+    }
+
+    @Override
+    public String suggest(String word){ return current.get().roots.suggest(word); }
+
+    @Override
+    public String suggest(String word, int maxDistance){
+        return current.get().roots.suggest(word, maxDistance);
+    }
+
+    /***
+     * Both passes run on the same snapshot.
+     */
+    @Override
+    public List<String> suggestTop(String word, int k, WordFrequencies frequencies){
+        return current.get().roots.suggestTop(word, k, frequencies);
+    }
+
+    /***
+     * Every distance is searched on the same snapshot.
+     */
+    @Override
+    public Suggestion suggest(String word, Duration budget){
+        return current.get().roots.suggest(word, budget);
+    }
+
+    @Override
+    public void collect(String word, Nearest nearest){ current.get().roots.collect(word, nearest); }
+
+    /***
+     * Ranks every snapshot from the next one on. The snapshot in use is never changed, so this builds a new one in
+     * the background, ranks it and swaps it in, the same as reload(). Returns right away.
+     */
+    @Override
+    public synchronized void rankCompletions(WordFrequencies frequencies, int k){
+        this.frequencies = frequencies;
+        this.completions = k;
+        reload();
+    }
+
+    @Override
+    public List<String> complete(String prefix, int k){ return current.get().roots.complete(prefix, k); }
+
+    @Override
+    public long sizeInBytes(){ return current.get().roots.sizeInBytes(); }
+
+    /***
+     * Stops watching the file and drops any reload that has not finished. The current snapshot stays usable.
+     */
+    @Override
+    public synchronized void close(){
+        if (watchService != null){
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            watchService = null;
+        }
+        builder.shutdownNow();
+    }
+
+    /***
+     * The current snapshot's description, like the Bloom filter or cache stats.
+     */
+    @Override
+    public String toString(){
+        Snapshot snapshot = current.get();
+        return "Dictionary " + snapshot.generation + ": " + snapshot.roots;
+    }
+}
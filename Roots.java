@@ -1,3 +1,7 @@
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
 interface Roots {
     /** This is Roots interface, defining the minimum functions for the Tree classes. This also makes it much easier to
      * write the code for Main that is not repetitive. It allows me to pass a "Roots" object as a parameter instead of
@@ -6,7 +10,176 @@ interface Roots {
 
     void add(String word);
 
+    /***
+     * Adds a whole list of words. Structures that can build in parallel override this, the rest just add them one
+     * at a time.
+     */
+    default void addAll(List<String> words){
+        for (String word : words){
+            add(word);
+        }
+    }
+
     boolean checkWord(String word);
 
-    String suggest(String word);
+    /***
+     * Checks a word that is not a String, like the current token of a WordTokenizer.
+     */
+    default boolean checkWord(CharSequence word){
+        return checkWord(word, 0, word.length());
+    }
+
+    /***
+     * Checks the chars of word from index from up to, but not including, to. Structures that can walk a CharSequence
+     * directly override this so no String has to be made, the rest just copy the range into one.
+     */
+    default boolean checkWord(CharSequence word, int from, int to){
+        return checkWord(word.subSequence(from, to).toString());
+    }
+
+    /***
+     * Suggests the closest word. Structures with shortcuts of their own, like Trie and Tree, override this and fall
+     * back to suggestByDistance.
+     */
+    default String suggest(String word){
+        return suggestByDistance(word);
+    }
+
+    /***
+     * Suggests the closest word, first looking within two edits and only then widening to the word's length. A tight
+     * bound prunes almost everything, and any word no longer than the misspelling is within its length, so the second
+     * walk only comes back empty when there are no words at all.
+     * @param word String of the misspelled word.
+     * @return the closest word, or word itself if there is none.
+     */
+    default String suggestByDistance(String word){
+        Nearest near = new Nearest(Math.min(word.length(), EditDistance.TYPO_DISTANCE));
+        collect(word, near);
+        return suggestByDistance(word, near.word);
+    }
+
+    /***
+     * The rest of suggestByDistance, once the closest word within two edits has been found some other way, like by
+     * a cursor's Frontier.
+     * @param word String of the misspelled word.
+     * @param near the closest word within two edits, or null if there is none.
+     * @return the closest word, or word itself if there is none.
+     */
+    default String suggestByDistance(String word, String near){
+        if (near != null){
+            SpellMetrics.get().tier(SpellMetrics.Tier.NEAR);
+            return near;
+        }
+        Nearest far = new Nearest(word.length());
+        collect(word, far);
+        SpellMetrics.get().tier(far.word != null ? SpellMetrics.Tier.FAR : SpellMetrics.Tier.UNCHANGED);
+        return far.word != null ? far.word : word;
+    }
+
+    /***
+     * Bounded suggest. Returns the dictionary word with the smallest edit distance to word, or null if none is within
+     * maxDistance. Ties go to the word that comes first alphabetically.
+     */
+    String suggest(String word, int maxDistance);
+
+    /***
+     * Suggests up to k words, closest first, with more common words first among those at the same distance. Looks
+     * within two edits first and only widens to the word's length if nothing is that close.
+     * @param word String of the misspelled word.
+     * @param k the most suggestions to give back.
+     * @param frequencies how common each word is, WordFrequencies.NONE to rank on distance alone.
+     * @return the suggestions, best first. Empty if there is nothing to suggest.
+     */
+    default List<String> suggestTop(String word, int k, WordFrequencies frequencies){
+        TopSuggestions top = new TopSuggestions(k, Math.min(word.length(), EditDistance.TYPO_DISTANCE), frequencies);
+        collect(word, top);
+        SpellMetrics.Tier tier = SpellMetrics.Tier.NEAR;
+        if (top.isEmpty()){
+            top = new TopSuggestions(k, word.length(), frequencies);
+            collect(word, top);
+            tier = SpellMetrics.Tier.FAR;
+        }
+        SpellMetrics.get().tier(!top.isEmpty() ? tier : SpellMetrics.Tier.UNCHANGED);
+        return top.toList();
+    }
+
+    /***
+     * Suggests the closest word like suggest(word, word.length()), but gives up once budget has passed. It looks
+     * within 0 edits, then 1, then 2 and so on, so every smaller distance has been fully searched before a walk
+     * starts. If time runs out part way through a walk, whatever word it found is still as close as any, but it may
+     * not be the one a full walk would have picked, so it is marked as not exact. If it found nothing the word itself
+     * is given back. Unlike suggest(word) this skips the prefix and child shortcuts of Trie and Tree.
+     *
+     * Runtime: at most about budget, plus the time to notice it has passed.
+     * @param word String of the misspelled word.
+     * @param budget how long to look for.
+     * @return the suggestion, and whether it is certainly the closest word.
+     */
+    default Suggestion suggest(String word, Duration budget){
+        long deadline = System.nanoTime() + budget.toNanos();
+        for (int distance = 0; distance <= word.length(); distance++){
+            if (distance > 0 && System.nanoTime() - deadline > 0){
+                SpellMetrics.get().tier(SpellMetrics.Tier.DEGRADED);
+                return new Suggestion(word, false);
+            }
+            Nearest nearest = new Nearest(distance, deadline);
+            collect(word, nearest);
+            if (nearest.expired()){
+                SpellMetrics.get().tier(SpellMetrics.Tier.DEGRADED);
+                return new Suggestion(nearest.word != null ? nearest.word : word, false);
+            }
+            if (nearest.word != null){
+                SpellMetrics.get().tier(distance <= EditDistance.TYPO_DISTANCE ? SpellMetrics.Tier.NEAR
+                        : SpellMetrics.Tier.FAR);
+                return new Suggestion(nearest.word, true);
+            }
+        }
+        SpellMetrics.get().tier(SpellMetrics.Tier.UNCHANGED);
+        return new Suggestion(word, true);
+    }
+
+    /***
+     * Offers nearest every word within its bound. The structures with a bounded walk override this to run the same
+     * walk with nearest in place of their own, the rest can only offer their one bounded suggestion.
+     */
+    default void collect(String word, Nearest nearest){
+        String found = suggest(word, nearest.bound());
+        if (found != null){
+            nearest.offer(found, EditDistance.between(word, found));
+        }
+    }
+
+    /***
+     * Works out the best completions below every prefix ahead of time, so complete() does not have to look through
+     * the words below a prefix. Has to be called again after more words are added. Structures that cannot complete a
+     * prefix ignore it.
+     * @param frequencies how common each word is, WordFrequencies.NONE to rank on length alone.
+     * @param k the most completions complete() will be able to give back.
+     */
+    default void rankCompletions(WordFrequencies frequencies, int k){
+    }
+
+    /***
+     * Dictionary words that start with prefix, most common first. Empty until rankCompletions has been called, and
+     * for structures that cannot complete a prefix.
+     * @param prefix the chars typed so far.
+     * @param k the most completions to give back, no more than rankCompletions was given.
+     * @return the completions, best first. Includes prefix itself if it is a word.
+     */
+    default List<String> complete(String prefix, int k){
+        return Collections.emptyList();
+    }
+
+    /***
+     * Starts a cursor for typing a word one char at a time. Structures that can step through one char at a time
+     * override this, the rest get a cursor that checks the whole word each time.
+     */
+    default Cursor cursor(){
+        return new Cursor.Rescan(this);
+    }
+
+    /***
+     * Rough estimate of the heap the structure holds, see MemoryEstimate.
+     */
+    long sizeInBytes();
 }
\ No newline at end of file
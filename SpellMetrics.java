@@ -0,0 +1,376 @@
+/*
+ * Counters and timings for the spell checker, shown over JMX and in a summary line.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SpellMetrics implements SpellMetricsMBean {
+    /** One of these is shared by the whole program. DictionaryLoader records the load, the check loops record every
+     * word and time every suggest, and the Roots classes record which tier of their suggest came up with the answer
+     * and how many nodes or words they had to look at to find it. Everything is a LongAdder or an atomic, so the
+     * worker threads of --threads can all record at once.
+     *
+     * Suggest times go into a histogram with four buckets per power of two of nanoseconds, so p50 and p99 are off
+     * by at most a quarter, and it never grows. The slowest word is kept so a pathological input can be found.
+     **/
+
+    /***
+     * Where a suggestion came from. Trie and Tree first look for a word on the path of the misspelling
+     * (PREFIX_WORD) and then a child that is a word (CHILD_WORD). Every structure then walks within
+     * EditDistance.TYPO_DISTANCE (NEAR), then within the length of the word (FAR), and gives the word back
+     * (UNCHANGED) if both come up empty. A budgeted suggest that runs out of time is DEGRADED.
+     */
+    enum Tier { PREFIX_WORD, CHILD_WORD, NEAR, FAR, UNCHANGED, DEGRADED }
+
+    private static final SpellMetrics METRICS = new SpellMetrics();
+
+    // Bucket i >= 4 holds the times with their top bit at i / 4 + 1 and the next two bits equal to i % 4.
+    private static final int BUCKETS = 256;
+
+    private volatile long loadNanos;
+    private volatile long dictionaryWords;
+
+    private final LongAdder checked;
+    private final LongAdder misspelled;
+    private volatile long checkStart;
+    private volatile long checkEnd;
+
+    private final LongAdder[] tiers;
+    private final LongAdder probes;
+    private final AtomicLongArray latency;
+    private final LongAdder suggestions;
+    private final AtomicLong maxNanos;
+    private volatile String slowestWord;
+
+    private ScheduledExecutorService reporter;
+
+    private SpellMetrics(){
+        checked = new LongAdder();
+        misspelled = new LongAdder();
+        tiers = new LongAdder[Tier.values().length];
+        for (int i = 0; i < tiers.length; i++){
+            tiers[i] = new LongAdder();
+        }
+        probes = new LongAdder();
+        latency = new AtomicLongArray(BUCKETS);
+        suggestions = new LongAdder();
+        maxNanos = new AtomicLong();
+    }
+
+    /***
+     * @return the metrics for this program.
+     */
+    static SpellMetrics get(){ return METRICS; }
+
+    /***
+     * Called once the dictionary is in the structure.
+     * @param words how many words were added, 0 if it was mapped from a snapshot.
+     * @param nanos how long adding them took.
+     */
+    void dictionaryLoaded(long words, long nanos){
+        dictionaryWords = words;
+        loadNanos = nanos;
+    }
+
+    /***
+     * Starts the clock for words per second.
+     */
+    void checkStarted(){
+        checkEnd = 0;
+        checkStart = System.nanoTime();
+    }
+
+    /***
+     * Stops the clock for words per second.
+     */
+    void checkFinished(){ checkEnd = System.nanoTime(); }
+
+    /***
+     * Counts one word from the input.
+     * @param correct true if checkWord found it.
+     */
+    void checked(boolean correct){
+        checked.increment();
+        if (!correct){
+            misspelled.increment();
+        }
+    }
+
+    /***
+     * Counts a word that came up more than once in the input but was only checked once.
+     * @param correct true if checkWord found it.
+     * @param times how many times it is in the input.
+     */
+    void checked(boolean correct, long times){
+        checked.add(times);
+        if (!correct){
+            misspelled.add(times);
+        }
+    }
+
+    /***
+     * Asks tree for a suggestion and records how long it took.
+     * @param tree the Roots object holding the dictionary.
+     * @param word the misspelled word.
+     * @return whatever tree.suggest gave back.
+     */
+    String suggest(Roots tree, String word){
+        long start = System.nanoTime();
+        String suggestion = tree.suggest(word);
+        suggested(word, System.nanoTime() - start);
+        return suggestion;
+    }
+
+    /***
+     * Asks a cursor for a suggestion for the word typed so far and records how long it took.
+     * @param cursor the cursor, already moved to the misspelled word.
+     * @return whatever cursor.suggest gave back.
+     */
+    String suggest(Cursor cursor){
+        long start = System.nanoTime();
+        String suggestion = cursor.suggest();
+        suggested(cursor.word(), System.nanoTime() - start);
+        return suggestion;
+    }
+
+    /***
+     * Asks tree for its k best suggestions and records how long it took.
+     * @param tree the Roots object holding the dictionary.
+     * @param word the misspelled word.
+     * @param k the most suggestions to give back.
+     * @param frequencies how common each word is.
+     * @return whatever tree.suggestTop gave back.
+     */
+    List<String> suggestTop(Roots tree, String word, int k, WordFrequencies frequencies){
+        long start = System.nanoTime();
+        List<String> suggestions = tree.suggestTop(word, k, frequencies);
+        suggested(word, System.nanoTime() - start);
+        return suggestions;
+    }
+
+    /***
+     * Asks tree for a suggestion within budget and records how long it took.
+     * @param tree the Roots object holding the dictionary.
+     * @param word the misspelled word.
+     * @param budget how long the suggest may take.
+     * @return whatever tree.suggest gave back.
+     */
+    Suggestion suggest(Roots tree, String word, Duration budget){
+        long start = System.nanoTime();
+        Suggestion suggestion = tree.suggest(word, budget);
+        suggested(word, System.nanoTime() - start);
+        return suggestion;
+    }
+
+    /***
+     * Records one suggest call.
+     * @param word the misspelled word.
+     * @param nanos how long the suggest took.
+     */
+    void suggested(String word, long nanos){
+        suggestions.increment();
+        latency.incrementAndGet(bucket(nanos));
+        long max = maxNanos.get();
+        while (nanos > max){
+            if (maxNanos.compareAndSet(max, nanos)){
+                slowestWord = word;
+                break;
+            }
+            max = maxNanos.get();
+        }
+    }
+
+    /***
+     * Records which tier answered a suggest.
+     */
+    void tier(Tier tier){ tiers[tier.ordinal()].increment(); }
+
+    /***
+     * Records how many trie rows, or candidate words, a suggest walk looked at.
+     */
+    void probed(long count){ probes.add(count); }
+
+    private static int bucket(long nanos){
+        if (nanos < 4){
+            return (int) Math.max(nanos, 0);
+        }
+        int top = 63 - Long.numberOfLeadingZeros(nanos);
+        return (top - 1) * 4 + (int) ((nanos >>> (top - 2)) & 3);
+    }
+
+    private static long bucketTop(int bucket){
+        if (bucket < 4){
+            return bucket;
+        }
+        int top = bucket / 4 + 1;
+        long low = (4L + bucket % 4) << (top - 2);
+        return low + (1L << (top - 2)) - 1;
+    }
+
+    /***
+     * The time that the given fraction of suggests finished within, rounded up to the top of its bucket.
+     * @param fraction 0.5 for p50, 0.99 for p99.
+     * @return nanoseconds, 0 if nothing has been suggested.
+     */
+    long percentileNanos(double fraction){
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            total += latency.get(i);
+        }
+        if (total == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += latency.get(i);
+            if (seen >= rank){
+                return Math.min(bucketTop(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /***
+     * Registers these metrics with the platform MBean server as cs245:type=SpellMetrics. Only the first call
+     * registers, and the program keeps going if JMX says no.
+     */
+    synchronized void register(){
+        try {
+            ObjectName name = new ObjectName("cs245:type=SpellMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)){
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not register metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Prints the summary every so often on a background thread, until stopReporting() is called. It goes to
+     * System.err so it does not land in the middle of a line of results.
+     * @param seconds time between summaries, nothing is started if it is 0 or less.
+     */
+    synchronized void startReporting(long seconds){
+        if (seconds <= 0 || reporter != null){
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "spell-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.err.println("[metrics] " + getSummary()), seconds, seconds,
+                TimeUnit.SECONDS);
+    }
+
+    synchronized void stopReporting(){
+        if (reporter != null){
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    @Override
+    public long getDictionaryLoadMillis(){ return loadNanos / 1000000; }
+
+    @Override
+    public long getDictionaryWords(){ return dictionaryWords; }
+
+    @Override
+    public long getWordsChecked(){ return checked.sum(); }
+
+    @Override
+    public long getWordsMisspelled(){ return misspelled.sum(); }
+
+    @Override
+    public double getWordsPerSecond(){
+        long start = checkStart;
+        if (start == 0){
+            return 0;
+        }
+        long end = checkEnd != 0 ? checkEnd : System.nanoTime();
+        return end > start ? checked.sum() * 1e9 / (end - start) : 0;
+    }
+
+    @Override
+    public long getSuggestions(){ return suggestions.sum(); }
+
+    @Override
+    public long getPrefixWordHits(){ return tiers[Tier.PREFIX_WORD.ordinal()].sum(); }
+
+    @Override
+    public long getChildWordHits(){ return tiers[Tier.CHILD_WORD.ordinal()].sum(); }
+
+    @Override
+    public long getNearHits(){ return tiers[Tier.NEAR.ordinal()].sum(); }
+
+    @Override
+    public long getFarHits(){ return tiers[Tier.FAR.ordinal()].sum(); }
+
+    @Override
+    public long getUnchanged(){ return tiers[Tier.UNCHANGED.ordinal()].sum(); }
+
+    @Override
+    public long getDegraded(){ return tiers[Tier.DEGRADED.ordinal()].sum(); }
+
+    @Override
+    public long getSuggestP50Micros(){ return percentileNanos(0.5) / 1000; }
+
+    @Override
+    public long getSuggestP99Micros(){ return percentileNanos(0.99) / 1000; }
+
+    @Override
+    public long getSuggestMaxMicros(){ return maxNanos.get() / 1000; }
+
+    @Override
+    public String getSlowestWord(){ return slowestWord; }
+
+    @Override
+    public double getProbesPerSuggestion(){
+        long count = suggestions.sum();
+        return count > 0 ? (double) probes.sum() / count : 0;
+    }
+
+    @Override
+    public String getSummary(){
+        return "Loaded " + (getDictionaryWords() > 0 ? getDictionaryWords() + " words" : "dictionary") + " in "
+                + getDictionaryLoadMillis() + " ms. "
+                + "Checked " + getWordsChecked() + " words (" + getWordsMisspelled() + " misspelled) at "
+                + Math.round(getWordsPerSecond()) + " words/sec. "
+                + "Suggested " + getSuggestions() + ": prefix word " + getPrefixWordHits()
+                + ", child word " + getChildWordHits() + ", near " + getNearHits() + ", far " + getFarHits()
+                + ", unchanged " + getUnchanged()
+                + (getDegraded() > 0 ? ", out of time " + getDegraded() : "") + ". "
+                + "Suggest p50 " + getSuggestP50Micros() + " us, p99 " + getSuggestP99Micros() + " us, max "
+                + getSuggestMaxMicros() + " us" + (slowestWord != null ? " (" + slowestWord + ")" : "") + ", "
+                + Math.round(getProbesPerSuggestion()) + " probes per suggestion.";
+    }
+
+    @Override
+    public void reset(){
+        checked.reset();
+        misspelled.reset();
+        for (LongAdder tier : tiers){
+            tier.reset();
+        }
+        probes.reset();
+        suggestions.reset();
+        for (int i = 0; i < BUCKETS; i++){
+            latency.set(i, 0);
+        }
+        maxNanos.set(0);
+        slowestWord = null;
+        checkStart = checkStart != 0 ? System.nanoTime() : 0;
+    }
+}
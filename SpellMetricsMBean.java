@@ -0,0 +1,47 @@
+/*
+ * What SpellMetrics shows over JMX.
+ */
+
+public interface SpellMetricsMBean {
+    /** The attributes jconsole or any other JMX client sees under cs245:type=SpellMetrics. Times are in
+     * milliseconds or microseconds as named, counts are since the program started or since the last reset().
+     **/
+
+    long getDictionaryLoadMillis();
+
+    long getDictionaryWords();
+
+    long getWordsChecked();
+
+    long getWordsMisspelled();
+
+    double getWordsPerSecond();
+
+    long getSuggestions();
+
+    long getPrefixWordHits();
+
+    long getChildWordHits();
+
+    long getNearHits();
+
+    long getFarHits();
+
+    long getUnchanged();
+
+    long getDegraded();
+
+    long getSuggestP50Micros();
+
+    long getSuggestP99Micros();
+
+    long getSuggestMaxMicros();
+
+    String getSlowestWord();
+
+    double getProbesPerSuggestion();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,162 @@
+/*
+ * Keeps one dictionary in memory and checks words sent to it over HTTP on localhost.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+class SpellServer {
+    /** Started with "--serve [port]". The dictionary is built once, and then every request is checked against the same
+     * Roots object, which is only read from, so any number of requests can be checked at once.
+     *
+     * POST /check takes a batch of words in the body, one per line like input.txt, and answers with one line per word
+     * like output.txt: the word if it is spelled right, the suggestion if it is not. The words are read and answered
+     * as they stream in, so a big batch is never all in memory. GET /metrics gives the SpellMetrics summary. POST
+     * /reload starts building the dictionary again in the background, if it can be reloaded, and answers right away.
+     *
+     * The server only listens on the loopback address. Each request is handled on a thread from a cached pool, so no
+     * request waits for another to finish, and threads left over from a burst are let go after a minute idle.
+     **/
+
+    static final int DEFAULT_PORT = 8245;
+
+    private final Roots tree;
+    private final Function<String, String> suggester;
+    private final Runnable reload;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /***
+     * Opens the port, but does not answer anything until start() is called.
+     * @param tree the Roots object holding the dictionary.
+     * @param suggester gives the suggestion for a misspelled word.
+     * @param reload starts a reload of the dictionary, null if it cannot be reloaded.
+     * @param port the port to listen on, 0 for any free one.
+     * @throws IOException if the port cannot be opened.
+     */
+    SpellServer(Roots tree, Function<String, String> suggester, Runnable reload, int port) throws IOException {
+        this.tree = tree;
+        this.suggester = suggester;
+        this.reload = reload;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = requestExecutor();
+        server.createContext("/check", this::check);
+        server.createContext("/metrics", this::metrics);
+        server.createContext("/reload", this::reload);
+        server.setExecutor(executor);
+    }
+
+    void start(){ server.start(); }
+
+    /***
+     * Stops taking requests and drops any that are still running.
+     */
+    void stop(){
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /***
+     * @return the port the server is listening on.
+     */
+    int port(){ return server.getAddress().getPort(); }
+
+    /***
+     * Checks the batch of words in the request body, writing each answer as soon as the word is read.
+     *
+     * Runtime: O(n) where n is the number of words, plus suggest for each misspelled one.
+     * @param exchange the request.
+     * @throws IOException if the connection fails.
+     */
+    private void check(HttpExchange exchange) throws IOException {
+        try {
+            if (exchange.getRequestMethod().compareTo("POST") != 0){
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            //Length 0 means the answer is sent in chunks as it is written.
+            exchange.sendResponseHeaders(200, 0);
+            SpellMetrics metrics = SpellMetrics.get();
+            WordTokenizer words = new WordTokenizer(new InputStreamReader(exchange.getRequestBody(),
+                    StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            while (words.next()){
+                boolean correct = tree.checkWord(words);
+                metrics.checked(correct);
+                if (correct){
+                    words.writeTo(out);
+                } else {
+                    out.write(suggester.apply(words.toString()));
+                }
+                out.write('\n');
+            }
+            out.flush();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /***
+     * Gives the metrics summary as one line of text.
+     * @param exchange the request.
+     * @throws IOException if the connection fails.
+     */
+    private void metrics(HttpExchange exchange) throws IOException {
+        try {
+            byte[] summary = (SpellMetrics.get().getSummary() + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, summary.length);
+            exchange.getResponseBody().write(summary);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /***
+     * Starts a reload and answers 202 without waiting for it, or 404 if the dictionary cannot be reloaded.
+     * @param exchange the request.
+     * @throws IOException if the connection fails.
+     */
+    private void reload(HttpExchange exchange) throws IOException {
+        try {
+            if (exchange.getRequestMethod().compareTo("POST") != 0){
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (reload == null){
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            reload.run();
+            exchange.sendResponseHeaders(202, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /***
+     * A cached pool of daemon threads, so a request that is still open never keeps the JVM up.
+     */
+    private static ExecutorService requestExecutor(){
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "spell-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
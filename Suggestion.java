@@ -0,0 +1,20 @@
+/*
+ * A suggestion from the budgeted suggest, and whether it ran out of time.
+ */
+
+class Suggestion {
+    /** exact is true when the whole search finished in time, so no dictionary word is closer than word. When it is
+     * false the search was cut short, and word is the best it had so far, or the misspelling itself.
+     **/
+
+    final String word;
+    final boolean exact;
+
+    Suggestion(String word, boolean exact){
+        this.word = word;
+        this.exact = exact;
+    }
+
+    @Override
+    public String toString(){ return exact ? word : word + " (out of time)"; }
+}
@@ -0,0 +1,181 @@
+/*
+ * Works out live suggestions off the UI thread. Used by CS245A1LiveCheck, but does not need JavaFX or a display.
+ */
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+class SuggestionService implements AutoCloseable {
+    /** Every keystroke calls request() with the whole text. Nothing is worked out right away: the request waits for
+     * the debounce delay on a single background thread, and a newer request cancels it if it comes first, so typing
+     * a word quickly only costs one suggest for the last keystroke.
+     *
+     * Each request gets a number. A suggest that is already running when newer text arrives is left to finish (it
+     * is held to the budget if there is one), but its answer is only handed on if no newer request has come in by
+     * the time it is done, and again when the publisher gets to run it. So the label never goes back to an answer
+     * for older text.
+     *
+     * The answer goes to the publisher, which for JavaFX is Platform::runLater so the label is set on the FX
+     * thread. Anything else, like Runnable::run, works for running it without a display.
+     *
+     * The word is followed with a Cursor from the tree, so going from one keystroke to the next only steps the
+     * cursor by the chars that changed instead of looking the whole word up again.
+     *
+     * If it is asked for completions, the same request also gets the ranked completions of the word so far from
+     * Roots.complete, which only has to walk down the word, so it adds next to nothing to a keystroke.
+     **/
+
+    private final Roots tree;
+    private final Cursor cursor; // guarded by itself.
+    private final Duration debounce;
+    private final Duration budget;
+    private final int completions;
+    private final Consumer<Runnable> publisher;
+    private final ScheduledExecutorService worker;
+    private final AtomicLong latest;
+    private ScheduledFuture<?> pending;
+
+    /***
+     * @param tree the Roots object holding the dictionary.
+     * @param debounce how long the text has to stay the same before a suggestion is worked out.
+     * @param budget how long one suggest may take, null for no limit.
+     * @param publisher runs the code that shows an answer, on whatever thread that has to happen on.
+     */
+    SuggestionService(Roots tree, Duration debounce, Duration budget, Consumer<Runnable> publisher){
+        this(tree, debounce, budget, 0, publisher);
+    }
+
+    /***
+     * @param tree the Roots object holding the dictionary, with its completions ranked.
+     * @param debounce how long the text has to stay the same before a suggestion is worked out.
+     * @param budget how long one suggest may take, null for no limit.
+     * @param completions how many completions to give with each suggestion, 0 for none.
+     * @param publisher runs the code that shows an answer, on whatever thread that has to happen on.
+     */
+    SuggestionService(Roots tree, Duration debounce, Duration budget, int completions, Consumer<Runnable> publisher){
+        this.tree = tree;
+        this.cursor = tree.cursor();
+        this.debounce = debounce;
+        this.budget = budget;
+        this.completions = completions;
+        this.publisher = publisher;
+        this.worker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "live-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latest = new AtomicLong();
+    }
+
+    /***
+     * Asks for the suggestion for the last word of text, replacing any request that has not started yet.
+     * @param text everything typed so far.
+     * @param onResult given the answer through the publisher, unless newer text arrives first.
+     */
+    void request(String text, Consumer<String> onResult){
+        request(text, onResult, words -> {});
+    }
+
+    /***
+     * Asks for the suggestion and the completions for the last word of text, replacing any request that has not
+     * started yet. Both answers are handed on together.
+     * @param text everything typed so far.
+     * @param onResult given the suggestion through the publisher, unless newer text arrives first.
+     * @param onCompletions given the completions at the same time.
+     */
+    synchronized void request(String text, Consumer<String> onResult, Consumer<List<String>> onCompletions){
+        long id = latest.incrementAndGet();
+        if (pending != null){
+            pending.cancel(false);
+        }
+        pending = worker.schedule(() -> {
+            if (id != latest.get()){
+                return;
+            }
+            String answer = suggestionFor(text);
+            List<String> words = completionsFor(text);
+            if (id == latest.get()){
+                publisher.accept(() -> {
+                    if (id == latest.get()){
+                        onResult.accept(answer);
+                        onCompletions.accept(words);
+                    }
+                });
+            }
+        }, debounce.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /***
+     * Drops any request that has not been answered yet.
+     */
+    synchronized void cancel(){
+        latest.incrementAndGet();
+        if (pending != null){
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /***
+     * What the label should say for this text. Runs on the calling thread.
+     *
+     * Runtime: O(c) cursor steps where c is how many chars changed since the last call, plus suggest if the word is
+     * misspelled.
+     * @param text everything typed so far.
+     * @return the last word if it is spelled right, the suggestion if it is not, "" if there is no word.
+     */
+    String suggestionFor(String text){
+        String word = lastWord(text);
+        synchronized (cursor){
+            cursor.moveTo(word);
+            if (word.compareTo("") == 0){
+                return "";
+            }
+            if (cursor.isWord()){
+                return word;
+            }
+            if (budget != null){
+                //Marked if the search was cut short.
+                return SpellMetrics.get().suggest(tree, word, budget).toString();
+            }
+            return SpellMetrics.get().suggest(cursor);
+        }
+    }
+
+    /***
+     * The completions to show for this text. Runs on the calling thread.
+     *
+     * Runtime: the runtime of complete, O(n + k) for Trie and Tree.
+     * @param text everything typed so far.
+     * @return the best completions of the last word, empty if there is no word or none were asked for.
+     */
+    List<String> completionsFor(String text){
+        String word = lastWord(text);
+        if (completions == 0 || word.compareTo("") == 0){
+            return Collections.emptyList();
+        }
+        return tree.complete(word, completions);
+    }
+
+    /***
+     * The word being typed: everything after the last space, with anything that is not a letter taken out.
+     * @param text everything typed so far.
+     * @return the word in lower case, "" if there is none.
+     */
+    static String lastWord(String text){
+        return text.substring(text.lastIndexOf(' ') + 1).trim().replaceAll("[^a-zA-Z]", "").toLowerCase();
+    }
+
+    @Override
+    public void close(){
+        cancel();
+        worker.shutdownNow();
+    }
+}
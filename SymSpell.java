@@ -0,0 +1,206 @@
+/*
+ * Symmetric Delete Spelling Correction Implementation.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SymSpell implements Roots {
+
+    // How many deletes are precomputed for every dictionary word. This is also the furthest suggest can look.
+    static final int MAX_DELETES = 2;
+
+    private final List<String> words;
+    private final HashMap<String, Integer> ids;
+    private final HashMap<String, int[]> deletes;
+
+    SymSpell(){
+        words = new ArrayList<>();
+        ids = new HashMap<>();
+        deletes = new HashMap<>();
+    }
+
+    /***
+     * Adds a word and every string we can make by deleting up to MAX_DELETES chars from it. Each of those strings
+     * points back at the word, so a misspelling only has to be cut down the same way to land on it.
+     *
+     * Runtime: O(n^2) index entries for a word of length n, as there are about n*n/2 ways to delete two chars.
+     * @param word the word we are adding.
+     */
+    @Override
+    public void add(String word){
+        if (ids.containsKey(word)){
+            return;
+        }
+        int id = words.size();
+        words.add(word);
+        ids.put(word, id);
+
+        for (String variant : deletesOf(word, MAX_DELETES)){
+            // list[0] is how many ids are stored after it.
+            int[] list = deletes.get(variant);
+            if (list == null){
+                list = new int[2];
+                deletes.put(variant, list);
+            } else if (list[0] + 1 == list.length){
+                int[] bigger = new int[list.length * 2];
+                System.arraycopy(list, 0, bigger, 0, list.length);
+                list = bigger;
+                deletes.put(variant, list);
+            }
+            list[0]++;
+            list[list[0]] = id;
+        }
+    }
+
+    /***
+     * Checks the word against the set of dictionary words.
+     *
+     * Runtime: O(n) where n is length of word, to hash it.
+     * @param word The word we are looking for.
+     * @return true if the word is in the dictionary.
+     */
+    @Override
+    public boolean checkWord(String word){ return ids.containsKey(word); }
+
+    /***
+     * Suggests the closest word within MAX_DELETES edits. If nothing is that close the word is given back unchanged,
+     * as the index cannot see any further.
+     *
+     * @param word String of the misspelled word.
+     * @return String of the suggested correct spelling.
+     */
+    @Override
+    public String suggest(String word){
+        String nearest = suggest(word, MAX_DELETES);
+        SpellMetrics.get().tier(nearest != null ? SpellMetrics.Tier.NEAR : SpellMetrics.Tier.UNCHANGED);
+        return nearest != null ? nearest : word;
+    }
+
+    /***
+     * Bounded suggest. Makes every delete of the word and looks each one up. Every word that shares a delete with it
+     * is a candidate, and the real edit distance of each candidate is checked since sharing a delete does not always
+     * mean they are that close. Bounds bigger than MAX_DELETES are treated as MAX_DELETES.
+     *
+     * Runtime: O(n^2) lookups for a word of length n, plus O(n^2) for each candidate's distance.
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        int bound = Math.min(maxDistance, MAX_DELETES);
+        if (bound < 0){
+            return null;
+        }
+        String nearest = null;
+        int nearestDistance = bound + 1;
+        Set<Integer> seen = new HashSet<>();
+
+        for (String variant : deletesOf(word, bound)){
+            int[] list = deletes.get(variant);
+            if (list == null){
+                continue;
+            }
+            for (int i = 1; i <= list[0]; i++){
+                if (!seen.add(list[i])){
+                    continue;
+                }
+                String candidate = words.get(list[i]);
+                int distance = EditDistance.between(word, candidate);
+                if (distance > bound){
+                    continue;
+                }
+                if (distance < nearestDistance
+                        || (distance == nearestDistance && candidate.compareTo(nearest) < 0)){
+                    nearest = candidate;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        SpellMetrics.get().probed(seen.size());
+        return nearest;
+    }
+
+    /***
+     * Same lookups as the bounded suggest, offering every candidate to nearest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound. Bounds bigger than MAX_DELETES are treated as
+     *                MAX_DELETES.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        nearest.bound = Math.min(nearest.bound, MAX_DELETES);
+        if (nearest.bound < 0){
+            return;
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (String variant : deletesOf(word, nearest.bound)){
+            if (nearest.bound() < 0){
+                break;
+            }
+            int[] list = deletes.get(variant);
+            if (list == null){
+                continue;
+            }
+            for (int i = 1; i <= list[0]; i++){
+                if (seen.add(list[i])){
+                    String candidate = words.get(list[i]);
+                    nearest.offer(candidate, EditDistance.between(word, candidate));
+                }
+            }
+        }
+        SpellMetrics.get().probed(seen.size());
+    }
+
+    /***
+     * Estimates the heap used by the word list and the delete index. Every distinct delete is its own String key.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){
+        long bytes = MemoryEstimate.object(3 * MemoryEstimate.REFERENCE)
+                + MemoryEstimate.array(words.size(), MemoryEstimate.REFERENCE);
+        for (String word : words){
+            // The word itself, plus its entry and boxed id in the ids map.
+            bytes += MemoryEstimate.string(word.length()) + MemoryEstimate.hashEntry() + MemoryEstimate.object(4);
+        }
+        for (Map.Entry<String, int[]> entry : deletes.entrySet()){
+            bytes += MemoryEstimate.hashEntry() + MemoryEstimate.string(entry.getKey().length())
+                    + MemoryEstimate.array(entry.getValue().length, 4);
+        }
+        return bytes;
+    }
+
+    /***
+     * Makes every distinct string we can get by deleting up to max chars from word, including word itself.
+     *
+     * Runtime: O(n^max) strings for a word of length n.
+     * @param word the word to cut down.
+     * @param max the most chars to delete.
+     * @return the set of deletes.
+     */
+    private static Set<String> deletesOf(String word, int max){
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> level = new ArrayList<>();
+        level.add(word);
+        for (int d = 0; d < max; d++){
+            List<String> next = new ArrayList<>();
+            for (String s : level){
+                for (int i = 0; i < s.length(); i++){
+                    String variant = s.substring(0, i) + s.substring(i + 1);
+                    if (result.add(variant)){
+                        next.add(variant);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+}
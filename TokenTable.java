@@ -0,0 +1,155 @@
+/*
+ * Counts the distinct words of an input file without making a String for each line.
+ */
+
+import java.util.Arrays;
+
+class TokenTable {
+    /** Each distinct word gets an id, in the order it was first seen. The chars of every word are kept back to back in
+     * one char array, like the Trie's edge labels, and an id is just where its chars start, how many there are and
+     * how often it came up. Looking a word up hashes the chars of the CharSequence in place, so the tokenizer can be
+     * handed straight in and a word that has been seen before costs no allocation at all.
+     *
+     * The slots are open addressed with linear probing and hold id + 1, 0 for empty. They are doubled once half are
+     * used, and each id's hash is kept so doubling never has to look at the chars again. Memory grows with the number
+     * of distinct words, not the length of the file.
+     **/
+
+    private char[] chars;  // the chars of every word, back to back.
+    private int used;      // how much of chars is filled.
+    private int[] start;   // by id: where the word starts in chars.
+    private int[] length;  // by id: how many chars it has.
+    private int[] hashes;  // by id: the hash of its chars.
+    private long[] counts; // by id: how many times it was added.
+    private int size;      // how many ids there are.
+    private int[] slots;   // id + 1, or 0 for an empty slot. Always a power of two long.
+
+    TokenTable(){
+        chars = new char[1 << 12];
+        start = new int[1 << 8];
+        length = new int[1 << 8];
+        hashes = new int[1 << 8];
+        counts = new long[1 << 8];
+        slots = new int[1 << 9];
+    }
+
+    /***
+     * Counts one more of word, giving it an id if it is new.
+     *
+     * Runtime: O(n) where n is the length of word, plus copying it in the first time.
+     * @param word the word, only copied if it has not been seen before.
+     * @return the word's id.
+     */
+    int add(CharSequence word){
+        int hash = hash(word);
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0){
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && sameChars(id, word)){
+                counts[id]++;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == start.length){
+            start = Arrays.copyOf(start, id * 2);
+            length = Arrays.copyOf(length, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+            counts = Arrays.copyOf(counts, id * 2);
+        }
+        if (used + word.length() > chars.length){
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, used + word.length()));
+        }
+        for (int i = 0; i < word.length(); i++){
+            chars[used + i] = word.charAt(i);
+        }
+        start[id] = used;
+        length[id] = word.length();
+        hashes[id] = hash;
+        counts[id] = 1;
+        used += word.length();
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length){
+            grow();
+        }
+        return id;
+    }
+
+    /***
+     * @param word the word to look up.
+     * @return the word's id, or -1 if it was never added.
+     */
+    int find(CharSequence word){
+        int hash = hash(word);
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask){
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && sameChars(id, word)){
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /***
+     * @return how many distinct words there are. The ids are 0 up to this.
+     */
+    int size(){ return size; }
+
+    /***
+     * @param id a word's id.
+     * @return the word.
+     */
+    String word(int id){ return new String(chars, start[id], length[id]); }
+
+    /***
+     * @param id a word's id.
+     * @return how many times it was added.
+     */
+    long count(int id){ return counts[id]; }
+
+    /***
+     * Doubles the slots and puts every id back in, using the hashes kept for them.
+     */
+    private void grow(){
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++){
+            int slot = spread(hashes[id]) & mask;
+            while (bigger[slot] != 0){
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id + 1;
+        }
+        slots = bigger;
+    }
+
+    private boolean sameChars(int id, CharSequence word){
+        if (length[id] != word.length()){
+            return false;
+        }
+        int from = start[id];
+        for (int i = 0; i < length[id]; i++){
+            if (chars[from + i] != word.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence word){
+        int hash = 0;
+        for (int i = 0; i < word.length(); i++){
+            hash = 31 * hash + word.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash){
+        //Only the low bits pick the slot, so fold the high bits into them.
+        return hash ^ (hash >>> 16);
+    }
+}
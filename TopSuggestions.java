@@ -0,0 +1,96 @@
+/*
+ * The k best words found by a bounded suggest walk.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+class TopSuggestions extends Nearest {
+    /** Words are ranked by edit distance, then by how common they are, then alphabetically. The best k so far sit in
+     * a heap with the worst of them on top, so a new word only has to beat that one to get in, and the heap never
+     * holds more than k words however many the walk reaches.
+     *
+     * While the heap is not full every word within the starting bound is taken. Once it is full the bound drops to
+     * the distance of the worst word kept, so the walk stops going down paths that could only give farther words.
+     * It is not lowered below that, since a word at the same distance can still get in by being more common.
+     **/
+
+    // Best first. A word that sorts before another is a better suggestion.
+    private static final Comparator<Candidate> RANK = Comparator.comparingInt((Candidate c) -> c.distance)
+            .thenComparing(c -> c.count, Comparator.reverseOrder())
+            .thenComparing(c -> c.word);
+
+    private final int k;
+    private final WordFrequencies frequencies;
+    private final PriorityQueue<Candidate> heap;
+
+    /***
+     * @param k how many words to keep.
+     * @param maxDistance the most edits a suggestion can be away from the misspelling.
+     * @param frequencies how common each word is, WordFrequencies.NONE to rank on distance alone.
+     */
+    TopSuggestions(int k, int maxDistance, WordFrequencies frequencies){
+        super(maxDistance);
+        if (k < 1){
+            throw new IllegalArgumentException("need to keep at least 1 suggestion, got " + k);
+        }
+        this.k = k;
+        this.frequencies = frequencies;
+        this.heap = new PriorityQueue<>(k + 1, RANK.reversed());
+    }
+
+    private static class Candidate {
+        final String word;
+        final int distance;
+        final long count;
+
+        Candidate(String word, int distance, long count){
+            this.word = word;
+            this.distance = distance;
+            this.count = count;
+        }
+    }
+
+    /***
+     * Keeps the word if it is within the bound and better than the worst word kept so far.
+     *
+     * Runtime: O(log k).
+     * @param candidate the chars of the word, only copied into a String if it is within the bound.
+     * @param distance its edit distance from the misspelling.
+     */
+    @Override
+    void offer(CharSequence candidate, int distance){
+        if (distance > bound){
+            return;
+        }
+        String text = candidate.toString();
+        Candidate next = new Candidate(text, distance, frequencies.count(text));
+        if (heap.size() == k && RANK.compare(next, heap.peek()) >= 0){
+            return;
+        }
+        heap.add(next);
+        if (heap.size() > k){
+            heap.poll();
+        }
+        if (heap.size() == k){
+            bound = heap.peek().distance;
+        }
+    }
+
+    boolean isEmpty(){ return heap.isEmpty(); }
+
+    /***
+     * @return the words kept, best first.
+     */
+    List<String> toList(){
+        List<Candidate> sorted = new ArrayList<>(heap);
+        sorted.sort(RANK);
+        List<String> words = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted){
+            words.add(candidate.word);
+        }
+        return words;
+    }
+}
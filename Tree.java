@@ -2,8 +2,12 @@
  * Single Char Per Node Trie Implementation.
  */
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class Tree implements Roots {
 
@@ -12,76 +16,188 @@ public class Tree implements Roots {
     Tree(){ root = new TreeNode(' '); }
 
     public static class TreeNode {
+        private static final TreeNode[] NO_CHILDREN = new TreeNode[0];
+
         char data;
         boolean isWord;
         int count;
-        LinkedList<TreeNode> childList;
+        int present; // bit i is set if there is a child for Alphabet.charAt(i).
+        TreeNode[] children; // only the children that are there, in Alphabet order.
+        String[] completions; // best words below this node, null until rankCompletions.
 
         TreeNode(char c) {
-            childList = new LinkedList<TreeNode>();
+            children = NO_CHILDREN;
+            present = 0;
             isWord = false;
             data = c;
             count = 0;
         }
 
         TreeNode getChild(char c) {
-            //Get the child with the value c of a node we are looking at.
-            if (childList != null)
-                for (TreeNode eachChild : childList)
-                    if (eachChild.data == c)
-                        return eachChild;
-            return null;
+            //Get the child with the value c of a node we are looking at. Its spot in the array is the number of
+            // children before it in the alphabet, which is the number of bits set below its own bit.
+            int index = Alphabet.indexOf(c);
+            if (index < 0 || (present & (1 << index)) == 0)
+                return null;
+            return children[Integer.bitCount(present & ((1 << index) - 1))];
+        }
+
+        void addChild(TreeNode child) {
+            //Make room for the new child at its spot, the array is always exactly as long as it needs to be.
+            int index = Alphabet.indexOf(child.data);
+            if (index < 0)
+                throw new IllegalArgumentException("Cannot store '" + child.data + "' in a Tree");
+            int rank = Integer.bitCount(present & ((1 << index) - 1));
+            TreeNode[] bigger = new TreeNode[children.length + 1];
+            System.arraycopy(children, 0, bigger, 0, rank);
+            System.arraycopy(children, rank, bigger, rank + 1, children.length - rank);
+            bigger[rank] = child;
+            children = bigger;
+            present |= 1 << index;
+        }
+
+        void removeChild(TreeNode child) {
+            int index = Alphabet.indexOf(child.data);
+            int rank = Integer.bitCount(present & ((1 << index) - 1));
+            TreeNode[] smaller = children.length == 1 ? NO_CHILDREN : new TreeNode[children.length - 1];
+            System.arraycopy(children, 0, smaller, 0, rank);
+            System.arraycopy(children, rank + 1, smaller, rank, children.length - rank - 1);
+            children = smaller;
+            present &= ~(1 << index);
         }
     }
 
     /***
-     * Adds a new word to the Tree. Iterates over string checking nodes until it is missing some, then it adds what is
-     * needed and marks as a word.
+     * Adds a new word to the Tree. Walks down the nodes the word already has, and if it turns out to be there already
+     * it stops. Otherwise it adds what is missing and marks it as a word. This is one walk, where it used to call
+     * checkWord first and then walk the same nodes again.
      *
-     * Runtime: Worst case O(n) where n is the length of the word. It is really 0(n*27) as each char it has to look
-     * through each nodes children to find the right spot to put the new node.
+     * Runtime: Worst case O(n) where n is the length of the word. Each new node costs a copy of its parent's child
+     * array, which is never more than 27 long.
      * @param word word we are adding.
+     * @throws IllegalArgumentException if the word has a char that is not in the Alphabet. Nothing is added then.
      */
     @Override
     public void add(String word) {
-        if (checkWord(word)){
+        TreeNode[] path = new TreeNode[word.length()];
+        TreeNode current = root;
+        int depth = 0;
+        while (depth < word.length()) {
+            TreeNode child = current.getChild(word.charAt(depth));
+            if (child == null) {
+                break;
+            }
+            current = child;
+            path[depth++] = child;
+        }
+        if (depth == word.length() && current.isWord){
             //If the word is already there...
             return;
         }
-        TreeNode current = root;
-        for (char ch : word.toCharArray()) {
 
-            TreeNode child = current.getChild(ch);
-            if (child != null) {
-                current = child;
-            } else {
-                // If child not present, adding it io the list
-                current.childList.add(new TreeNode(ch));
-                current = current.getChild(ch);
+        //The chars already walked are in the Alphabet, the rest are checked before anything is changed.
+        for (int i = depth; i < word.length(); i++) {
+            if (Alphabet.indexOf(word.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Cannot store '" + word.charAt(i) + "' in " + word);
             }
+        }
+        //Every node the new word passes through counts it once.
+        for (int i = 0; i < depth; i++) {
+            path[i].count++;
+        }
+        for (int i = depth; i < word.length(); i++) {
+            // If child not present, adding it io the list
+            TreeNode child = new TreeNode(word.charAt(i));
+            current.addChild(child);
+            current = child;
             current.count++;
         }
         //Mark as word.
         current.isWord = true;
     }
 
+    /***
+     * Adds a whole list of words in parallel. The words are split by their first char, and since words with different
+     * first chars never share a node below the root, each group is built into its own Tree on a ForkJoinPool thread.
+     * The finished subtrees are then hung off this tree's root.
+     *
+     * Runtime: O(total length of the words / number of cores), as long as the first chars are spread out.
+     * @param words the words we are adding.
+     */
+    @Override
+    public void addAll(List<String> words) {
+        if (Runtime.getRuntime().availableProcessors() < 2) {
+            //Nothing to gain from splitting the work on one core.
+            Roots.super.addAll(words);
+            return;
+        }
+        List<List<String>> groups = Alphabet.byFirstChar(words);
+        Tree[] parts = new Tree[Alphabet.SIZE];
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int index = 0; index < Alphabet.SIZE; index++) {
+            List<String> group = groups.get(index);
+            if (group.isEmpty()) {
+                continue;
+            }
+            Tree part = new Tree();
+            TreeNode existing = root.getChild(Alphabet.charAt(index));
+            if (existing != null) {
+                //Keep building on the words this tree already has.
+                root.removeChild(existing);
+                part.root.addChild(existing);
+            }
+            parts[index] = part;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (String word : group) {
+                        part.add(word);
+                    }
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        for (Tree part : parts) {
+            if (part != null) {
+                for (TreeNode child : part.root.children) {
+                    root.addChild(child);
+                }
+            }
+        }
+        if (groups.get(Alphabet.SIZE).size() > 0) {
+            root.isWord = true;
+        }
+    }
+
     /***
      * Check word checks if a word is in the tree and marked as a properly spelled word.
      *
-     * Runtime: Worst case 0(n) where n is length of word, like add, it has to look through the children at every loop,
-     * so O(n*27). Average case will also be O(n).
+     * Runtime: 0(n) where n is length of word. Finding a child is a bit count, so there is no list of children to
+     * look through at each char.
      * @param word The word we are looking for.
      * @return true if the word exists in tree, false if it dosen't.
      */
     @Override
     public boolean checkWord(String word) {
+        return checkWord(word, 0, word.length());
+    }
+
+    /***
+     * Same walk as checkWord(String), reading the chars straight out of a range of the CharSequence.
+     * @param word holds the word we are looking for.
+     * @param from index of the first char of the word.
+     * @param to index just past the last char of the word.
+     * @return true if the word exists, false if it dosen't.
+     */
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to) {
         TreeNode current = root;
-        for (char ch : word.toCharArray()){
+        for (int i = from; i < to; i++){
             //Iterate over chars of word. Stepping from node to node.
-            if (current.getChild(ch) == null) {
+            current = current.getChild(word.charAt(i));
+            if (current == null) {
                 return false;
-            } else {
-                current = current.getChild(ch);
             }
         }
         //We have gotten as far as we can. Return the last nodes bool if it is a word or not.
@@ -99,11 +215,10 @@ public class Tree implements Roots {
      * If it cannot find a ancestor node that is a word, it will look at the immediate children of the node it got to.
      * If one of them is proper word, it will return that.
      *
-     * If it dosen't find anything after this it will call the recursive modifier which will tweak the string until it
-     * finds a proper word.
+     * If it dosen't find anything after this it will do the bounded edit distance walk and return the closest word.
      *
      * Runtime: This is more complicated. Almost always it will be worst case O(n) or 0(n + 27), where n is length of
-     * word but if it gets to the recursive bit because it cannot find what it is looking for, it will be O(n^2).
+     * word but if it gets to the bounded walk it is O(k*n) where k is the number of nodes the walk does not prune.
      *
      * @param word String of the misspelled word.
      * @return String of the suggested correct spelling.
@@ -128,137 +243,291 @@ public class Tree implements Roots {
         //loop through word, build string while children != null and isEnd == true?
 
         for (char ch : wordCharArr) {
-            if (current.childList != null) {
-                for (TreeNode eachChild : current.childList) {
-                    if (eachChild.data == ch) {
-                        temp.append(eachChild.data);
-                        if (eachChild.isWord) {
-                            suggestion.append(temp.toString());
-                            temp.setLength(0);
-                        }
-                        current = eachChild;
-                    }
+            //A char with no child is skipped over, and the next char is looked for under the same node.
+            TreeNode eachChild = current.getChild(ch);
+            if (eachChild != null) {
+                temp.append(eachChild.data);
+                if (eachChild.isWord) {
+                    suggestion.append(temp.toString());
+                    temp.setLength(0);
                 }
-            } else {
-                break;
+                current = eachChild;
             }
         }
 
         if (suggestion.length() != 0){
             //If we found a parent, that is a word, then we can return, else we need to get drastic.
+            SpellMetrics.get().tier(SpellMetrics.Tier.PREFIX_WORD);
             return suggestion.toString();
 
         } else {
 
             //We have already moved a pointer to the farthest node down the tree we can in the last step. That is "current"
             // Go to the farthest node down the tree we can, then look if any of the child nodes are words, if so return it.
-            if (current.childList != null){
-                for (TreeNode eachChild : current.childList) {
-                    if (eachChild.isWord){
-                        temp.append(eachChild.data);
-                        suggestion.append(temp);
-                        return suggestion.toString();
-                    }
+            for (TreeNode eachChild : current.children) {
+                if (eachChild.isWord){
+                    temp.append(eachChild.data);
+                    suggestion.append(temp);
+                    SpellMetrics.get().tier(SpellMetrics.Tier.CHILD_WORD);
+                    return suggestion.toString();
                 }
             }
 
-            //Now that we have exhausted looking for nearby nodes, we need to start changing letters.
-            return recursiveModCheck(word);
+            //Now that we have exhausted looking for nearby nodes, do the bounded walk.
+            return suggestByDistance(word);
         }
     }
 
     /***
-     * This is a recursive function that is called from suggest when we cannot find a complete word as a parent,
-     * ancestor or child of the last node we can get to. If we cannot find one that way, we need to start modifying the
-     * string of the word we are looking for to try and counter the spelling mistakes.
-     *
-     * First we take the string we are looking for and cant find a suggestion for, then we start iterating letters.
-     * Making sure we test every possible combination, we go from the end of the word to the front, iterating each
-     * letter (as well as the trailing letters) from 'a' to 'z'. For each iteration of a letter, we do every possible
-     * combination of the letters that follow it for that word length.
-     *
-     * tesst -> tesss -> ... -> tessa -> ... -> tessz -> ... -> tesrz -> tesry -> tesra -> ... -> tesaa -> ... -> teszz
+     * Gives every node its best k words, bottom up, see Completions.
      *
-     * If we find a word when messing with these letter combinations, it will return the string that made the combo.
-     * Theoretically it will return the closest possible correct spelling to the misspelled string that we gave it.
-     *
-     * Runtime: 0(2n^2) so O(n^2)
-     *
-     * @param word String of the word we are looking for. When it calls itself it will call minus the last letter.
-     * @return A string of a proper word we found.
+     * Runtime: O(n*k log(k)) where n is the number of nodes.
+     * @param frequencies how common each word is.
+     * @param k how many words each node keeps.
      */
-    private String recursiveModCheck(String word){
+    @Override
+    public void rankCompletions(WordFrequencies frequencies, int k){
+        rank(root, new StringBuilder(), new Completions(k, frequencies));
+    }
 
-        char [] wordCharArr = word.toCharArray();
+    /***
+     * Recursive part of rankCompletions.
+     * @param node node to rank.
+     * @param path the chars on the path down to node, including its own.
+     * @param completions merges the lists.
+     * @return node's list.
+     */
+    private String[] rank(TreeNode node, StringBuilder path, Completions completions){
+        int depth = path.length();
+        List<String> candidates = new ArrayList<>();
+        if (node.isWord){
+            candidates.add(path.toString());
+        }
+        for (TreeNode child : node.children){
+            path.append(child.data);
+            Collections.addAll(candidates, rank(child, path, completions));
+            path.setLength(depth);
+        }
+        //A node on a chain has the same words as the one below it.
+        node.completions = !node.isWord && node.children.length == 1 ? node.children[0].completions
+                : completions.best(candidates);
+        return node.completions;
+    }
 
-        for (int index = wordCharArr.length-1; index >= 0; index--){
+    /***
+     * Walks down the prefix and gives back the list of the node it ends on.
+     *
+     * Runtime: O(n + k) where n is length of prefix.
+     * @param prefix the chars typed so far.
+     * @param k the most completions to give back.
+     * @return the completions, best first.
+     */
+    @Override
+    public List<String> complete(String prefix, int k){
+        TreeNode current = root;
+        for (int i = 0; i < prefix.length(); i++){
+            current = current.getChild(prefix.charAt(i));
+            if (current == null){
+                return Collections.emptyList();
+            }
+        }
+        return current.completions != null ? Completions.first(current.completions, k) : Collections.emptyList();
+    }
 
-            while (wordCharArr[index] > 'a'){
-                //decrement up to 'a'
-                if (checkWord(charArrToStr(wordCharArr))){
-                    return charArrToStr(wordCharArr);
-                }
-                wordCharArr[index]--;
+    /***
+     * Starts a cursor at the root. Each char typed is one step down the tree.
+     */
+    @Override
+    public Cursor cursor(){ return new TreeCursor(); }
 
+    /***
+     * Keeps one entry per char typed. Alongside the node the chars lead to (null once they leave the tree), it also
+     * follows the walk suggest() does, which skips over chars that have no child, and remembers how much of that
+     * walk was a word. So suggest() can answer from the top of the stack when the first two tiers find something.
+     * For the tier within two edits the Frontier carries on from the rows it already has, and only the widest tier
+     * goes back to the whole word.
+     */
+    private class TreeCursor implements Cursor, Frontier.Moves<TreeNode> {
+        private final StringBuilder typed = new StringBuilder();
+        private final Frontier<TreeNode> frontier;
+        private final StringBuilder followed = new StringBuilder(); // the chars the suggest walk followed.
+        private TreeNode[] exact = new TreeNode[16];
+        private TreeNode[] skip = new TreeNode[16];
+        private int[] followedLength = new int[16];
+        private int[] wordLength = new int[16]; // how much of followed ends at the last word, 0 if none.
+
+        TreeCursor(){
+            exact[0] = root;
+            skip[0] = root;
+            frontier = new Frontier<>(typed, this, new Frontier.Step<>(root, 0, '\0', null));
+        }
 
-                //Iterate subsequent chars. Chars following the current one we are looking at.
-                for (int i = index+1; i <= wordCharArr.length-1; i++){
-                    while (wordCharArr[i] > 'a'){
-                        //decrement up to 'a'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]--;
-                    }
+        /***
+         * Runtime: O(1), finding a child is a bit count.
+         */
+        @Override
+        public void advance(char ch){
+            int depth = typed.length();
+            if (depth + 1 == exact.length){
+                int bigger = exact.length * 2;
+                exact = Arrays.copyOf(exact, bigger);
+                skip = Arrays.copyOf(skip, bigger);
+                followedLength = Arrays.copyOf(followedLength, bigger);
+                wordLength = Arrays.copyOf(wordLength, bigger);
+            }
+            typed.append(ch);
+            exact[depth + 1] = exact[depth] != null ? exact[depth].getChild(ch) : null;
+
+            TreeNode child = skip[depth].getChild(ch);
+            if (child != null){
+                followed.setLength(followedLength[depth]);
+                followed.append(child.data);
+                skip[depth + 1] = child;
+                followedLength[depth + 1] = followedLength[depth] + 1;
+                wordLength[depth + 1] = child.isWord ? followedLength[depth + 1] : wordLength[depth];
+            } else {
+                skip[depth + 1] = skip[depth];
+                followedLength[depth + 1] = followedLength[depth];
+                wordLength[depth + 1] = wordLength[depth];
+            }
+        }
 
-                    while (wordCharArr[i] < 'z'){
-                        //increment down to 'z'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]++;
-                    }
-                }
+        @Override
+        public void retreat(){
+            if (typed.length() > 0){
+                typed.setLength(typed.length() - 1);
+                frontier.cut(typed.length());
             }
+        }
 
-            while (wordCharArr[index] < 'z'){
-                //increment down to 'z'
-                if (checkWord(charArrToStr(wordCharArr))){
-                    return charArrToStr(wordCharArr);
-                }
-                wordCharArr[index]++;
-
-                //Iterate subsequent chars. Chars following the current one we are looking at.
-                for (int i = index+1; i <= wordCharArr.length-1; i++){
-                    while (wordCharArr[i] > 'a'){
-                        //decrement up to 'a'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]--;
-                    }
+        @Override
+        public int length(){ return typed.length(); }
 
-                    while (wordCharArr[i] < 'z'){
-                        //increment down to 'z'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]++;
-                    }
+        @Override
+        public String word(){ return typed.toString(); }
+
+        @Override
+        public char charAt(int index){ return typed.charAt(index); }
+
+        @Override
+        public boolean isWord(){
+            TreeNode node = exact[typed.length()];
+            return node != null && node.isWord;
+        }
+
+        /***
+         * Runtime: O(n) to copy out the answer when a word on the path or a child of where it stopped is the answer,
+         * otherwise the Frontier rows for the chars typed since the last call, and the bounded walk on the whole word
+         * if nothing is within two edits.
+         */
+        @Override
+        public String suggest(){
+            int depth = typed.length();
+            if (wordLength[depth] != 0){
+                SpellMetrics.get().tier(SpellMetrics.Tier.PREFIX_WORD);
+                return followed.substring(0, wordLength[depth]);
+            }
+            for (TreeNode eachChild : skip[depth].children){
+                if (eachChild.isWord){
+                    SpellMetrics.get().tier(SpellMetrics.Tier.CHILD_WORD);
+                    return followed.substring(0, followedLength[depth]) + eachChild.data;
                 }
             }
+            String near = frontier.nearest(Math.min(typed.length(), EditDistance.TYPO_DISTANCE));
+            return suggestByDistance(typed.toString(), near);
+        }
+
+        @Override
+        public void children(Frontier.Step<TreeNode> step, List<Frontier.Step<TreeNode>> out){
+            for (TreeNode eachChild : step.node.children){
+                out.add(new Frontier.Step<>(eachChild, 0, eachChild.data, step));
+            }
         }
 
-        // If iterating all possible chars doesn't generate a word, remove the last char so it is shorter and try again.
-        return recursiveModCheck(charArrToStr(Arrays.copyOfRange(wordCharArr, 0, wordCharArr.length-1)));
+        @Override
+        public boolean isWord(Frontier.Step<TreeNode> step){ return step.node.isWord; }
+    }
+
+    /***
+     * Estimates the heap used by the tree by walking every node. Every node with children pays for an array with
+     * exactly one slot per child, the leaves all share one empty array.
+     *
+     * Runtime: O(n) where n is the number of nodes.
+     * @return estimated bytes.
+     */
+    @Override
+    public long sizeInBytes(){ return MemoryEstimate.object(MemoryEstimate.REFERENCE) + sizeInBytes(root); }
+
+    private long sizeInBytes(TreeNode node){
+        long bytes = MemoryEstimate.object(2 + 1 + 4 + 4 + 2 * MemoryEstimate.REFERENCE);
+        if (node.children.length > 0){
+            bytes += MemoryEstimate.array(node.children.length, MemoryEstimate.REFERENCE);
+        }
+        if (node.completions != null
+                && !(node.children.length == 1 && node.completions == node.children[0].completions)){
+            //A list shared down a chain is only counted once. The word Strings in the lists are not counted.
+            bytes += MemoryEstimate.array(node.completions.length, MemoryEstimate.REFERENCE);
+        }
+        for (TreeNode eachChild : node.children){
+            bytes += sizeInBytes(eachChild);
+        }
+        return bytes;
     }
 
     /***
-     * Converts a Char array to a String object.
+     * Bounded suggest. Walks the tree once, keeping one edit distance row per char of the path we are on. As soon as
+     * the smallest value in a row is bigger than the bound, none of the words below can be close enough so the whole
+     * subtree is skipped. Once a word is found the bound shrinks to its distance, see Nearest.
      *
-     * Runtime: whatever the runtime of String constructor is. Likely O(n) where n is length of char.
-     * @param arr char array
-     * @return String
+     * Runtime: O(k*m) where k is the number of nodes within reach of the bound and m is the length of the word. It
+     * never gets worse than visiting every node once.
+     *
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
+     */
+    @Override
+    public String suggest(String word, int maxDistance){
+        Nearest nearest = new Nearest(maxDistance);
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+        return nearest.word;
+    }
+
+    /***
+     * Runs the same walk, offering the words to nearest. That is a TopSuggestions for the k best words, or a Nearest
+     * with a deadline for the budgeted suggest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        EditDistance rows = new EditDistance(word);
+        suggest(root, 0, rows, new StringBuilder(), nearest);
+        SpellMetrics.get().probed(rows.pushes());
+    }
+
+    /***
+     * Recursive part of the bounded suggest. Pushes a row for each child, then recurs into the ones that survive.
+     * @param node node whose children we are looking at.
+     * @param depth depth of node, the root is 0.
+     * @param rows the rows for the path down to node.
+     * @param path the chars on the path down to node.
+     * @param nearest the best word so far and the current bound.
      */
-    private String charArrToStr(char[] arr){ return new String(arr); }
+    private void suggest(TreeNode node, int depth, EditDistance rows, StringBuilder path, Nearest nearest){
+        char prevCh = depth > 0 ? path.charAt(depth - 1) : 0;
+        for (TreeNode eachChild : node.children) {
+            if (rows.push(depth + 1, eachChild.data, prevCh) > nearest.bound()){
+                continue;
+            }
+            path.append(eachChild.data);
+            if (eachChild.isWord){
+                nearest.offer(path, rows.distance(depth + 1));
+            }
+            suggest(eachChild, depth + 1, rows, path, nearest);
+            path.setLength(depth);
+        }
+    }
 }
\ No newline at end of file
@@ -2,141 +2,221 @@
  * Single Char Per Node Trie Implementation.
  */
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class Trie implements Roots{
 
     private TrieNode root;
+    private char[] labels; // every edge label, back to back. A node's label is labels[start] up to start + length.
+    private int used;      // how much of labels is filled.
 
     Trie(){
-        root = new TrieNode();
+        root = new TrieNode(0, 0);
+        labels = new char[1024];
+        used = 0;
     }
 
     private static class TrieNode {
-        String prefix; // prefix stored in the node
+        int start;           // where this node's edge label starts in labels.
+        int length;          // how many chars the edge label has.
         TrieNode[] children; // array of children (27 children, lowercase and [26] is hardcoded ')
         boolean isWord;
+        String[] completions; // best words below this node, null until rankCompletions.
 
-        TrieNode() {
+        TrieNode(int start, int length) {
+            this.start = start;
+            this.length = length;
             isWord = false;
-            prefix = "";
-            children = new TrieNode[27]; // initialize the array of children
-        }
-
-        TrieNode(String pref) {
-            isWord = true;
-            prefix = pref;
             children = new TrieNode[27]; // initialize the array of children
         }
     }
 
     /***
-     * Starts recursive add function.
+     * Add word to the Trie. Walks down the edges the word matches. If it runs out part way along an edge, that edge is
+     * split in two. The first half just points at the first chars of the old label, so splitting never copies
+     * anything. Only the part of the word that is not in the trie yet gets copied into labels, once.
+     *
+     * Runtime: O(n) where n is the length of the word.
      * @param word the word we are adding.
      */
     @Override
     public void add(String word){
-        root = add(word,root);
+        TrieNode node = root;
+        int matched = 0;
+        while (matched < word.length()){
+            int index = getIndexOfCharacter(word.charAt(matched));
+            TrieNode child = node.children[index];
+            if (child == null){
+                //Nothing starts with this char here yet, the rest of the word is one new edge.
+                TrieNode leaf = new TrieNode(append(word, matched), word.length() - matched);
+                leaf.isWord = true;
+                node.children[index] = leaf;
+                return;
+            }
+
+            int common = 0;
+            int max = Math.min(child.length, word.length() - matched);
+            while (common < max && labels[child.start + common] == word.charAt(matched + common)){
+                common++;
+            }
+            if (common < child.length){
+                //The word leaves the edge part way along, so split it where they stop agreeing.
+                TrieNode split = new TrieNode(child.start, common);
+                child.start += common;
+                child.length -= common;
+                split.children[getIndexOfCharacter(labels[child.start])] = child;
+                node.children[index] = split;
+                child = split;
+            }
+            node = child;
+            matched += common;
+        }
+        node.isWord = true;
     }
 
     /***
-     * Add word to the Trie. Recursively looks through trie to find where to put a new node.
-     * @param s string we want to add
-     * @param node current node we are going down from. Starts as root then gets set to children as it recurs.
+     * Copies the end of a word into labels.
+     * @param word the word.
+     * @param from where the part to copy starts.
+     * @return where it was put in labels.
      */
-    private TrieNode add(String s, TrieNode node) {
-
-        TrieNode value;
-
-        if (s.length() == 0){
-            value = node;
-            //base case when tree is empty
-        } else if (node.children[getIndexOfCharacter(s.charAt(0))] == null) {
-            //Called when adding "a" as first element
-            TrieNode newWord = new TrieNode(node.prefix + s);
-            //newWord.prefix = node.prefix + s;
-            //newWord.isWord = true;
-            node.children[getIndexOfCharacter(s.charAt(0))] = newWord;
-            value = node;
-        } else {
-            // we should be  in the node that has prefix starting from s.charAt(0)
-            String temp = node.prefix+s;
-            int index = getIndexOfCharacter(s.charAt(0));
-            TrieNode baseNode = node.children[index];
-
-            String commonPrefix = findCommonPrefix(baseNode.prefix, node.prefix+s);
-
-            if (commonPrefix.equals(baseNode.prefix)) {
-                String suffix = temp.substring(commonPrefix.length());
-                value = add(suffix, baseNode);
-                node.children[getIndexOfCharacter(s.charAt(0))] = value;
-                value = node;
-                return value;
-            }
-            // create new Node called newBaseNode
-            TrieNode newBaseNode = new TrieNode();
-
-            String oldSuffix = baseNode.prefix.substring(commonPrefix.length());
-
+    private int append(String word, int from){
+        int length = word.length() - from;
+        if (used + length > labels.length){
+            labels = Arrays.copyOf(labels, Math.max(labels.length * 2, used + length));
+        }
+        word.getChars(from, word.length(), labels, used);
+        used += length;
+        return used - length;
+    }
 
-            if(oldSuffix.length() > 0) {
-                newBaseNode.prefix = commonPrefix;
-                newBaseNode.children[getIndexOfCharacter(oldSuffix.charAt(0))] = baseNode;
+    /***
+     * Adds a whole list of words in parallel. Each of the 27 root slots is its own subtree, so the words are split by
+     * first char and each group is built into its own Trie on a ForkJoinPool thread. Each part has its own labels, so
+     * they are copied onto the end of this trie's labels and the starts in that subtree are moved along by where
+     * they landed. Groups whose slot already has words in this trie are added here afterwards instead.
+     * @param words the words we are adding.
+     */
+    @Override
+    public void addAll(List<String> words){
+        if (Runtime.getRuntime().availableProcessors() < 2){
+            //Nothing to gain from splitting the work on one core.
+            Roots.super.addAll(words);
+            trim();
+            return;
+        }
+        List<List<String>> groups = Alphabet.byFirstChar(words);
+        Trie[] parts = new Trie[Alphabet.SIZE];
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int index = 0; index < Alphabet.SIZE; index++){
+            List<String> group = groups.get(index);
+            if (group.isEmpty() || root.children[index] != null){
+                continue;
+            }
+            Trie part = new Trie();
+            parts[index] = part;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (String word : group){
+                        part.add(word);
+                    }
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        for (int index = 0; index < Alphabet.SIZE; index++){
+            if (parts[index] != null){
+                Trie part = parts[index];
+                int shift = used;
+                if (used + part.used > labels.length){
+                    labels = Arrays.copyOf(labels, Math.max(labels.length * 2, used + part.used));
+                }
+                System.arraycopy(part.labels, 0, labels, used, part.used);
+                used += part.used;
+                moveLabels(part.root.children[index], shift);
+                root.children[index] = part.root.children[index];
             } else {
-                newBaseNode = baseNode;
+                for (String word : groups.get(index)){
+                    add(word);
+                }
             }
+        }
+        for (String word : groups.get(Alphabet.SIZE)){
+            add(word);
+        }
+        trim();
+    }
 
-            // newSuffix = String s - commonPrefix
-            String newSuffix = temp.substring(commonPrefix.length(), temp.length());
-            // if newSuffix is "", then set newBaseNode as word
-            if (newSuffix.length()== 0){
-                newBaseNode.isWord = true;
+    /***
+     * Moves the label start of every node in a subtree along by shift.
+     */
+    private void moveLabels(TrieNode node, int shift){
+        node.start += shift;
+        for (TrieNode child : node.children){
+            if (child != null){
+                moveLabels(child, shift);
             }
-
-            //recursively add newSuffix to newBaseNode
-            value = add(newSuffix, newBaseNode);
-
-            // make newBaseNode as child of node
-            node.children[getIndexOfCharacter(s.charAt(0))] = value;
-            value = node;
         }
+    }
 
-        return value;
+    /***
+     * Gives back the unused end of labels once a batch of words is in.
+     */
+    private void trim(){
+        if (used < labels.length){
+            labels = Arrays.copyOf(labels, Math.max(used, 1));
+        }
     }
 
     /***
-     * Starts Recursive function checkWord()
+     * Checks if word is in the trie.
      * @param word string - word we want to check
      * @return false if word is not in tree, true if it is.
      */
     @Override
-    public boolean checkWord(String word) { return checkWord(root, word, word); }
+    public boolean checkWord(String word) { return checkWord(word, 0, word.length()); }
 
     /***
-     * Recursive function to look through tree and check if word exists in the tree. It will call itself and treat the
-     * next node as root and look from there.
-     * @param node The current node we are looking at. This will progress down the tree.
-     * @param string The string we are cutting up to find it.
-     * @param full The original word.
+     * Looks through the trie for the chars of word between from and to. At each step the child's edge label is
+     * compared with the next chars of the word, straight out of labels. It just moves an index along the word instead
+     * of cutting it into substrings.
+     *
+     * Runtime: O(n) where n is the length of the word, each char is compared once.
+     * @param word holds the word we are looking for.
+     * @param from index of the first char of the word.
+     * @param to index just past the last char of the word.
      * @return true if it is found. false if it reaches the end of the tree without finding it.
      */
-    private boolean checkWord(TrieNode node, String string, String full){
-        boolean result = false;
-        TrieNode base;
-        // make sure that length of s > 0 and node has child that starts with s.charAt(0)
-        if (string.length()>0 && node.children[getIndexOfCharacter(string.charAt(0))]!= null){
-            // use node that starts with s.charAt(0), call it base
-            base = node.children[getIndexOfCharacter(string.charAt(0))];
-            if (full.indexOf(base.prefix) == 0) {
-                if (base.prefix.equals(full) && base.isWord) {
-                    result = true;
-                } else {
-                    string = full.substring(base.prefix.length(), full.length());
-                    result = checkWord(base, string, full);
+    @Override
+    public boolean checkWord(CharSequence word, int from, int to){
+        int length = to - from;
+        TrieNode node = root;
+        int matched = 0;
+        while (matched < length){
+            char ch = word.charAt(from + matched);
+            if (Alphabet.indexOf(ch) < 0){
+                return false;
+            }
+            TrieNode base = node.children[getIndexOfCharacter(ch)];
+            if (base == null || base.length > length - matched){
+                return false;
+            }
+            for (int i = 0; i < base.length; i++){
+                if (labels[base.start + i] != word.charAt(from + matched + i)){
+                    return false;
                 }
             }
+            matched += base.length;
+            node = base;
         }
-        return result;
+        return node.isWord;
     }
 
     /***
@@ -150,8 +230,7 @@ public class Trie implements Roots{
      * If it cannot find a ancestor node that is a word, it will look at the immediate children of the node it got to.
      * If one of them is proper word, it will return that.
      *
-     * If it dosen't find anything after this it will call the recursive modifier which will tweak the string until it
-     * finds a proper word.
+     * If it dosen't find anything after this it will do the bounded edit distance walk and return the closest word.
      *
      * @param word String of the misspelled word.
      * @return String of the suggested correct spelling.
@@ -165,6 +244,8 @@ public class Trie implements Roots{
         // Make 2 string builders. The first one will only be real, properly spelled words. The second one will be a
         // buffer to add to until we know it is a word. Then we add the temp to suggestion.
         StringBuilder suggestion = new StringBuilder();
+        // The chars on the path down to current.
+        StringBuilder path = new StringBuilder();
 
         Trie.TrieNode current = root;
         //loop through word, build string while children != null and isEnd == true?
@@ -174,10 +255,11 @@ public class Trie implements Roots{
             if (current.children[getIndexOfCharacter(ch)]!= null){
 
                 current = current.children[getIndexOfCharacter(ch)];
+                path.append(labels, current.start, current.length);
 
                 if (current.isWord){
                     suggestion.setLength(0);
-                    suggestion.append(current.prefix);
+                    suggestion.append(path);
                 }
 
             } else {
@@ -188,6 +270,7 @@ public class Trie implements Roots{
 
         if (suggestion.length() != 0){
             //If we found a parent, that is a word, then we can return, else we need to get drastic.
+            SpellMetrics.get().tier(SpellMetrics.Tier.PREFIX_WORD);
             return suggestion.toString();
 
         } else {
@@ -200,108 +283,330 @@ public class Trie implements Roots{
                     if (child != null){
                         if (child.isWord){
                             suggestion.setLength(0);
-                            suggestion.append(child.prefix);
+                            suggestion.append(path).append(labels, child.start, child.length);
+                            SpellMetrics.get().tier(SpellMetrics.Tier.CHILD_WORD);
                             return suggestion.toString();
                         }
                     }
                 }
             }
 
-            return recursiveModCheck(word);
+            //Nothing nearby, so do the bounded walk.
+            return suggestByDistance(word);
         }
     }
 
     /***
-     * This is a recursive function that is called from suggest when we cannot find a complete word as a parent,
-     * ancestor or child of the last node we can get to. If we cannot find one that way, we need to start modifying the
-     * string of the word we are looking for to try and counter the spelling mistakes.
+     * Bounded suggest. Walks the trie once, keeping one edit distance row per char of the path we are on. As soon as
+     * the smallest value in a row is bigger than the bound, none of the words below can be close enough so the whole
+     * subtree is skipped. Once a word is found the bound shrinks to its distance, see Nearest.
      *
-     * First we take the string we are looking for and cant find a suggestion for, then we start iterating letters.
-     * Making sure we test every possible combination, we go from the end of the word to the front, iterating each
-     * letter (as well as the trailing letters) from 'a' to 'z'. For each iteration of a letter, we do every possible
-     * combination of the letters that follow it for that word length.
-     *
-     * tesst -> tesss -> ... -> tessa -> ... -> tessz -> ... -> tesrz -> tesry -> tesra -> ... -> tesaa -> ... -> teszz
-     *
-     * If we find a word when messing with these letter combinations, it will return the string that made the combo.
-     * Theoretically it will return the closest possible correct spelling to the misspelled string that we gave it.
-     *
-     * @param word String of the word we are looking for. When it calls itself it will call minus the last letter.
-     * @return A string of a proper word we found.
+     * @param word String of the misspelled word.
+     * @param maxDistance the most edits a suggestion can be away from word.
+     * @return the closest word, or null if there is none within maxDistance.
      */
-    private String recursiveModCheck(String word){
-
-        char [] wordCharArr = word.toCharArray();
+    @Override
+    public String suggest(String word, int maxDistance){
+        Nearest nearest = new Nearest(maxDistance);
+        EditDistance rows = new EditDistance(word);
+        suggest(root, new StringBuilder(), rows, nearest);
+        SpellMetrics.get().probed(rows.pushes());
+        return nearest.word;
+    }
 
-        for (int index = wordCharArr.length-1; index >= 0; index--){
+    /***
+     * Runs the same walk, offering the words to nearest. That is a TopSuggestions for the k best words, or a Nearest
+     * with a deadline for the budgeted suggest.
+     * @param word String of the misspelled word.
+     * @param nearest collects the words, and sets the bound.
+     */
+    @Override
+    public void collect(String word, Nearest nearest){
+        EditDistance rows = new EditDistance(word);
+        suggest(root, new StringBuilder(), rows, nearest);
+        SpellMetrics.get().probed(rows.pushes());
+    }
 
-            while (wordCharArr[index] > 'a'){
-                //decrement up to 'a'
-                if (checkWord(charArrToStr(wordCharArr))){
-                    return charArrToStr(wordCharArr);
+    /***
+     * Recursive part of the bounded suggest. Pushes a row for every char on the edge into each child, then recurs.
+     * @param node node whose children we are looking at.
+     * @param path the chars on the path down to node.
+     * @param rows the rows for the path down to node.
+     * @param nearest the best word so far and the current bound.
+     */
+    private void suggest(TrieNode node, StringBuilder path, EditDistance rows, Nearest nearest){
+        int depth = path.length();
+        for (TrieNode child : node.children){
+            if (child == null){
+                continue;
+            }
+            boolean pruned = false;
+            for (int i = 0; i < child.length; i++){
+                char prevCh = i > 0 ? labels[child.start + i - 1] : depth > 0 ? path.charAt(depth - 1) : 0;
+                if (rows.push(depth + i + 1, labels[child.start + i], prevCh) > nearest.bound()){
+                    pruned = true;
+                    break;
                 }
-                wordCharArr[index]--;
+            }
+            if (pruned){
+                continue;
+            }
+            path.append(labels, child.start, child.length);
+            if (child.isWord){
+                nearest.offer(path, rows.distance(path.length()));
+            }
+            suggest(child, path, rows, nearest);
+            path.setLength(depth);
+        }
+    }
 
+    /***
+     * Gives every node its best k words, bottom up, see Completions.
+     *
+     * Runtime: O(n*k log(k)) where n is the number of nodes.
+     * @param frequencies how common each word is.
+     * @param k how many words each node keeps.
+     */
+    @Override
+    public void rankCompletions(WordFrequencies frequencies, int k){
+        rank(root, new StringBuilder(), new Completions(k, frequencies));
+    }
 
-                //Iterate subsequent chars. Chars following the current one we are looking at.
-                for (int i = index+1; i <= wordCharArr.length-1; i++){
-                    while (wordCharArr[i] > 'a'){
-                        //decrement up to 'a'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]--;
-                    }
+    /***
+     * Recursive part of rankCompletions.
+     * @param node node to rank.
+     * @param path the chars on the path down to node, not counting its own edge.
+     * @param completions merges the lists.
+     * @return node's list.
+     */
+    private String[] rank(TrieNode node, StringBuilder path, Completions completions){
+        int depth = path.length();
+        path.append(labels, node.start, node.length);
+        List<String> candidates = new ArrayList<>();
+        if (node.isWord){
+            candidates.add(path.toString());
+        }
+        TrieNode only = null;
+        int count = 0;
+        for (TrieNode child : node.children){
+            if (child != null){
+                Collections.addAll(candidates, rank(child, path, completions));
+                only = child;
+                count++;
+            }
+        }
+        //A node on a chain has the same words as the one below it.
+        node.completions = !node.isWord && count == 1 ? only.completions : completions.best(candidates);
+        path.setLength(depth);
+        return node.completions;
+    }
 
-                    while (wordCharArr[i] < 'z'){
-                        //increment down to 'z'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]++;
-                    }
+    /***
+     * Walks down the prefix, which may stop part way along an edge, and gives back the list of the node it ends on.
+     *
+     * Runtime: O(n + k) where n is length of prefix.
+     * @param prefix the chars typed so far.
+     * @param k the most completions to give back.
+     * @return the completions, best first.
+     */
+    @Override
+    public List<String> complete(String prefix, int k){
+        TrieNode node = root;
+        int matched = 0;
+        while (matched < prefix.length()){
+            char ch = prefix.charAt(matched);
+            if (Alphabet.indexOf(ch) < 0){
+                return Collections.emptyList();
+            }
+            TrieNode child = node.children[getIndexOfCharacter(ch)];
+            if (child == null){
+                return Collections.emptyList();
+            }
+            int max = Math.min(child.length, prefix.length() - matched);
+            for (int i = 0; i < max; i++){
+                if (labels[child.start + i] != prefix.charAt(matched + i)){
+                    return Collections.emptyList();
                 }
             }
+            matched += max;
+            node = child;
+        }
+        return node.completions != null ? Completions.first(node.completions, k) : Collections.emptyList();
+    }
+
+    /***
+     * Starts a cursor at the root. Each char typed is one step, either along the current edge or onto a child.
+     */
+    @Override
+    public Cursor cursor(){ return new TrieCursor(); }
+
+    /***
+     * Keeps one entry per char typed: the node the chars lead to and how far along its edge they are (the node is
+     * null once they leave the trie). It also follows the walk suggest() does, which takes a whole edge for each char
+     * and stops at the first char with no child, and remembers how much of that walk was a word. So suggest() can
+     * answer from the top of the stack when the first two tiers find something. For the tier within two edits the
+     * Frontier carries on from the rows it already has, and only the widest tier goes back to the whole word.
+     */
+    private class TrieCursor implements Cursor, Frontier.Moves<TrieNode> {
+        private final StringBuilder typed = new StringBuilder();
+        private final Frontier<TrieNode> frontier;
+        private final StringBuilder followed = new StringBuilder(); // the labels the suggest walk followed.
+        private TrieNode[] exact = new TrieNode[16];
+        private int[] along = new int[16];  // how many chars of exact's edge have been typed.
+        private TrieNode[] skip = new TrieNode[16];
+        private boolean[] stopped = new boolean[16];
+        private int[] followedLength = new int[16];
+        private int[] wordLength = new int[16]; // how much of followed ends at the last word, 0 if none.
+
+        TrieCursor(){
+            exact[0] = root;
+            skip[0] = root;
+            frontier = new Frontier<>(typed, this, new Frontier.Step<>(root, 0, '\0', null));
+        }
+
+        /***
+         * Runtime: O(1), one char compare along an edge or one child lookup. Following the suggest walk onto a new
+         * edge copies its label.
+         */
+        @Override
+        public void advance(char ch){
+            int depth = typed.length();
+            if (depth + 1 == exact.length){
+                int bigger = exact.length * 2;
+                exact = Arrays.copyOf(exact, bigger);
+                along = Arrays.copyOf(along, bigger);
+                skip = Arrays.copyOf(skip, bigger);
+                stopped = Arrays.copyOf(stopped, bigger);
+                followedLength = Arrays.copyOf(followedLength, bigger);
+                wordLength = Arrays.copyOf(wordLength, bigger);
+            }
+            typed.append(ch);
+            int index = Alphabet.indexOf(ch);
+
+            TrieNode node = exact[depth];
+            if (node != null && along[depth] < node.length){
+                //Still part way along the edge, the next label char has to match.
+                boolean same = labels[node.start + along[depth]] == ch;
+                exact[depth + 1] = same ? node : null;
+                along[depth + 1] = along[depth] + 1;
+            } else {
+                //At the end of the edge, the char picks the next one, and is its first label char.
+                exact[depth + 1] = node != null && index >= 0 ? node.children[index] : null;
+                along[depth + 1] = 1;
+            }
+
+            TrieNode child = stopped[depth] || index < 0 ? null : skip[depth].children[index];
+            if (child != null){
+                followed.setLength(followedLength[depth]);
+                followed.append(labels, child.start, child.length);
+                skip[depth + 1] = child;
+                stopped[depth + 1] = false;
+                followedLength[depth + 1] = followed.length();
+                wordLength[depth + 1] = child.isWord ? followed.length() : wordLength[depth];
+            } else {
+                skip[depth + 1] = skip[depth];
+                stopped[depth + 1] = true;
+                followedLength[depth + 1] = followedLength[depth];
+                wordLength[depth + 1] = wordLength[depth];
+            }
+        }
+
+        @Override
+        public void retreat(){
+            if (typed.length() > 0){
+                typed.setLength(typed.length() - 1);
+                frontier.cut(typed.length());
+            }
+        }
+
+        @Override
+        public int length(){ return typed.length(); }
+
+        @Override
+        public String word(){ return typed.toString(); }
 
-            while (wordCharArr[index] < 'z'){
-                //increment down to 'z'
-                if (checkWord(charArrToStr(wordCharArr))){
-                    return charArrToStr(wordCharArr);
+        @Override
+        public char charAt(int index){ return typed.charAt(index); }
+
+        @Override
+        public boolean isWord(){
+            TrieNode node = exact[typed.length()];
+            return node != null && along[typed.length()] == node.length && node.isWord;
+        }
+
+        /***
+         * Runtime: O(n) to copy out the answer when a word on the path or a child of where it stopped is the answer,
+         * otherwise the Frontier rows for the chars typed since the last call, and the bounded walk on the whole word
+         * if nothing is within two edits.
+         */
+        @Override
+        public String suggest(){
+            int depth = typed.length();
+            if (wordLength[depth] != 0){
+                SpellMetrics.get().tier(SpellMetrics.Tier.PREFIX_WORD);
+                return followed.substring(0, wordLength[depth]);
+            }
+            for (TrieNode child : skip[depth].children){
+                if (child != null && child.isWord){
+                    SpellMetrics.get().tier(SpellMetrics.Tier.CHILD_WORD);
+                    return followed.substring(0, followedLength[depth]) + new String(labels, child.start, child.length);
                 }
-                wordCharArr[index]++;
-
-                //Iterate subsequent chars. Chars following the current one we are looking at.
-                for (int i = index+1; i <= wordCharArr.length-1; i++){
-                    while (wordCharArr[i] > 'a'){
-                        //decrement up to 'a'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]--;
-                    }
+            }
+            String near = frontier.nearest(Math.min(typed.length(), EditDistance.TYPO_DISTANCE));
+            return suggestByDistance(typed.toString(), near);
+        }
 
-                    while (wordCharArr[i] < 'z'){
-                        //increment down to 'z'
-                        if (checkWord(charArrToStr(wordCharArr))){
-                            return charArrToStr(wordCharArr);
-                        }
-                        wordCharArr[i]++;
-                    }
+        /***
+         * One char further along the edge, or onto each child at the end of it.
+         */
+        @Override
+        public void children(Frontier.Step<TrieNode> step, List<Frontier.Step<TrieNode>> out){
+            TrieNode node = step.node;
+            if (step.along < node.length){
+                out.add(new Frontier.Step<>(node, step.along + 1, labels[node.start + step.along], step));
+                return;
+            }
+            for (TrieNode child : node.children){
+                if (child != null){
+                    out.add(new Frontier.Step<>(child, 1, labels[child.start], step));
                 }
             }
         }
 
-        // If iterating all possible chars doesn't generate a word, remove the last char so it is shorter and try again.
-        return recursiveModCheck(charArrToStr(Arrays.copyOfRange(wordCharArr, 0, wordCharArr.length-1)));
+        @Override
+        public boolean isWord(Frontier.Step<TrieNode> step){
+            return step.along == step.node.length && step.node.isWord;
+        }
     }
 
     /***
-     * Converts a Char array to a String object.
-     * @param arr char array
-     * @return String
+     * Estimates the heap used by the trie by walking every node. Each node has a 27 slot child array, even when most
+     * of the slots are empty, and the labels are one shared char array.
+     * @return estimated bytes.
      */
-    private String charArrToStr(char[] arr){
-        return new String(arr);
+    @Override
+    public long sizeInBytes(){
+        return MemoryEstimate.object(2 * MemoryEstimate.REFERENCE + 4) + MemoryEstimate.array(labels.length, 2)
+                + sizeInBytes(root);
+    }
+
+    private long sizeInBytes(TrieNode node){
+        long bytes = MemoryEstimate.object(4 + 4 + 2 * MemoryEstimate.REFERENCE + 1)
+                + MemoryEstimate.array(node.children.length, MemoryEstimate.REFERENCE);
+        TrieNode only = null;
+        int count = 0;
+        for (TrieNode child : node.children){
+            if (child != null){
+                bytes += sizeInBytes(child);
+                only = child;
+                count++;
+            }
+        }
+        if (node.completions != null && !(count == 1 && node.completions == only.completions)){
+            //A list shared down a chain is only counted once. The word Strings in the lists are not counted.
+            bytes += MemoryEstimate.array(node.completions.length, MemoryEstimate.REFERENCE);
+        }
+        return bytes;
     }
 
     /***
@@ -316,21 +621,4 @@ public class Trie implements Roots{
         }
         return (int)c - (int)'a';
     }
-
-    /***
-     * Takes two strings and finds the longest prefix they have in common. For example: s1="test" s2="tell", the result
-     * will be "te".
-     * @param s1 input string 1
-     * @param s2 input string 2
-     * @return the common prefix
-     */
-    private String findCommonPrefix(String s1, String s2) {
-        int minLength = Math.min(s1.length(), s2.length());
-        for (int i = 0; i < minLength; i++) {
-            if (s1.charAt(i) != s2.charAt(i)) {
-                return s1.substring(0, i);
-            }
-        }
-        return s1.substring(0, minLength);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+/*
+ * How often each dictionary word is used, for ranking suggestions.
+ */
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+class WordFrequencies {
+    /** The counts come from an optional text file next to english.0, one word and its count per line separated by
+     * spaces or a tab, like "the 23135851162". Words are lowercased the same way the dictionary is. A word that is
+     * not in the file counts as 0, so without a file every word is equally common and suggestions are ranked by edit
+     * distance and then alphabetically.
+     **/
+
+    // Where the counts are looked for if a1properties.txt does not say.
+    static final String DEFAULT_PATH = "english.0.freq";
+
+    static final WordFrequencies NONE = new WordFrequencies(Collections.emptyMap());
+
+    private final Map<String, Long> counts;
+
+    private WordFrequencies(Map<String, Long> counts){
+        this.counts = counts;
+    }
+
+    /***
+     * Reads the count file. Lines that are not a word and a number are skipped.
+     *
+     * Runtime: O(n) where n is the size of the file.
+     * @param path the count file.
+     * @return the counts, or NONE if there is no file.
+     */
+    static WordFrequencies load(String path){
+        Map<String, Long> counts = new HashMap<>();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null){
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 2){
+                    skipped++;
+                    continue;
+                }
+                try {
+                    counts.merge(parts[0].toLowerCase(), Long.parseLong(parts[1]), Long::sum);
+                } catch (NumberFormatException e) {
+                    skipped++;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("No Word Counts at " + path + ". Ranking Suggestions by Edit Distance Only...");
+            return NONE;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed Reading Word Counts. Exiting...");
+            System.exit(1);
+        }
+        System.out.println("Loaded " + counts.size() + " Word Counts from " + path
+                + (skipped > 0 ? " (" + skipped + " lines skipped)." : "."));
+        return new WordFrequencies(counts);
+    }
+
+    /***
+     * @param word a dictionary word.
+     * @return how often it is used, 0 if it is not in the file.
+     */
+    long count(String word){
+        Long count = counts.get(word);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Streams the words out of an input file without making a String for each one.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+class WordTokenizer implements CharSequence {
+    /** Each line of the input file is one word. This reads the file through one reusable buffer and copies the letters
+     * and apostrophes of each line into a reusable token array, lowercasing them on the way. It gives the same words
+     * as line.replaceAll("[^a-zA-Z']", "").toLowerCase(), but with no regex and no Strings. The tokenizer itself is
+     * the CharSequence for the current word, so it can be handed straight to Roots.checkWord. It is only valid until
+     * the next call to next().
+     **/
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private char[] token;
+    private int length;
+
+    WordTokenizer(Reader reader){
+        this.reader = reader;
+        this.buffer = new char[8192];
+        this.position = 0;
+        this.limit = 0;
+        this.token = new char[64];
+        this.length = 0;
+    }
+
+    /***
+     * Moves on to the next word, skipping lines that have no letters in them.
+     *
+     * Runtime: O(n) where n is the number of chars read.
+     * @return true if there is a word, false at the end of the input.
+     * @throws IOException if the input cannot be read.
+     */
+    boolean next() throws IOException {
+        length = 0;
+        while (true){
+            if (position == limit){
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0){
+                    limit = 0;
+                    return length > 0;
+                }
+            }
+            char c = buffer[position++];
+            if (c == '\n' || c == '\r'){
+                if (length > 0){
+                    return true;
+                }
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z'){
+                c = (char)(c + ('a' - 'A'));
+            } else if ((c < 'a' || c > 'z') && c != '\''){
+                continue;
+            }
+            if (length == token.length){
+                char[] bigger = new char[token.length * 2];
+                System.arraycopy(token, 0, bigger, 0, length);
+                token = bigger;
+            }
+            token[length++] = c;
+        }
+    }
+
+    /***
+     * Writes the current word without turning it into a String.
+     * @param out where to write it.
+     * @throws IOException if the writer fails.
+     */
+    void writeTo(Writer out) throws IOException { out.write(token, 0, length); }
+
+    @Override
+    public int length(){ return length; }
+
+    @Override
+    public char charAt(int index){
+        if (index >= length){
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return token[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end){ return new String(token, start, end - start); }
+
+    @Override
+    public String toString(){ return new String(token, 0, length); }
+}
@@ -0,0 +1,143 @@
+/*
+ * Lets the benchmarks reach the Roots classes, which live in the default package.
+ */
+
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Backend {
+    /** JMH generates its code into a package next to each benchmark, and code in a named package cannot import
+     * classes from the default package. So the benchmarks hold the structures as plain Objects and call the Roots
+     * methods through these MethodHandles. The handles are static final, so the JIT inlines them, and every
+     * backend pays the same small cost for it.
+     **/
+
+    // Every Roots implementation, by class name. A new backend goes here and in the storage @Param of each benchmark.
+    static final String[] ALL = {"Trie", "Tree", "DoubleArrayTrie", "Dawg", "BKTree", "SymSpell", "ConcurrentTrie"};
+
+    private static final MethodHandle ADD_ALL;
+    private static final MethodHandle CHECK_WORD;
+    private static final MethodHandle SUGGEST;
+    private static final MethodHandle SIZE_IN_BYTES;
+
+    static {
+        try {
+            Class<?> roots = Class.forName("Roots");
+            ADD_ALL = handle(roots.getMethod("addAll", List.class), void.class, List.class);
+            CHECK_WORD = handle(roots.getMethod("checkWord", String.class), boolean.class, String.class);
+            SUGGEST = handle(roots.getMethod("suggest", String.class), String.class, String.class);
+            SIZE_IN_BYTES = handle(roots.getMethod("sizeInBytes"), long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Backend(){}
+
+    private static MethodHandle handle(Method method, Class<?> returnType, Class<?>... parameters)
+            throws IllegalAccessException {
+        method.setAccessible(true);
+        Class<?>[] withReceiver = new Class<?>[parameters.length + 1];
+        withReceiver[0] = Object.class;
+        System.arraycopy(parameters, 0, withReceiver, 1, parameters.length);
+        return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(returnType, withReceiver));
+    }
+
+    /***
+     * Makes an empty structure.
+     * @param storage the class name, like "Trie".
+     * @return the new Roots object.
+     */
+    static Object create(String storage){
+        try {
+            Constructor<?> constructor = Class.forName(storage).getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("No Roots class called " + storage, e);
+        }
+    }
+
+    /***
+     * Makes a structure and adds the words to it. The first checkWord is made here too, so structures that build
+     * lazily are finished before anything is timed.
+     */
+    static Object build(String storage, List<String> words){
+        Object roots = create(storage);
+        addAll(roots, words);
+        checkWord(roots, words.get(0));
+        return roots;
+    }
+
+    static void addAll(Object roots, List<String> words){
+        try {
+            ADD_ALL.invokeExact(roots, words);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean checkWord(Object roots, String word){
+        try {
+            return (boolean) CHECK_WORD.invokeExact(roots, word);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String suggest(Object roots, String word){
+        try {
+            return (String) SUGGEST.invokeExact(roots, word);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static long sizeInBytes(Object roots){
+        try {
+            return (long) SIZE_IN_BYTES.invokeExact(roots);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t){
+        if (t instanceof RuntimeException){
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error){
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+
+    /***
+     * Reads english.0 from the working directory the same way DictionaryLoader does: one lowercased word per line,
+     * blank lines skipped.
+     * @return the words, in file order.
+     */
+    static List<String> readDictionary(){
+        List<String> words = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader("english.0"))) {
+            String line;
+            while ((line = br.readLine()) != null){
+                if (line.compareTo("") != 0){
+                    words.add(line.toLowerCase());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Run the benchmarks from the directory that has english.0", e);
+        }
+        return words;
+    }
+}
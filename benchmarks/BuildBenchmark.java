@@ -0,0 +1,47 @@
+/*
+ * How long each Roots structure takes to add english.0.
+ */
+
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BuildBenchmark {
+    /** Each iteration builds the whole dictionary into a new structure, including the lazy build that
+     * DoubleArrayTrie and Dawg do on their first query. Reading the file is not timed.
+     **/
+
+    @Param({"Trie", "Tree", "DoubleArrayTrie", "Dawg", "BKTree", "SymSpell", "ConcurrentTrie"})
+    public String storage;
+
+    private List<String> words;
+
+    @Setup
+    public void readDictionary(){
+        words = Backend.readDictionary();
+    }
+
+    @Benchmark
+    public Object build(){
+        return Backend.build(storage, words);
+    }
+}
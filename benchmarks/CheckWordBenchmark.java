@@ -0,0 +1,86 @@
+/*
+ * checkWord throughput for words that are in the dictionary and words that are not.
+ */
+
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CheckWordBenchmark {
+    /** Hits are every dictionary word in a shuffled order, so the walk does not just follow the same path as the
+     * last word. Misses are dictionary words with one char swapped for another, so they look like real typos and
+     * fail at a random depth, not right at the root.
+     **/
+
+    @Param({"Trie", "Tree", "DoubleArrayTrie", "Dawg", "BKTree", "SymSpell", "ConcurrentTrie"})
+    public String storage;
+
+    private Object roots;
+    private String[] hits;
+    private String[] misses;
+    private int nextHit;
+    private int nextMiss;
+
+    @Setup
+    public void build(){
+        List<String> words = Backend.readDictionary();
+        roots = Backend.build(storage, words);
+
+        Random random = new Random(245);
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, random);
+        hits = shuffled.toArray(new String[0]);
+
+        Set<String> dictionary = new HashSet<>(words);
+        List<String> typos = new ArrayList<>();
+        for (String word : shuffled){
+            char[] chars = word.toCharArray();
+            chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+            String typo = new String(chars);
+            if (!dictionary.contains(typo)){
+                typos.add(typo);
+            }
+        }
+        misses = typos.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public boolean hit(){
+        if (nextHit == hits.length){
+            nextHit = 0;
+        }
+        return Backend.checkWord(roots, hits[nextHit++]);
+    }
+
+    @Benchmark
+    public boolean miss(){
+        if (nextMiss == misses.length){
+            nextMiss = 0;
+        }
+        return Backend.checkWord(roots, misses[nextMiss++]);
+    }
+}
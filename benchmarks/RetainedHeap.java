@@ -0,0 +1,64 @@
+/*
+ * Measures the heap each Roots structure keeps once english.0 is added.
+ */
+
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.List;
+
+public class RetainedHeap {
+    /** JMH only measures time and allocation, not what a structure keeps. This measures the used heap before and
+     * after building, with the word list already loaded and a full GC before each reading, the same way the numbers
+     * in analysis.txt were taken. Whatever is measured first in a JVM is the most accurate, so with no arguments it
+     * runs itself again in a new JVM for each backend. BKTree and SymSpell keep the very Strings they were given,
+     * which are still held by the word list here, so they measure lower than their sizeInBytes() estimate by about
+     * the size of the words.
+     *
+     *     java -cp target/benchmarks.jar benchmarks.RetainedHeap [storage ...]
+     **/
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0){
+            System.out.printf("%-16s %16s %16s%n", "storage", "estimated KB", "measured KB");
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (String storage : Backend.ALL){
+                Process process = new ProcessBuilder(java, "-Xmx2g", "-cp", System.getProperty("java.class.path"),
+                        RetainedHeap.class.getName(), storage).inheritIO().start();
+                if (process.waitFor() != 0){
+                    System.out.println(storage + " failed.");
+                }
+            }
+            return;
+        }
+        for (String storage : args){
+            measure(storage);
+        }
+    }
+
+    private static void measure(String storage){
+        List<String> words = Backend.readDictionary();
+        //Build a small one and read the heap once first, so the class loading and the management bean's own setup are
+        // not counted as the structure.
+        Backend.build(storage, words.subList(0, 100));
+        usedAfterGc();
+        long before = usedAfterGc();
+        Object roots = Backend.build(storage, words);
+        long after = usedAfterGc();
+        System.out.printf("%-16s %,16d %,16d%n", storage, Backend.sizeInBytes(roots) / 1024, (after - before) / 1024);
+        Reference.reachabilityFence(roots);
+        Reference.reachabilityFence(words);
+    }
+
+    private static long usedAfterGc(){
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * suggest latency by how far the misspelling is from a real word and by how long the word is.
+ */
+
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SuggestBenchmark {
+    /** Each misspelling is a dictionary word of the chosen length with the chosen number of random edits applied
+     * (a substitution, insertion or deletion each), and is never itself a dictionary word. A real word might still be
+     * closer than the one it was made from, so distance is how many edits were made, not the exact edit distance.
+     **/
+
+    // Number of misspellings cycled through per trial.
+    private static final int SAMPLES = 512;
+
+    @Param({"Trie", "Tree", "DoubleArrayTrie", "Dawg", "BKTree", "SymSpell", "ConcurrentTrie"})
+    public String storage;
+
+    @Param({"1", "2", "3"})
+    public int distance;
+
+    // short is 3 to 5 chars, medium 6 to 9, long 10 and up.
+    @Param({"short", "medium", "long"})
+    public String length;
+
+    private Object roots;
+    private String[] typos;
+    private int next;
+
+    @Setup
+    public void build(){
+        List<String> words = Backend.readDictionary();
+        roots = Backend.build(storage, words);
+
+        int min = length.compareTo("short") == 0 ? 3 : length.compareTo("medium") == 0 ? 6 : 10;
+        int max = length.compareTo("short") == 0 ? 5 : length.compareTo("medium") == 0 ? 9 : Integer.MAX_VALUE;
+        List<String> sources = new ArrayList<>();
+        for (String word : words){
+            if (word.length() >= min && word.length() <= max){
+                sources.add(word);
+            }
+        }
+        Random random = new Random(245);
+        Collections.shuffle(sources, random);
+
+        Set<String> dictionary = new HashSet<>(words);
+        List<String> made = new ArrayList<>();
+        for (int i = 0; made.size() < SAMPLES; i++){
+            String typo = misspell(sources.get(i % sources.size()), distance, random);
+            if (!dictionary.contains(typo)){
+                made.add(typo);
+            }
+        }
+        typos = made.toArray(new String[0]);
+    }
+
+    private static String misspell(String word, int edits, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        for (int e = 0; e < edits; e++){
+            int kind = typo.length() > 1 ? random.nextInt(3) : 1;
+            char ch = (char) ('a' + random.nextInt(26));
+            if (kind == 0){
+                typo.setCharAt(random.nextInt(typo.length()), ch);
+            } else if (kind == 1){
+                typo.insert(random.nextInt(typo.length() + 1), ch);
+            } else {
+                typo.deleteCharAt(random.nextInt(typo.length()));
+            }
+        }
+        return typo.toString();
+    }
+
+    @Benchmark
+    public String suggest(){
+        if (next == typos.length){
+            next = 0;
+        }
+        return Backend.suggest(roots, typos[next++]);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Checks the BK-tree searches against measuring every word in the dictionary with the Damerau distance.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class BKTreeCheck {
+    /** The BK-tree only skips subtrees safely if its distance is a metric, so EditDistance.damerau has to keep the
+     * triangle inequality on random triples of words and misspellings, and give 2 for "ca" to "abc" where the optimal
+     * string alignment distance gives 3.
+     *
+     * The misspellings are dictionary words with one to three random edits, a few that are nothing like any word, and
+     * a few words that are spelled right. The tree is built from the words in a shuffled order. For each misspelling
+     * every word is measured with the Damerau distance, and suggest(word, maxDistance) has to give the closest one
+     * within the bound for bounds 0 to 3, the first alphabetically among those just as close. suggestAll(word, radius)
+     * has to list every word within the radius, closest first and then alphabetically, for radii 0 to 2. suggest(word)
+     * has to give the closest word within two edits, or failing that within the word's length. checkWord has to take
+     * exactly the dictionary words, and adding a word twice must not change the tree.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes BKTreeCheck
+     **/
+
+    private static final int TYPOS = 300;
+    private static final int MAX_BOUND = 3;
+    private static final int MAX_RADIUS = 2;
+    private static final int TRIPLES = 100000;
+    private static final String[] FAR = {"xyzzyq", "qqqqqqqqqq", "zzz", "a", "bcdfghjklm", "pneumonoultramicroscopic"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = new ArrayList<>(new TreeSet<>(DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8))));
+        Set<String> dictionary = new HashSet<>(words);
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+        for (String far : FAR){
+            misspellings.add(far);
+        }
+        for (int i = 0; i < 20; i++){
+            misspellings.add(words.get(random.nextInt(words.size())));
+        }
+
+        int broken = 0;
+        for (int i = 0; i < TRIPLES; i++){
+            String a = pick(words, misspellings, random);
+            String b = pick(words, misspellings, random);
+            String c = pick(words, misspellings, random);
+            if (EditDistance.damerau(a, c) > EditDistance.damerau(a, b) + EditDistance.damerau(b, c)){
+                broken++;
+            }
+        }
+        expect("the Damerau distance keeps the triangle inequality on " + TRIPLES + " triples", broken == 0);
+        expect("the Damerau distance counts a swap with an insert between as two edits",
+                EditDistance.damerau("ca", "abc") == 2 && EditDistance.between("ca", "abc") == 3);
+
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, random);
+        BKTree tree = new BKTree();
+        tree.addAll(shuffled);
+
+        int checkWrong = 0;
+        int boundWrong = 0;
+        int radiusWrong = 0;
+        int suggestWrong = 0;
+        for (String misspelling : misspellings){
+            checkWrong += tree.checkWord(misspelling) != dictionary.contains(misspelling) ? 1 : 0;
+            //The words are in alphabetical order, so the first one at a distance is the one a tie goes to.
+            int[] distances = new int[words.size()];
+            for (int j = 0; j < words.size(); j++){
+                distances[j] = EditDistance.damerau(misspelling, words.get(j));
+            }
+            for (int bound = 0; bound <= MAX_BOUND; bound++){
+                String expected = closest(words, distances, bound);
+                String got = tree.suggest(misspelling, bound);
+                if (got == null ? expected != null : !got.equals(expected)){
+                    if (boundWrong++ < 3){
+                        System.out.println("  " + misspelling + " within " + bound + ": " + got + " but expected "
+                                + expected);
+                    }
+                }
+            }
+            for (int radius = 0; radius <= MAX_RADIUS; radius++){
+                List<Integer> within = new ArrayList<>();
+                for (int j = 0; j < words.size(); j++){
+                    if (distances[j] <= radius){
+                        within.add(j);
+                    }
+                }
+                within.sort(Comparator.comparingInt((Integer j) -> distances[j]).thenComparing(words::get));
+                List<String> expected = new ArrayList<>();
+                for (int j : within){
+                    expected.add(words.get(j));
+                }
+                if (!tree.suggestAll(misspelling, radius).equals(expected)){
+                    radiusWrong++;
+                }
+            }
+            String near = closest(words, distances, Math.min(misspelling.length(), EditDistance.TYPO_DISTANCE));
+            String expected = near != null ? near : closest(words, distances, misspelling.length());
+            if (!tree.suggest(misspelling).equals(expected != null ? expected : misspelling)){
+                suggestWrong++;
+            }
+        }
+        expect("checkWord takes exactly the dictionary words (" + misspellings.size() + " words)", checkWrong == 0);
+        expect("suggest(word, maxDistance) matches brute force for bounds 0 to " + MAX_BOUND, boundWrong == 0);
+        expect("suggestAll(word, radius) lists every word within radii 0 to " + MAX_RADIUS + ", closest first",
+                radiusWrong == 0);
+        expect("suggest(word) matches brute force", suggestWrong == 0);
+
+        long size = tree.sizeInBytes();
+        tree.add(words.get(words.size() / 2));
+        expect("adding a word twice leaves the tree as it was", tree.sizeInBytes() == size);
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All BK-tree checks passed.");
+    }
+
+    private static String pick(List<String> words, List<String> misspellings, Random random){
+        return random.nextBoolean() ? words.get(random.nextInt(words.size()))
+                : misspellings.get(random.nextInt(misspellings.size()));
+    }
+
+    /***
+     * The closest word within bound, the first one alphabetically among those as close, or null.
+     */
+    private static String closest(List<String> words, int[] distances, int bound){
+        int best = -1;
+        for (int j = 0; j < words.size(); j++){
+            if (distances[j] <= bound && (best < 0 || distances[j] < distances[best])){
+                best = j;
+            }
+        }
+        return best < 0 ? null : words.get(best);
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Checks that BloomRoots never turns away a real word, and lets about as few misspellings through as it should.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BloomCheck {
+    /** For 1, 4, 10 and 16 bits per word, a BloomRoots in front of a Trie that counts its lookups is built from
+     * english.0. Every word has to be taken. The non-words are dictionary words with a char added or changed that are
+     * not in the dictionary themselves, and every one has to be turned down. The share of them that got past the
+     * filter to the Trie has to be within half again of (1 - e^(-k/b))^k, what a filter of b bits per word and k
+     * hashes should let through.
+     *
+     * Words added one at a time before any addAll, or after it, past what the filter was sized for, have to be
+     * taken too, also when several threads add them at once while another checks. That part sits in front of a
+     * ConcurrentTrie, since a Trie cannot take words from several threads. wrap with 0 bits gives back the
+     * structure as it is, and the constructor turns down less than 1 bit per word.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes BloomCheck
+     **/
+
+    private static final int[] BITS = {1, 4, 10, 16};
+    private static final int NON_WORDS = 200000;
+    private static final int THREADS = 4;
+
+    private static int failures = 0;
+
+    private static class CountedTrie extends Trie {
+        final LongAdder lookups = new LongAdder();
+
+        @Override
+        public boolean checkWord(CharSequence word, int from, int to){
+            lookups.increment();
+            return super.checkWord(word, from, to);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Set<String> dictionary = new HashSet<>(words);
+        Random random = new Random(245);
+        List<String> nonWords = new ArrayList<>();
+        while (nonWords.size() < NON_WORDS){
+            StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+            char ch = Alphabet.charAt(random.nextInt(Alphabet.SIZE));
+            if (random.nextBoolean()){
+                typo.insert(random.nextInt(typo.length() + 1), ch);
+            } else {
+                typo.setCharAt(random.nextInt(typo.length()), ch);
+            }
+            if (!dictionary.contains(typo.toString())){
+                nonWords.add(typo.toString());
+            }
+        }
+
+        for (int bits : BITS){
+            CountedTrie trie = new CountedTrie();
+            BloomRoots bloom = new BloomRoots(trie, bits);
+            bloom.addAll(new ArrayList<>(words));
+            int lost = 0;
+            for (String word : words){
+                lost += bloom.checkWord(word) ? 0 : 1;
+            }
+            expect(bits + " bits per word: every word is taken", lost == 0);
+            trie.lookups.reset();
+            int taken = 0;
+            for (String word : nonWords){
+                taken += bloom.checkWord(word) ? 1 : 0;
+            }
+            int hashes = Math.max(1, (int) Math.round(bits * Math.log(2)));
+            double expected = Math.pow(1 - Math.exp(-(double) hashes / bits), hashes);
+            double rate = (double) trie.lookups.sum() / NON_WORDS;
+            System.out.println(bits + " bits per word, " + hashes + " hashes: " + String.format("%.4f", rate)
+                    + " of the non-words got through, " + String.format("%.4f", expected) + " expected.");
+            expect(bits + " bits per word: every non-word is turned down", taken == 0);
+            expect(bits + " bits per word: no more than half again as many non-words get through as expected",
+                    rate <= expected * 1.5);
+            expect(bits + " bits per word: the filter does stop non-words", rate < 1);
+        }
+
+        BloomRoots bloom = new BloomRoots(new ConcurrentTrie(), 10);
+        List<String> first = words.subList(0, words.size() / 4);
+        List<String> middle = words.subList(words.size() / 4, words.size() / 2);
+        List<String> rest = words.subList(words.size() / 2, words.size());
+        for (String word : first){
+            bloom.add(word);
+        }
+        bloom.addAll(new ArrayList<>(middle));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++){
+            int from = rest.size() * t / THREADS;
+            int to = rest.size() * (t + 1) / THREADS;
+            Thread thread = new Thread(() -> {
+                for (String word : rest.subList(from, to)){
+                    bloom.add(word);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        int lostEarly = 0;
+        for (int pass = 0; pass < 3; pass++){
+            for (String word : first){
+                lostEarly += bloom.checkWord(word) ? 0 : 1;
+            }
+        }
+        for (Thread thread : threads){
+            thread.join();
+        }
+        int lost = 0;
+        for (String word : words){
+            lost += bloom.checkWord(word) ? 0 : 1;
+        }
+        expect("words added before and after addAll, from " + THREADS + " threads at once, are all taken",
+                lost == 0 && lostEarly == 0);
+
+        Trie plain = new Trie();
+        boolean turnedDown = false;
+        try {
+            new BloomRoots(plain, 0);
+        } catch (IllegalArgumentException e) {
+            turnedDown = true;
+        }
+        expect("wrap with 0 bits gives back the structure, and the constructor turns down 0 bits",
+                BloomRoots.wrap(plain, 0) == plain && turnedDown);
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All Bloom filter checks passed.");
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Checks the bounded edit distance walks of Trie and Tree against measuring every word in the dictionary.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BoundedSuggestCheck {
+    /** The misspellings are dictionary words with one to three random edits, a few that are nothing like any word,
+     * and a few words that are spelled right. For each one every dictionary word is measured with
+     * EditDistance.between, and suggest(word, maxDistance) has to give the closest word within the bound, the first
+     * alphabetically among those just as close, or null if none is that close, for bounds 0 to 3.
+     *
+     * suggestByDistance, which suggest(word) falls back to when there is no prefix or child word to give, has to give
+     * the closest word within two edits, or failing that within the word's length. suggest(word) itself has to give
+     * back a dictionary word for every misspelling that has any letters.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes BoundedSuggestCheck
+     **/
+
+    private static final int TYPOS = 400;
+    private static final int MAX_BOUND = 3;
+    private static final String[] FAR = {"xyzzyq", "qqqqqqqqqq", "zzz", "a", "bcdfghjklm", "pneumonoultramicroscopic"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = new ArrayList<>(new TreeSet<>(DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8))));
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+        for (String far : FAR){
+            misspellings.add(far);
+        }
+        for (int i = 0; i < 20; i++){
+            misspellings.add(words.get(random.nextInt(words.size())));
+        }
+
+        Map<String, Roots> structures = new LinkedHashMap<>();
+        structures.put("trie", new Trie());
+        structures.put("tree", new Tree());
+        for (Roots roots : structures.values()){
+            roots.addAll(new ArrayList<>(words));
+        }
+
+        int[] boundWrong = new int[structures.size()];
+        int[] fallbackWrong = new int[structures.size()];
+        int[] notWords = new int[structures.size()];
+        for (String misspelling : misspellings){
+            //The words are in alphabetical order, so the first one at a distance is the one a tie goes to.
+            int[] distances = new int[words.size()];
+            for (int j = 0; j < words.size(); j++){
+                distances[j] = EditDistance.between(misspelling, words.get(j));
+            }
+            String[] expected = new String[MAX_BOUND + 1];
+            for (int bound = 0; bound <= MAX_BOUND; bound++){
+                expected[bound] = closest(words, distances, bound);
+            }
+            String near = closest(words, distances, Math.min(misspelling.length(), EditDistance.TYPO_DISTANCE));
+            String fallback = near != null ? near : closest(words, distances, misspelling.length());
+
+            int s = 0;
+            for (Map.Entry<String, Roots> structure : structures.entrySet()){
+                Roots roots = structure.getValue();
+                for (int bound = 0; bound <= MAX_BOUND; bound++){
+                    String got = roots.suggest(misspelling, bound);
+                    if (got == null ? expected[bound] != null : !got.equals(expected[bound])){
+                        if (boundWrong[s]++ < 3){
+                            System.out.println("  " + structure.getKey() + " " + misspelling + " within " + bound
+                                    + ": " + got + " but expected " + expected[bound]);
+                        }
+                    }
+                }
+                String got = roots.suggestByDistance(misspelling);
+                if (fallback == null ? !got.equals(misspelling) : !got.equals(fallback)){
+                    if (fallbackWrong[s]++ < 3){
+                        System.out.println("  " + structure.getKey() + " " + misspelling + ": " + got
+                                + " but expected " + fallback);
+                    }
+                }
+                if (!roots.checkWord(roots.suggest(misspelling))){
+                    notWords[s]++;
+                }
+                s++;
+            }
+        }
+
+        int s = 0;
+        for (String name : structures.keySet()){
+            expect(name + " suggest(word, maxDistance) matches brute force for bounds 0 to " + MAX_BOUND + " ("
+                    + misspellings.size() + " words)", boundWrong[s] == 0);
+            expect(name + " suggestByDistance matches brute force", fallbackWrong[s] == 0);
+            expect(name + " suggest always gives a dictionary word", notWords[s] == 0);
+            s++;
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All bounded suggest checks passed.");
+    }
+
+    /***
+     * The closest word within bound, the first one alphabetically among those as close, or null.
+     */
+    private static String closest(List<String> words, int[] distances, int bound){
+        int best = -1;
+        for (int j = 0; j < words.size(); j++){
+            if (distances[j] <= bound && (best < 0 || distances[j] < distances[best])){
+                best = j;
+            }
+        }
+        return best < 0 ? null : words.get(best);
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Checks that suggest(word, budget) gives the closest word when it has time, and something sensible when it has not.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class BudgetCheck {
+    /** Every backend that can be picked with storage= is built from english.0. The misspellings are dictionary words
+     * with one to three random edits, and long words with four or five, which have to be widened well past two edits
+     * and take the longest.
+     *
+     * With an hour to spare, suggest(word, budget) has to be exact and give the same word as suggest(word,
+     * word.length()), or the word itself if that found nothing. With no time, 100 us and 1 ms it has to come back
+     * within the budget plus SLACK_MS, not counting garbage collection pauses, and an answer marked exact has to be
+     * that same word. One that is not exact has to be the word itself, or a dictionary word exactly as far away as
+     * the closest one, since every smaller distance was searched in full before the walk it came from started. The
+     * BK-tree measures with transpositions, so it is held to its own measure. With no time at all some answers have
+     * to come back not exact, or the budget was never looked at. Some answers out of time have to be a word found
+     * part way through a walk, or the walks themselves never look at the clock. SymSpell is left out of that one:
+     * its lookups for a distance are over in far less time than these budgets.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes BudgetCheck
+     **/
+
+    private static final int TYPOS = 100;
+    private static final int LONG_TYPOS = 30;
+    private static final long[] BUDGETS_MICROS = {0, 100, 1000};
+    private static final long SLACK_MS = 100;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+        while (misspellings.size() < TYPOS + LONG_TYPOS){
+            String word = words.get(random.nextInt(words.size()));
+            if (word.length() < 10){
+                continue;
+            }
+            for (int edits = 4 + random.nextInt(2); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+
+        Map<String, Supplier<Roots>> backends = new LinkedHashMap<>();
+        backends.put("trie", Trie::new);
+        backends.put("tree", Tree::new);
+        backends.put("symspell", SymSpell::new);
+        backends.put("bktree", BKTree::new);
+        backends.put("datrie", DoubleArrayTrie::new);
+        backends.put("dawg", Dawg::new);
+        backends.put("concurrent", ConcurrentTrie::new);
+        for (Map.Entry<String, Supplier<Roots>> backend : backends.entrySet()){
+            String name = backend.getKey();
+            Roots roots = backend.getValue().get();
+            roots.addAll(new ArrayList<>(words));
+            boolean damerau = name.compareTo("bktree") == 0;
+            List<String> full = new ArrayList<>();
+            for (String word : misspellings){
+                String closest = roots.suggest(word, word.length());
+                full.add(closest != null ? closest : word);
+            }
+
+            int wrong = 0;
+            for (int i = 0; i < misspellings.size(); i++){
+                Suggestion suggestion = roots.suggest(misspellings.get(i), Duration.ofHours(1));
+                if (!suggestion.exact || !suggestion.word.equals(full.get(i))){
+                    if (wrong++ < 3){
+                        System.out.println("  " + name + ": " + misspellings.get(i) + " gave " + suggestion
+                                + " but expected " + full.get(i));
+                    }
+                }
+            }
+            expect(name + ": with time to spare the answer is exact and the closest word", wrong == 0);
+
+            int partWay = 0;
+            for (long micros : BUDGETS_MICROS){
+                Duration budget = Duration.ofNanos(micros * 1000);
+                int bad = 0;
+                int degraded = 0;
+                long overshoot = 0;
+                for (int i = 0; i < misspellings.size(); i++){
+                    String word = misspellings.get(i);
+                    long paused = collectionMillis();
+                    long start = System.nanoTime();
+                    Suggestion suggestion = roots.suggest(word, budget);
+                    long took = System.nanoTime() - start - (collectionMillis() - paused) * 1000000;
+                    overshoot = Math.max(overshoot, took - budget.toNanos());
+                    if (suggestion.exact){
+                        bad += suggestion.word.equals(full.get(i)) ? 0 : 1;
+                    } else {
+                        degraded++;
+                        partWay += suggestion.word.equals(word) ? 0 : 1;
+                        boolean fine = suggestion.word.equals(word) || (roots.checkWord(suggestion.word)
+                                && distance(word, suggestion.word, damerau) == distance(word, full.get(i), damerau));
+                        bad += fine ? 0 : 1;
+                    }
+                }
+                System.out.println(name + ", " + micros + " us: " + degraded + " of " + misspellings.size()
+                        + " out of time, at most " + overshoot / 1000 + " us over.");
+                expect(name + ", " + micros + " us: exact answers are the closest word, the rest are as close or "
+                        + "the word itself", bad == 0);
+                expect(name + ", " + micros + " us: every answer comes back within the budget and " + SLACK_MS
+                        + " ms", overshoot < SLACK_MS * 1000000);
+                if (micros == 0){
+                    expect(name + ", no time: some answers are out of time", degraded > 0);
+                }
+            }
+            System.out.println(name + ": " + partWay + " answers out of time with a word found part way.");
+            if (name.compareTo("symspell") != 0){
+                expect(name + ": some walks are cut short part way and keep the word they found", partWay > 0);
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All budget checks passed.");
+    }
+
+    /***
+     * How long the garbage collectors have stopped the program for so far. A collection can stop any suggest for far
+     * longer than its budget, so that time is not held against it.
+     */
+    private static long collectionMillis(){
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            millis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    private static int distance(String a, String b, boolean damerau){
+        return damerau ? EditDistance.damerau(a, b) : EditDistance.between(a, b);
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
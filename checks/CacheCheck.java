@@ -0,0 +1,213 @@
+/*
+ * Checks that CachingRoots answers like the structure it wraps, stays within its size, and never keeps a stale answer.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheCheck {
+    /** The cache is put in front of a Trie that counts how often it is asked, so a hit can be told from a miss.
+     *
+     * A long skewed run of words and misspellings has to get the same answers through the cache as from the Trie. A
+     * cache of 50 asked for 400 misspellings twice can answer at most 50 of them the second time. A few misspellings
+     * that keep coming back have to stay in while a run of one-off misspellings goes past. A word checkWord turned
+     * down is turned down again without asking the Trie, through the CharSequence range too.
+     *
+     * Adding words has to clear both caches. A suggest or check that is held inside the Trie while a word is added
+     * must not put its answer in the cache afterwards, or the next call would get the answer from before the add.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes CacheCheck
+     **/
+
+    private static final int CAPACITY = 50;
+    private static final int QUERIES = 20000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        CountedTrie trie = new CountedTrie();
+        trie.addAll(new ArrayList<>(words));
+        CachingRoots cache = new CachingRoots(trie, CAPACITY);
+
+        List<String> picks = new ArrayList<>();
+        for (int i = 0; i < 300; i++){
+            picks.add(i % 3 == 0 ? words.get(random.nextInt(words.size())) : typo(words, random));
+        }
+        int wrong = 0;
+        for (int i = 0; i < QUERIES; i++){
+            //Squaring makes the first picks come up far more often than the last ones.
+            double skew = random.nextDouble();
+            String word = picks.get((int) (skew * skew * picks.size()));
+            boolean correct = trie.checkWord(word);
+            if (cache.checkWord(word) != correct){
+                wrong++;
+            } else if (!correct && cache.suggest(word).compareTo(trie.suggest(word)) != 0){
+                wrong++;
+            }
+        }
+        expect("a skewed run gets the same answers through the cache as from the Trie", wrong == 0);
+
+        cache = new CachingRoots(trie, CAPACITY);
+        Set<String> distinct = new HashSet<>();
+        while (distinct.size() < 8 * CAPACITY){
+            distinct.add(typo(words, random));
+        }
+        for (String word : distinct){
+            cache.suggest(word);
+        }
+        trie.suggests.set(0);
+        for (String word : distinct){
+            cache.suggest(word);
+        }
+        expect("a cache of " + CAPACITY + " answers at most " + CAPACITY + " of " + distinct.size()
+                + " misspellings from memory", trie.suggests.get() >= distinct.size() - CAPACITY);
+
+        cache = new CachingRoots(trie, CAPACITY);
+        List<String> hot = new ArrayList<>();
+        for (int i = 0; i < CAPACITY / 5; i++){
+            hot.add(typo(words, random));
+        }
+        for (int round = 0; round < 20; round++){
+            for (String word : hot){
+                cache.suggest(word);
+            }
+        }
+        for (int i = 0; i < 20 * CAPACITY; i++){
+            cache.suggest(typo(words, random));
+        }
+        trie.suggests.set(0);
+        for (String word : hot){
+            cache.suggest(word);
+        }
+        expect("misspellings that keep coming back stay in past a run of one-off misspellings",
+                trie.suggests.get() == 0);
+
+        String miss = typo(words, random);
+        cache.checkWord(miss);
+        trie.checks.set(0);
+        StringBuilder line = new StringBuilder("  ").append(miss).append("!");
+        boolean turnedDown = !cache.checkWord(miss) && !cache.checkWord(line, 2, 2 + miss.length());
+        expect("a known misspelling is turned down without asking the Trie", turnedDown && trie.checks.get() == 0);
+        expect("a word next to a known misspelling is still asked about", cache.checkWord(line, 2, 3)
+                == trie.checkWord(miss.substring(0, 1)) && trie.checks.get() > 0);
+
+        cache = new CachingRoots(trie, CAPACITY);
+        cache.checkWord(miss);
+        cache.suggest(miss + "x");
+        trie.suggests.set(0);
+        cache.suggest(miss + "x");
+        expect("a suggestion is kept", trie.suggests.get() == 0);
+        cache.add(miss);
+        expect("adding a misspelling makes it a word through the cache", cache.checkWord(miss));
+        String suggestion = cache.suggest(miss + "x");
+        expect("adding words clears the suggestions", trie.suggests.get() == 1
+                && suggestion.compareTo(trie.suggest(miss + "x")) == 0);
+
+        String held = typo(words, random);
+        CachingRoots raced = new CachingRoots(trie, CAPACITY);
+        trie.hold(held);
+        Thread suggest = new Thread(() -> raced.suggest(held));
+        suggest.start();
+        expect("the suggest for \"" + held + "\" started", trie.entered.await(10, TimeUnit.SECONDS));
+        raced.add(held.substring(1));
+        trie.release.countDown();
+        suggest.join();
+        trie.suggests.set(0);
+        raced.suggest(held);
+        expect("a suggest that was running when words were added is not kept", trie.suggests.get() == 1);
+
+        String checked = typo(words, random);
+        trie.hold(checked);
+        Thread check = new Thread(() -> raced.checkWord(checked));
+        check.start();
+        expect("the check for \"" + checked + "\" started", trie.entered.await(10, TimeUnit.SECONDS));
+        raced.add(checked);
+        trie.release.countDown();
+        check.join();
+        expect("a miss that was running when the word was added is not kept", raced.checkWord(checked));
+
+        expect("a cache of 0 is no cache", CachingRoots.wrap(trie, 0) == trie);
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All cache checks passed.");
+    }
+
+    /***
+     * A Trie that counts checks and suggests, and can hold one word inside the structure until it is let go.
+     */
+    private static class CountedTrie extends Trie {
+        final AtomicInteger checks = new AtomicInteger();
+        final AtomicInteger suggests = new AtomicInteger();
+        volatile String holding;
+        volatile CountDownLatch entered;
+        volatile CountDownLatch release;
+
+        void hold(String word){
+            entered = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+            holding = word;
+        }
+
+        @Override
+        public boolean checkWord(CharSequence word, int from, int to){
+            checks.incrementAndGet();
+            boolean found = super.checkWord(word, from, to);
+            pause(word.subSequence(from, to).toString());
+            return found;
+        }
+
+        @Override
+        public String suggest(String word){
+            suggests.incrementAndGet();
+            String suggestion = super.suggest(word);
+            pause(word);
+            return suggestion;
+        }
+
+        /***
+         * Holds the caller after it has its answer, so words added now come too late for it.
+         */
+        private void pause(String word){
+            if (holding != null && word.compareTo(holding) == 0){
+                holding = null;
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /***
+     * A dictionary word with a random char put in, which is almost never a word.
+     */
+    private static String typo(List<String> words, Random random){
+        StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+        typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
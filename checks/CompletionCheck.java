@@ -0,0 +1,148 @@
+/*
+ * Checks the ranked completions of Trie and Tree against a brute force filter and sort of the whole dictionary.
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+public class CompletionCheck {
+    /** Each structure is ranked for k = 8 and then asked for 3,000 random prefixes of dictionary words with a random
+     * k up to 8. Every tenth prefix has a "q" added, so most of those have no completions. The answer has to be the
+     * words that start with the prefix, sorted by count, then length, then alphabetically, cut to k. This is done with
+     * random counts, which often tie, and with no counts. The decorators have to pass completions through, and words
+     * added after ranking have to show up once it is ranked again.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes CompletionCheck
+     **/
+
+    private static final int RANKED = 8;
+    private static final int PREFIXES = 3000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        TreeSet<String> dictionary = new TreeSet<>(DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8)));
+        List<String> words = new ArrayList<>(dictionary);
+        Random random = new Random(245);
+
+        Map<String, WordFrequencies> counts = new LinkedHashMap<>();
+        counts.put("no counts", WordFrequencies.NONE);
+        counts.put("random counts", randomCounts(words, random));
+
+        Map<String, Supplier<Roots>> structures = new LinkedHashMap<>();
+        structures.put("trie", Trie::new);
+        structures.put("tree", Tree::new);
+        structures.put("cached bloom trie", () -> new CachingRoots(new BloomRoots(new Trie(), 10), 1000));
+
+        String[] prefixes = new String[PREFIXES];
+        int[] ks = new int[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++){
+            String word = words.get(random.nextInt(words.size()));
+            prefixes[i] = word.substring(0, random.nextInt(word.length() + 1)) + (i % 10 == 0 ? "q" : "");
+            ks[i] = 1 + random.nextInt(RANKED);
+        }
+
+        for (Map.Entry<String, WordFrequencies> frequencies : counts.entrySet()){
+            Comparator<String> rank = Comparator.comparingLong((String word) -> frequencies.getValue().count(word))
+                    .reversed().thenComparingInt(String::length).thenComparing(Comparator.naturalOrder());
+            //Short prefixes come up many times, and each one sorts a big part of the dictionary.
+            Map<String, List<String>> sorted = new HashMap<>();
+            List<List<String>> expected = new ArrayList<>();
+            for (int i = 0; i < PREFIXES; i++){
+                List<String> matches = sorted.computeIfAbsent(prefixes[i], prefix -> bruteForce(dictionary, prefix,
+                        rank));
+                expected.add(matches.subList(0, Math.min(ks[i], matches.size())));
+            }
+            for (Map.Entry<String, Supplier<Roots>> structure : structures.entrySet()){
+                Roots roots = structure.getValue().get();
+                roots.addAll(new ArrayList<>(words));
+                roots.rankCompletions(frequencies.getValue(), RANKED);
+                int wrong = 0;
+                for (int i = 0; i < PREFIXES; i++){
+                    List<String> got = roots.complete(prefixes[i], ks[i]);
+                    if (!got.equals(expected.get(i))){
+                        if (wrong++ < 3){
+                            System.out.println("  \"" + prefixes[i] + "\" k=" + ks[i] + ": " + got
+                                    + " but expected " + expected.get(i));
+                        }
+                    }
+                }
+                expect(structure.getKey() + " completions match brute force, " + frequencies.getKey(), wrong == 0);
+
+                List<String> added = List.of("zzzq", "zzzqa", "zzzqab");
+                for (String word : added){
+                    roots.add(word);
+                }
+                roots.rankCompletions(frequencies.getValue(), RANKED);
+                expect(structure.getKey() + " completes words added before ranking again, " + frequencies.getKey(),
+                        roots.complete("zzzq", RANKED).equals(added));
+            }
+        }
+
+        expect("structures that cannot complete give no completions", emptyCompletions(new DoubleArrayTrie(), words)
+                && emptyCompletions(new Dawg(), words));
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All completion checks passed.");
+    }
+
+    /***
+     * Sorts every word that starts with prefix, which are the ones from prefix up to prefix followed by the highest
+     * char.
+     */
+    private static List<String> bruteForce(TreeSet<String> dictionary, String prefix, Comparator<String> rank){
+        List<String> matches = new ArrayList<>(dictionary.subSet(prefix, prefix + Character.MAX_VALUE));
+        matches.sort(rank);
+        return matches;
+    }
+
+    private static boolean emptyCompletions(Roots roots, List<String> words){
+        roots.addAll(new ArrayList<>(words));
+        roots.rankCompletions(WordFrequencies.NONE, RANKED);
+        return roots.complete("a", RANKED).isEmpty();
+    }
+
+    /***
+     * Gives a third of the words a count from 0 to 9, so many words with the same prefix tie on count too.
+     */
+    private static WordFrequencies randomCounts(List<String> words, Random random) throws IOException {
+        Path file = Files.createTempFile("counts", ".freq");
+        try {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+                for (String word : words){
+                    if (random.nextInt(3) == 0){
+                        out.println(word + " " + random.nextInt(10));
+                    }
+                }
+            }
+            return WordFrequencies.load(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Checks that ConcurrentTrie gives right answers while words are being added to it from several threads at once.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentTrieCheck {
+    /** Each round starts a ConcurrentTrie with the first half of english.0. Then four threads add the second half at
+     * once, every fourth word each, so neighbouring words that share a prefix go to different threads and they race
+     * to fill the same empty slots. Two more threads check and suggest the whole time. Every word of the first half
+     * has to be found on every check, and a word of the second half that has been found once has to be found from
+     * then on.
+     *
+     * Once the writers are done the trie has to hold every word, turn down the same non-words as a Trie, be the same
+     * size as one built on a single thread, and give the same suggestions. If a slot could be filled twice, the node
+     * that lost would take the words another thread had already put under it, so they would be missing at the end.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes ConcurrentTrieCheck
+     **/
+
+    private static final int ROUNDS = 5;
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        List<String> first = words.subList(0, words.size() / 2);
+        List<String> second = words.subList(words.size() / 2, words.size());
+
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+        ConcurrentTrie single = new ConcurrentTrie();
+        for (String word : words){
+            single.add(word);
+        }
+        Random random = new Random(245);
+        List<String> typos = new ArrayList<>();
+        for (int i = 0; i < 500; i++){
+            typos.add(typo(words.get(random.nextInt(words.size())), random));
+        }
+
+        for (int round = 1; round <= ROUNDS; round++){
+            ConcurrentTrie concurrent = new ConcurrentTrie();
+            concurrent.addAll(new ArrayList<>(first));
+
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicLong checks = new AtomicLong();
+            AtomicLong wrong = new AtomicLong();
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++){
+                int writer = i;
+                writers.add(new Thread(() -> {
+                    await(start);
+                    for (int j = writer; j < second.size(); j += WRITERS){
+                        concurrent.add(second.get(j));
+                    }
+                }));
+            }
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++){
+                Random picks = new Random(-round * READERS - i);
+                readers.add(new Thread(() -> {
+                    boolean[] seen = new boolean[second.size()];
+                    await(start);
+                    try {
+                        while (!stop.get()){
+                            if (!concurrent.checkWord(first.get(picks.nextInt(first.size())))){
+                                wrong.incrementAndGet();
+                            }
+                            int index = picks.nextInt(second.size());
+                            boolean found = concurrent.checkWord(second.get(index));
+                            if (seen[index] && !found){
+                                wrong.incrementAndGet();
+                            }
+                            seen[index] |= found;
+                            concurrent.suggest(second.get(index) + "x", 1);
+                            checks.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        System.out.println("Reader failed: " + e);
+                        wrong.incrementAndGet();
+                    }
+                }));
+            }
+            for (Thread thread : writers){
+                thread.start();
+            }
+            for (Thread thread : readers){
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : writers){
+                thread.join();
+            }
+            stop.set(true);
+            for (Thread thread : readers){
+                thread.join();
+            }
+
+            int missing = 0;
+            for (String word : words){
+                if (!concurrent.checkWord(word)){
+                    missing++;
+                }
+            }
+            int disagree = 0;
+            for (String typo : typos){
+                if (concurrent.checkWord(typo) != trie.checkWord(typo)
+                        || concurrent.suggest(typo).compareTo(single.suggest(typo)) != 0){
+                    disagree++;
+                }
+            }
+            System.out.println("Round " + round + ": " + checks.get() + " checks while adding.");
+            expect("no check saw a word go missing", wrong.get() == 0);
+            expect("every word is there at the end", missing == 0);
+            expect("the same answers as a single threaded build", disagree == 0);
+            expect("the same size as a single threaded build", concurrent.sizeInBytes() == single.sizeInBytes());
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All concurrent trie checks passed.");
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added or changed.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(3);
+        if (edit == 0 && at < word.length()){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void await(CountDownLatch start){
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
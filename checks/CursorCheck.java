@@ -0,0 +1,134 @@
+/*
+ * Checks that a Cursor moved one keystroke at a time answers the same as asking the structure about the whole word.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CursorCheck {
+    /** A Trie and a Tree have cursors of their own, with a Frontier behind suggest(). A DoubleArrayTrie gets a Rescan,
+     * so it shows the contract the others have to keep. Each is typed at the way a person would: a dictionary word
+     * one char at a time with the odd wrong, extra or missing char, a backspace now and then, sometimes a few at
+     * once, and sometimes a jump with moveTo to another word that shares part of the last one.
+     *
+     * After every keystroke length, word and charAt have to be the chars typed, isWord has to be checkWord of them,
+     * and suggest() has to be what suggest gives for them, since the Frontier rows kept from earlier keystrokes must
+     * end up where a new walk would. A new cursor moved straight to the same chars has to give the same suggestion,
+     * and backspacing with nothing typed has to do nothing.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes CursorCheck
+     **/
+
+    private static final int KEYSTROKES = 4000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Map<String, Roots> backends = new LinkedHashMap<>();
+        backends.put("trie", new Trie());
+        backends.put("tree", new Tree());
+        backends.put("datrie", new DoubleArrayTrie());
+        for (Map.Entry<String, Roots> backend : backends.entrySet()){
+            String name = backend.getKey();
+            Roots roots = backend.getValue();
+            roots.addAll(new ArrayList<>(words));
+            Random random = new Random(245);
+            Cursor cursor = roots.cursor();
+            StringBuilder typed = new StringBuilder();
+            String target = words.get(random.nextInt(words.size()));
+            int wrongChars = 0;
+            int wrongWords = 0;
+            int wrongSuggestions = 0;
+            int wrongFresh = 0;
+            for (int i = 0; i < KEYSTROKES; i++){
+                int key = random.nextInt(20);
+                if (key < 2){
+                    for (int back = 1 + random.nextInt(3); back > 0; back--){
+                        cursor.retreat();
+                        typed.setLength(Math.max(typed.length() - 1, 0));
+                    }
+                } else if (key == 2){
+                    String next = words.get(random.nextInt(words.size()));
+                    int keep = Math.min(random.nextInt(typed.length() + 1), next.length());
+                    String jump = typed.substring(0, keep) + next.substring(keep);
+                    cursor.moveTo(jump);
+                    typed.setLength(0);
+                    typed.append(jump);
+                    target = next;
+                } else if (typed.length() >= target.length() && random.nextInt(3) > 0){
+                    //Done with this word, start typing the next one from scratch.
+                    cursor.moveTo("");
+                    typed.setLength(0);
+                    target = words.get(random.nextInt(words.size()));
+                    continue;
+                } else {
+                    char ch = typed.length() < target.length() ? target.charAt(typed.length()) : 'e';
+                    if (key == 3){
+                        ch = Alphabet.charAt(random.nextInt(Alphabet.SIZE));
+                    } else if (key == 4){
+                        cursor.advance(Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+                        typed.append(cursor.charAt(cursor.length() - 1));
+                    }
+                    cursor.advance(ch);
+                    typed.append(ch);
+                }
+
+                String word = typed.toString();
+                boolean same = cursor.length() == word.length() && cursor.word().equals(word);
+                for (int c = 0; same && c < word.length(); c++){
+                    same = cursor.charAt(c) == word.charAt(c);
+                }
+                wrongChars += same ? 0 : 1;
+                wrongWords += cursor.isWord() == roots.checkWord(word) ? 0 : 1;
+                if (word.length() > 0){
+                    String expected = roots.suggest(word);
+                    String got = cursor.suggest();
+                    if (!got.equals(expected)){
+                        if (wrongSuggestions++ < 3){
+                            System.out.println("  " + name + ": " + word + " gave " + got + " but expected "
+                                    + expected);
+                        }
+                    }
+                    if (i % 10 == 0){
+                        Cursor fresh = roots.cursor();
+                        fresh.moveTo(word);
+                        wrongFresh += fresh.suggest().equals(got) ? 0 : 1;
+                    }
+                }
+            }
+            expect(name + ": length, word and charAt are the chars typed", wrongChars == 0);
+            expect(name + ": isWord is checkWord of the chars typed", wrongWords == 0);
+            expect(name + ": suggest() is suggest of the chars typed after every keystroke", wrongSuggestions == 0);
+            expect(name + ": a new cursor moved straight there suggests the same", wrongFresh == 0);
+
+            Cursor empty = roots.cursor();
+            empty.retreat();
+            empty.advance('a');
+            empty.retreat();
+            empty.retreat();
+            expect(name + ": backspacing with nothing typed does nothing", empty.length() == 0
+                    && empty.word().equals(""));
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All cursor checks passed.");
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
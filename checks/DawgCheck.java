@@ -0,0 +1,140 @@
+/*
+ * Checks that the Dawg holds exactly the words a Trie does, gives the same suggestions, and merges its states.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DawgCheck {
+    /** The Dawg merges states, so a bad merge would make it take words that were never added, or lose some. It is
+     * built three times: in one go, in two halves (the second build carries the first half over), and from a shuffled
+     * list with every word in it twice. All three have to agree with a Trie on every prefix of every word, on every
+     * word with a common ending added, and on misspellings. They have to be the same size, and much smaller than the
+     * Trie, or the states were not merged.
+     *
+     * The misspellings are dictionary words with one to three random edits. suggest(word, maxDistance) has to give
+     * the same word as the Trie's walk for bounds 0 to 3, and suggest(word) the same as the Trie's suggestByDistance,
+     * which is what it falls back to.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes DawgCheck
+     **/
+
+    private static final int TYPOS = 500;
+    private static final int MAX_BOUND = 3;
+    private static final String[] ENDINGS = {"s", "'s", "ing", "ed", "er", "ness", "ly"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+        Dawg whole = new Dawg();
+        whole.addAll(new ArrayList<>(words));
+        Dawg halves = new Dawg();
+        halves.addAll(new ArrayList<>(words.subList(0, words.size() / 2)));
+        halves.checkWord("a");
+        halves.addAll(new ArrayList<>(words.subList(words.size() / 2, words.size())));
+        List<String> twice = new ArrayList<>(words);
+        twice.addAll(words);
+        Collections.shuffle(twice, random);
+        Dawg shuffled = new Dawg();
+        shuffled.addAll(twice);
+
+        List<String> probes = new ArrayList<>(misspellings);
+        for (String word : words){
+            for (int end = 1; end <= word.length(); end++){
+                probes.add(word.substring(0, end));
+            }
+            for (String ending : ENDINGS){
+                probes.add(word + ending);
+            }
+        }
+        int wholeWrong = 0;
+        int halvesWrong = 0;
+        int shuffledWrong = 0;
+        for (String probe : probes){
+            boolean expected = trie.checkWord(probe);
+            wholeWrong += whole.checkWord(probe) != expected ? 1 : 0;
+            halvesWrong += halves.checkWord(probe) != expected ? 1 : 0;
+            shuffledWrong += shuffled.checkWord(probe) != expected ? 1 : 0;
+        }
+        System.out.println("Dawg " + whole.sizeInBytes() / 1024 + " KB, Trie " + trie.sizeInBytes() / 1024 + " KB, "
+                + probes.size() + " strings looked up.");
+        expect("a Dawg built in one go takes the same words as a Trie", wholeWrong == 0);
+        expect("a Dawg built in two halves takes the same words as a Trie", halvesWrong == 0);
+        expect("a Dawg built from every word twice, shuffled, takes the same words as a Trie", shuffledWrong == 0);
+        expect("all three Dawgs are the same size", whole.sizeInBytes() == halves.sizeInBytes()
+                && whole.sizeInBytes() == shuffled.sizeInBytes());
+        expect("the Dawg is under a quarter the size of the Trie", whole.sizeInBytes() * 4 < trie.sizeInBytes());
+
+        int boundWrong = 0;
+        int suggestWrong = 0;
+        for (String word : misspellings){
+            for (int bound = 0; bound <= MAX_BOUND; bound++){
+                String expected = trie.suggest(word, bound);
+                String got = whole.suggest(word, bound);
+                if (got == null ? expected != null : !got.equals(expected)){
+                    if (boundWrong++ < 3){
+                        System.out.println("  " + word + " within " + bound + ": " + got + " but expected "
+                                + expected);
+                    }
+                }
+            }
+            suggestWrong += !whole.suggest(word).equals(trie.suggestByDistance(word)) ? 1 : 0;
+        }
+        expect("suggest(word, maxDistance) gives the same word as the Trie for bounds 0 to " + MAX_BOUND,
+                boundWrong == 0);
+        expect("suggest(word) gives the same word as the Trie's suggestByDistance", suggestWrong == 0);
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All Dawg checks passed.");
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
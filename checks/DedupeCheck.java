@@ -0,0 +1,186 @@
+/*
+ * Checks that CS245A1 gives the same answers with --dedupe and --report as a plain run.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+public class DedupeCheck {
+    /** The checker is run in its own JVM, in a new directory with english.0 and an a1properties.txt that picks the
+     * Trie, on an input where the same words come up many times: dictionary words and misspellings in mixed case,
+     * with punctuation and lines that have no letters at all. --dedupe, with and without --threads, has to write the
+     * very same output file as a plain run.
+     *
+     * --report has to list each distinct misspelling once, with how many times it came up and the suggestion the
+     * plain run gave for it, most common first and alphabetically among the same count.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes DedupeCheck
+     **/
+
+    private static final int LINES = 20000;
+    private static final int DISTINCT_WORDS = 300;
+    private static final int DISTINCT_TYPOS = 150;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Trie dictionary = new Trie();
+        dictionary.addAll(new ArrayList<>(words));
+
+        Path directory = Files.createTempDirectory("dedupe");
+        try {
+            Files.copy(Path.of(DictionaryLoader.LOCAL_DICTIONARY),
+                    directory.resolve(DictionaryLoader.LOCAL_DICTIONARY), StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(directory.resolve("a1properties.txt"), "storage=trie\n");
+            writeInput(directory.resolve("input.txt"), words, new Random(245));
+
+            List<String> plain = run(directory, "plain.txt");
+            List<String> dedupe = run(directory, "dedupe.txt", "--dedupe");
+            List<String> threads = run(directory, "threads.txt", "--dedupe", "--threads", "3");
+            List<String> report = run(directory, "report.txt", "--report");
+
+            List<String> tokens = tokens(directory.resolve("input.txt"));
+            System.out.println(tokens.size() + " words, " + plain.size() + " lines in the plain output.");
+            expect("the plain run answers every word", plain.size() == tokens.size());
+            expect("--dedupe writes the same output as a plain run", dedupe.equals(plain));
+            expect("--dedupe --threads 3 writes the same output as a plain run", threads.equals(plain));
+            expect("--report lists each misspelling with its count and the plain run's suggestion",
+                    report.equals(expectedReport(tokens, plain, dictionary)));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All dedupe checks passed.");
+    }
+
+    /***
+     * Runs the checker on input.txt in directory and reads back the output file.
+     */
+    private static List<String> run(Path directory, String output, String... flags)
+            throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        //The class path is usually relative, and the checker runs in another directory.
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            if (classPath.length() > 0){
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        List<String> command = new ArrayList<>(List.of(java, "-cp", classPath.toString(), "CS245A1", "input.txt",
+                output));
+        command.addAll(List.of(flags));
+        File log = directory.resolve(output + ".log").toFile();
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true)
+                .redirectOutput(log).start();
+        if (process.waitFor() != 0){
+            System.out.println(String.join(" ", flags) + " run failed:");
+            System.out.println(Files.readString(log.toPath()));
+            System.exit(1);
+        }
+        return Files.readAllLines(directory.resolve(output), StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Writes LINES lines picked from a few hundred dictionary words and misspellings, some capitalized or with
+     * punctuation around them, and now and then a line with no letters.
+     */
+    private static void writeInput(Path input, List<String> words, Random random) throws IOException {
+        List<String> picks = new ArrayList<>();
+        for (int i = 0; i < DISTINCT_WORDS; i++){
+            picks.add(words.get(random.nextInt(words.size())));
+        }
+        for (int i = 0; i < DISTINCT_TYPOS; i++){
+            StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+            typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+            picks.add(typo.toString());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(input))) {
+            for (int i = 0; i < LINES; i++){
+                //Squaring makes the first picks come up far more often than the last ones.
+                double skew = random.nextDouble();
+                String word = picks.get((int) (skew * skew * picks.size()));
+                switch (random.nextInt(8)){
+                    case 0:
+                        out.println(word.toUpperCase());
+                        break;
+                    case 1:
+                        out.println(Character.toUpperCase(word.charAt(0)) + word.substring(1) + ".");
+                        break;
+                    case 2:
+                        out.println(i % 5 == 0 ? "1234" : "\"" + word + "\",");
+                        break;
+                    default:
+                        out.println(word);
+                }
+            }
+        }
+    }
+
+    /***
+     * The words of the input the way the checker reads them.
+     */
+    private static List<String> tokens(Path input) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(input)) {
+            WordTokenizer words = new WordTokenizer(reader);
+            while (words.next()){
+                tokens.add(words.toString());
+            }
+        }
+        return tokens;
+    }
+
+    /***
+     * Counts each misspelled word and pairs it with the plain run's answer on its line.
+     */
+    private static List<String> expectedReport(List<String> tokens, List<String> plain, Roots dictionary){
+        Map<String, Integer> counts = new TreeMap<>();
+        Map<String, String> suggestions = new TreeMap<>();
+        for (int i = 0; i < tokens.size() && i < plain.size(); i++){
+            String word = tokens.get(i);
+            if (!dictionary.checkWord(word)){
+                counts.merge(word, 1, Integer::sum);
+                suggestions.put(word, plain.get(i));
+            }
+        }
+        List<String> misspelled = new ArrayList<>(counts.keySet());
+        misspelled.sort(Comparator.comparing((String word) -> counts.get(word), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+        List<String> report = new ArrayList<>();
+        for (String word : misspelled){
+            report.add(counts.get(word) + "\t" + word + "\t" + suggestions.get(word));
+        }
+        return report;
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
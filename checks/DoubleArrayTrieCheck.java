@@ -0,0 +1,140 @@
+/*
+ * Checks that the Double-Array Trie takes the same words and gives the same suggestions as a Trie.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DoubleArrayTrieCheck {
+    /** One Double-Array Trie is given english.0 in a shuffled order, and another is given half of it, queried, which
+     * builds its arrays, and then given the other half, so it has to build them again with the first half carried
+     * over. Both have to agree with a Trie on every prefix of every word and on every word with a random char added,
+     * and each word has to be found in the middle of a longer line too.
+     *
+     * The misspellings are dictionary words with one to three random edits. suggest(word, maxDistance) has to give
+     * the same word as the Trie's walk for bounds 0 to 3, and suggest(word) the same as the Trie's suggestByDistance,
+     * which is what it falls back to. A word with a char outside the Alphabet has to be turned down, and the arrays
+     * have to take less room than the Trie's nodes.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes DoubleArrayTrieCheck
+     **/
+
+    private static final int TYPOS = 500;
+    private static final int MAX_BOUND = 3;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, random);
+        DoubleArrayTrie whole = new DoubleArrayTrie();
+        whole.addAll(shuffled);
+        DoubleArrayTrie halves = new DoubleArrayTrie();
+        halves.addAll(new ArrayList<>(words.subList(0, words.size() / 2)));
+        halves.checkWord("a");
+        halves.addAll(new ArrayList<>(words.subList(words.size() / 2, words.size())));
+
+        int wholeWrong = 0;
+        int halvesWrong = 0;
+        int lookups = 0;
+        for (String word : words){
+            List<String> probes = new ArrayList<>();
+            for (int end = 1; end <= word.length(); end++){
+                probes.add(word.substring(0, end));
+            }
+            probes.add(word + Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+            for (String probe : probes){
+                boolean expected = trie.checkWord(probe);
+                wholeWrong += whole.checkWord(probe) != expected ? 1 : 0;
+                halvesWrong += halves.checkWord(probe) != expected ? 1 : 0;
+                lookups++;
+            }
+            StringBuilder line = new StringBuilder("x ").append(word).append(" y");
+            wholeWrong += !whole.checkWord(line, 2, 2 + word.length()) ? 1 : 0;
+        }
+        System.out.println(lookups + " strings looked up.");
+        expect("a Double-Array Trie built from shuffled words takes the same words as a Trie", wholeWrong == 0);
+        expect("a Double-Array Trie built again after more words takes the same words as a Trie", halvesWrong == 0);
+
+        int boundWrong = 0;
+        int suggestWrong = 0;
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            for (int bound = 0; bound <= MAX_BOUND; bound++){
+                String expected = trie.suggest(word, bound);
+                String got = whole.suggest(word, bound);
+                if (got == null ? expected != null : !got.equals(expected)){
+                    if (boundWrong++ < 3){
+                        System.out.println("  " + word + " within " + bound + ": " + got + " but expected "
+                                + expected);
+                    }
+                }
+            }
+            suggestWrong += !whole.suggest(word).equals(trie.suggestByDistance(word)) ? 1 : 0;
+        }
+        expect("suggest(word, maxDistance) gives the same word as the Trie for bounds 0 to " + MAX_BOUND,
+                boundWrong == 0);
+        expect("suggest(word) gives the same word as the Trie's suggestByDistance", suggestWrong == 0);
+
+        boolean rejected;
+        try {
+            whole.add("café");
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        expect("a word with a char outside the Alphabet is turned down", rejected && !whole.checkWord("caf"));
+
+        System.out.println("Double-Array Trie " + whole.sizeInBytes() / 1024 + " KB, Trie " + trie.sizeInBytes() / 1024
+                + " KB.");
+        expect("the arrays take less room than the Trie", whole.sizeInBytes() < trie.sizeInBytes());
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All Double-Array Trie checks passed.");
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Checks that every storage= value takes the same words and gives the same suggestions on english.0.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class EquivalenceCheck {
+    /** Every backend CS245A1 can pick with storage= is built from english.0 in this JVM, and mapped is written out
+     * from the datrie and mapped back. They have to agree with the Trie on checkWord for every word, every word with
+     * a char added and a random prefix of every word.
+     *
+     * The misspellings are dictionary words with one to three random edits. suggest(word, maxDistance) has to give
+     * the Trie's word for bounds 0 to 3 on every backend, with two known differences: SymSpell cannot see past two
+     * edits, so it is held to the Trie's answer within two, and the BK-tree measures with transpositions, so where it
+     * picks another word that word has to be closer once transpositions count, which only happens when the two
+     * measures disagree on it. suggest(word) on datrie, dawg, concurrent, mapped and bktree has to be the Trie's
+     * suggestByDistance, with the same allowance for the BK-tree, and SymSpell has to give the same whenever that is
+     * within two edits and the word itself when not. Trie and Tree take their own prefix and child shortcuts in
+     * suggest(word), so for them it is their suggestByDistance that has to match.
+     *
+     * Then the checker itself is run once for every storage= value, in its own JVM, on the misspellings mixed with
+     * dictionary words. Each output has to be what that backend answers in this JVM, and datrie, dawg, concurrent
+     * and mapped have to write the very same file.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes EquivalenceCheck
+     **/
+
+    private static final int TYPOS = 300;
+    private static final int WORDS = 200;
+    private static final int MAX_BOUND = 3;
+    private static final String[] STORAGES = {"trie", "tree", "symspell", "bktree", "datrie", "dawg", "concurrent",
+            "mapped"};
+    private static final String[] BY_DISTANCE = {"datrie", "dawg", "concurrent", "mapped"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        List<String> probes = new ArrayList<>();
+        for (String word : words){
+            probes.add(word);
+            probes.add(word + Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+            probes.add(word.substring(0, 1 + random.nextInt(word.length())));
+        }
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+
+        Path directory = Files.createTempDirectory("equivalence");
+        try {
+            Map<String, Roots> backends = new LinkedHashMap<>();
+            backends.put("trie", new Trie());
+            backends.put("tree", new Tree());
+            backends.put("symspell", new SymSpell());
+            backends.put("bktree", new BKTree());
+            backends.put("datrie", new DoubleArrayTrie());
+            backends.put("dawg", new Dawg());
+            backends.put("concurrent", new ConcurrentTrie());
+            for (Roots roots : backends.values()){
+                roots.addAll(new ArrayList<>(words));
+            }
+            Path snapshot = directory.resolve("english.0.dat");
+            byte[] hash = DictionaryLoader.hashDictionary(null);
+            ((DoubleArrayTrie) backends.get("datrie")).writeSnapshot(snapshot, hash, null);
+            backends.put("mapped", DoubleArrayTrie.mapSnapshot(snapshot, hash, null));
+            Roots trie = backends.get("trie");
+
+            for (Map.Entry<String, Roots> backend : backends.entrySet()){
+                int wrong = 0;
+                for (String probe : probes){
+                    wrong += backend.getValue().checkWord(probe) != trie.checkWord(probe) ? 1 : 0;
+                }
+                expect(backend.getKey() + " takes the same words as the Trie", wrong == 0);
+            }
+
+            Map<String, String> byDistance = new LinkedHashMap<>();
+            for (String word : misspellings){
+                byDistance.put(word, trie.suggestByDistance(word));
+            }
+            for (Map.Entry<String, Roots> backend : backends.entrySet()){
+                String name = backend.getKey();
+                Roots roots = backend.getValue();
+                int boundWrong = 0;
+                int suggestWrong = 0;
+                for (String word : misspellings){
+                    for (int bound = 0; bound <= MAX_BOUND; bound++){
+                        String expected = trie.suggest(word, name.compareTo("symspell") == 0 ? Math.min(bound, 2)
+                                : bound);
+                        if (!agrees(name, word, roots.suggest(word, bound), expected)){
+                            if (boundWrong++ < 3){
+                                System.out.println("  " + name + ": " + word + " within " + bound + " gave "
+                                        + roots.suggest(word, bound) + " but expected " + expected);
+                            }
+                        }
+                    }
+                    String expected = byDistance.get(word);
+                    if (name.compareTo("symspell") == 0 && EditDistance.between(word, expected) > 2){
+                        expected = word;
+                    }
+                    String got = name.compareTo("trie") == 0 || name.compareTo("tree") == 0
+                            ? roots.suggestByDistance(word) : roots.suggest(word);
+                    if (!agrees(name, word, got, expected)){
+                        if (suggestWrong++ < 3){
+                            System.out.println("  " + name + ": " + word + " gave " + got + " but expected "
+                                    + expected);
+                        }
+                    }
+                }
+                expect(name + " gives the Trie's suggest(word, maxDistance) for bounds 0 to " + MAX_BOUND,
+                        boundWrong == 0);
+                expect(name + " gives the Trie's suggestByDistance", suggestWrong == 0);
+            }
+
+            Files.copy(Path.of(DictionaryLoader.LOCAL_DICTIONARY),
+                    directory.resolve(DictionaryLoader.LOCAL_DICTIONARY), StandardCopyOption.REPLACE_EXISTING);
+            List<String> input = new ArrayList<>(misspellings);
+            for (int i = 0; i < WORDS; i++){
+                input.add(words.get(random.nextInt(words.size())));
+            }
+            Collections.shuffle(input, random);
+            Files.write(directory.resolve("input.txt"), input);
+            Files.delete(snapshot);
+            Map<String, List<String>> outputs = new LinkedHashMap<>();
+            for (String storage : STORAGES){
+                Files.writeString(directory.resolve("a1properties.txt"), "storage=" + storage + "\n");
+                List<String> output = run(directory, storage + ".txt");
+                outputs.put(storage, output);
+                Roots roots = backends.get(storage);
+                List<String> expected = new ArrayList<>();
+                for (String word : input){
+                    expected.add(roots.checkWord(word) ? word : roots.suggest(word));
+                }
+                expect("storage=" + storage + " writes what its backend answers", output.equals(expected));
+            }
+            boolean same = true;
+            for (String storage : BY_DISTANCE){
+                same &= outputs.get(storage).equals(outputs.get(BY_DISTANCE[0]));
+            }
+            expect(String.join(", ", BY_DISTANCE) + " write the same output", same);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All equivalence checks passed.");
+    }
+
+    /***
+     * Whether got is the Trie's expected answer. The BK-tree can pick another word only if transpositions make that
+     * word closer than the Trie's measure says, and no further by its own measure than the Trie's word.
+     */
+    private static boolean agrees(String name, String word, String got, String expected){
+        if (got == null ? expected == null : got.equals(expected)){
+            return true;
+        }
+        if (name.compareTo("bktree") != 0 || got == null || got.equals(word)){
+            return false;
+        }
+        int damerau = EditDistance.damerau(word, got);
+        return damerau < EditDistance.between(word, got)
+                && (expected == null || expected.equals(word) || damerau <= EditDistance.damerau(word, expected));
+    }
+
+    /***
+     * Runs the checker on input.txt in directory and reads back the output file.
+     */
+    private static List<String> run(Path directory, String output) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        //The class path is usually relative, and the checker runs in another directory.
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            if (classPath.length() > 0){
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        File log = directory.resolve(output + ".log").toFile();
+        Process process = new ProcessBuilder(java, "-cp", classPath.toString(), "CS245A1", "input.txt", output)
+                .directory(directory.toFile()).redirectErrorStream(true).redirectOutput(log).start();
+        if (process.waitFor() != 0){
+            System.out.println(output + " run failed:");
+            System.out.println(Files.readString(log.toPath()));
+            System.exit(1);
+        }
+        return Files.readAllLines(directory.resolve(output), StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
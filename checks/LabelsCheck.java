@@ -0,0 +1,166 @@
+/*
+ * Checks that the Trie's shared label array holds the right chars for every edge, whatever order words come in.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class LabelsCheck {
+    /** Splitting an edge only moves the start of the old label along, and only the part of a word that is not in the
+     * trie yet is copied into labels. So every char on every edge is in labels exactly once, and a trie of the same
+     * words ends up the same size however they came in. A split that pointed at the wrong chars would show up as a
+     * word that is not taken, or one that is and should not be. Two words that share a long stem are also built both
+     * ways round, and have to be bigger than two that share a one char stem by just the extra chars of the stem.
+     *
+     * The Trie is built from english.0 sorted, reversed and shuffled one word at a time, with addAll, and with
+     * addAll of half the words and then the rest added one at a time, looking up every word so far every 50 words,
+     * so labels has to grow again after addAll gave back its unused end. Each has to take exactly the words of a
+     * HashSet on every word, every prefix of every word and every word with a char added, be the same size, and
+     * give the same suggestions and completions, which are spelled out of labels.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes LabelsCheck
+     **/
+
+    private static final int TYPOS = 300;
+    private static final int PREFIXES = 500;
+    private static final int LOOKUP_EVERY = 50;
+    private static final int STEM = 1000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Set<String> expected = new HashSet<>(words);
+        Random random = new Random(245);
+        List<String> probes = new ArrayList<>();
+        for (String word : words){
+            for (int end = 1; end <= word.length(); end++){
+                probes.add(word.substring(0, end));
+            }
+            probes.add(word + Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+        }
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+            typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+            misspellings.add(typo.toString());
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < PREFIXES; i++){
+            String word = words.get(random.nextInt(words.size()));
+            prefixes.add(word.substring(0, 1 + random.nextInt(word.length())));
+        }
+
+        List<String> sorted = new ArrayList<>(words);
+        Collections.sort(sorted);
+        List<String> reversed = new ArrayList<>(sorted);
+        Collections.reverse(reversed);
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, random);
+        Map<String, Trie> builds = new LinkedHashMap<>();
+        builds.put("sorted", oneAtATime(sorted));
+        builds.put("reversed", oneAtATime(reversed));
+        builds.put("shuffled", oneAtATime(shuffled));
+        Trie all = new Trie();
+        all.addAll(new ArrayList<>(words));
+        builds.put("addAll", all);
+        Trie later = new Trie();
+        later.addAll(new ArrayList<>(shuffled.subList(0, shuffled.size() / 2)));
+        int lostLater = 0;
+        for (int i = shuffled.size() / 2; i < shuffled.size(); i++){
+            later.add(shuffled.get(i));
+            if (i % LOOKUP_EVERY == 0){
+                for (int j = 0; j <= i; j++){
+                    lostLater += later.checkWord(shuffled.get(j)) ? 0 : 1;
+                }
+            }
+        }
+        later.addAll(new ArrayList<>());
+        builds.put("half with addAll, then one at a time", later);
+        expect("words added after addAll never lose the ones already in", lostLater == 0);
+
+        Trie first = builds.get("sorted");
+        boolean sameSize = true;
+        for (Trie trie : builds.values()){
+            sameSize &= trie.sizeInBytes() == first.sizeInBytes();
+        }
+        expect("every build is the same size", sameSize);
+        String stem = "x".repeat(STEM);
+        boolean once = true;
+        for (String[] pair : new String[][]{{"a", "b"}, {"b", "a"}}){
+            Trie longStem = oneAtATime(List.of(stem + pair[0], stem + pair[1]));
+            Trie shortStem = oneAtATime(List.of("x" + pair[0], "x" + pair[1]));
+            once &= longStem.sizeInBytes() - shortStem.sizeInBytes()
+                    == MemoryEstimate.array(STEM + 2, 2) - MemoryEstimate.array(3, 2);
+        }
+        expect("a stem two words share is in labels once, and each of their last chars once", once);
+        List<String> suggestions = new ArrayList<>();
+        for (String word : misspellings){
+            suggestions.add(first.suggest(word));
+        }
+        first.rankCompletions(WordFrequencies.NONE, 5);
+        List<List<String>> completions = new ArrayList<>();
+        for (String prefix : prefixes){
+            completions.add(first.complete(prefix, 5));
+        }
+        for (Map.Entry<String, Trie> build : builds.entrySet()){
+            String name = build.getKey();
+            Trie trie = build.getValue();
+            int wrong = 0;
+            for (String probe : probes){
+                if (trie.checkWord(probe) != expected.contains(probe)){
+                    if (wrong++ < 3){
+                        System.out.println("  " + name + ": " + probe + " is " + trie.checkWord(probe));
+                    }
+                }
+            }
+            expect(name + " takes exactly the words of english.0", wrong == 0);
+            wrong = 0;
+            for (int i = 0; i < misspellings.size(); i++){
+                wrong += trie.suggest(misspellings.get(i)).equals(suggestions.get(i)) ? 0 : 1;
+            }
+            expect(name + " gives the same suggestions", wrong == 0);
+            trie.rankCompletions(WordFrequencies.NONE, 5);
+            wrong = 0;
+            for (int i = 0; i < prefixes.size(); i++){
+                wrong += trie.complete(prefixes.get(i), 5).equals(completions.get(i)) ? 0 : 1;
+            }
+            expect(name + " gives the same completions", wrong == 0);
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All label checks passed.");
+    }
+
+    /***
+     * Adds the words in the order given, then an empty addAll so labels is trimmed like after any other build.
+     */
+    private static Trie oneAtATime(List<String> words){
+        Trie trie = new Trie();
+        for (String word : words){
+            trie.add(word);
+        }
+        trie.addAll(new ArrayList<>());
+        return trie;
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Checks that SpellMetrics counts what it is told, puts each suggest in the right tier, and shows it all over JMX.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsCheck {
+    /** Everything is read back through the platform MBean server, the way jconsole would see it, apart from the
+     * percentiles, which are checked in nanoseconds to see how far off a bucket can be.
+     *
+     * Registering twice has to be fine. Words checked and misspelled have to add up, also from several threads at
+     * once. Every suggest has to land in exactly one tier: a Trie's suggest in any of them, and suggestByDistance on
+     * a Trie and a DoubleArrayTrie in near when the answer is within two edits and far when not. A suggest with no
+     * time at all has to be counted as out of time. p50 and p99 have to be the real times rounded up to the end of
+     * their bucket, the max and slowest word exact, and reset() through JMX has to bring the counters back to 0.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes MetricsCheck
+     **/
+
+    private static final int TYPOS = 300;
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 100000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+            }
+            misspellings.add(typo.toString());
+        }
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+        DoubleArrayTrie datrie = new DoubleArrayTrie();
+        datrie.addAll(new ArrayList<>(words));
+
+        SpellMetrics metrics = SpellMetrics.get();
+        metrics.register();
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("cs245:type=SpellMetrics");
+        expect("SpellMetrics is registered as cs245:type=SpellMetrics, and registering again is fine",
+                server.isRegistered(name));
+        server.invoke(name, "reset", null, null);
+
+        metrics.dictionaryLoaded(words.size(), 1234567890L);
+        expect("the dictionary words and load time are shown",
+                (Long) server.getAttribute(name, "DictionaryWords") == words.size()
+                && (Long) server.getAttribute(name, "DictionaryLoadMillis") == 1234);
+
+        metrics.checked(true);
+        metrics.checked(false);
+        metrics.checked(false, 5);
+        metrics.checked(true, 3);
+        expect("checked words and misspellings add up, counting repeats",
+                (Long) server.getAttribute(name, "WordsChecked") == 10
+                && (Long) server.getAttribute(name, "WordsMisspelled") == 6);
+        server.invoke(name, "reset", null, null);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++){
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < PER_THREAD; i++){
+                    metrics.checked(i % 2 == 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads){
+            thread.join();
+        }
+        expect("no count is lost with " + THREADS + " threads recording at once",
+                (Long) server.getAttribute(name, "WordsChecked") == (long) THREADS * PER_THREAD
+                && (Long) server.getAttribute(name, "WordsMisspelled") == (long) THREADS * PER_THREAD / 2);
+
+        server.invoke(name, "reset", null, null);
+        for (String word : misspellings){
+            metrics.suggest(trie, word);
+        }
+        expect("every Trie suggest lands in exactly one tier", tiers(server, name) == TYPOS
+                && (Long) server.getAttribute(name, "Suggestions") == TYPOS
+                && (Double) server.getAttribute(name, "ProbesPerSuggestion") > 0);
+
+        for (Roots roots : new Roots[]{trie, datrie}){
+            server.invoke(name, "reset", null, null);
+            long near = 0;
+            long far = 0;
+            for (String word : misspellings){
+                String suggestion = roots.suggestByDistance(word);
+                if (EditDistance.between(word, suggestion) <= EditDistance.TYPO_DISTANCE){
+                    near++;
+                } else {
+                    far++;
+                }
+            }
+            expect(roots.getClass().getName() + " suggestByDistance is near within two edits and far past them",
+                    (Long) server.getAttribute(name, "NearHits") == near
+                    && (Long) server.getAttribute(name, "FarHits") == far
+                    && (Long) server.getAttribute(name, "PrefixWordHits") == 0
+                    && (Long) server.getAttribute(name, "ChildWordHits") == 0
+                    && tiers(server, name) == TYPOS);
+        }
+
+        server.invoke(name, "reset", null, null);
+        Suggestion suggestion = metrics.suggest(trie, misspellings.get(0), Duration.ZERO);
+        expect("a suggest with no time is counted as out of time", !suggestion.exact
+                && (Long) server.getAttribute(name, "Degraded") == 1 && tiers(server, name) == 1);
+
+        server.invoke(name, "reset", null, null);
+        long[] times = new long[1000];
+        for (int i = 0; i < times.length; i++){
+            times[i] = 1000 + random.nextInt(1000000);
+            metrics.suggested("word" + i, times[i]);
+        }
+        metrics.suggested("slowest", 50000000L);
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long p50 = metrics.percentileNanos(0.5);
+        long p99 = metrics.percentileNanos(0.99);
+        long realP50 = sorted[(int) Math.ceil(0.5 * (times.length + 1)) - 1];
+        long realP99 = sorted[(int) Math.ceil(0.99 * (times.length + 1)) - 1];
+        System.out.println("p50 " + p50 + " ns for " + realP50 + ", p99 " + p99 + " ns for " + realP99 + ".");
+        expect("p50 and p99 are the real times rounded up to the end of their quarter of a power of two",
+                p50 == roundUp(realP50) && p99 == roundUp(realP99) && p50 <= realP50 * 5 / 4);
+        expect("the max and the slowest word are exact",
+                (Long) server.getAttribute(name, "SuggestMaxMicros") == 50000
+                && "slowest".equals(server.getAttribute(name, "SlowestWord")));
+
+        server.invoke(name, "reset", null, null);
+        expect("reset brings the counters back to 0", (Long) server.getAttribute(name, "Suggestions") == 0
+                && (Long) server.getAttribute(name, "WordsChecked") == 0 && tiers(server, name) == 0
+                && (Long) server.getAttribute(name, "SuggestP99Micros") == 0
+                && (Long) server.getAttribute(name, "SuggestMaxMicros") == 0
+                && server.getAttribute(name, "SlowestWord") == null
+                && ((String) server.getAttribute(name, "Summary")).contains("Checked 0 words"));
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All metrics checks passed.");
+    }
+
+    /***
+     * Rounds nanos up to the last time in its bucket: the powers of two are each split in four.
+     */
+    private static long roundUp(long nanos){
+        long quarter = Long.highestOneBit(nanos) / 4;
+        return nanos / quarter * quarter + quarter - 1;
+    }
+
+    /***
+     * Adds up every tier, as read over JMX.
+     */
+    private static long tiers(MBeanServer server, ObjectName name) throws Exception {
+        long total = 0;
+        for (String tier : new String[]{"PrefixWordHits", "ChildWordHits", "NearHits", "FarHits", "Unchanged",
+                "Degraded"}){
+            total += (Long) server.getAttribute(name, tier);
+        }
+        return total;
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
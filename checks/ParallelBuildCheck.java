@@ -0,0 +1,130 @@
+/*
+ * Checks that building Trie, Tree and ConcurrentTrie in parallel gives the same structure as adding one word at a time.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class ParallelBuildCheck {
+    /** addAll only splits the words across threads when there is more than one core, so on a machine with one this
+     * runs itself again with -XX:ActiveProcessorCount=4.
+     *
+     * Each structure is built three ways: one word at a time with add, with addAll on an empty structure, and with
+     * addAll of the whole dictionary on one that already has a third of the words, so some first chars already have a
+     * subtree and every word in it comes twice. The parallel builds have to take the same words as the one built a
+     * word at a time on every prefix of every word and every word with a random char added, be the same size before
+     * ranking, give the same suggestions for misspellings, and give the same completions once ranked.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes ParallelBuildCheck
+     **/
+
+    private static final int CORES = 4;
+    private static final int TYPOS = 200;
+    private static final int PREFIXES = 500;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.getRuntime().availableProcessors() < 2){
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process process = new ProcessBuilder(java, "-XX:ActiveProcessorCount=" + CORES, "-cp",
+                    System.getProperty("java.class.path"), "ParallelBuildCheck").inheritIO().start();
+            System.exit(process.waitFor());
+        }
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cores.");
+
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        List<String> probes = new ArrayList<>();
+        for (String word : words){
+            for (int end = 1; end <= word.length(); end++){
+                probes.add(word.substring(0, end));
+            }
+            probes.add(word + Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+        }
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+            typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+            misspellings.add(typo.toString());
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < PREFIXES; i++){
+            String word = words.get(random.nextInt(words.size()));
+            prefixes.add(word.substring(0, 1 + random.nextInt(word.length())));
+        }
+        List<String> third = new ArrayList<>();
+        for (int i = 0; i < words.size(); i += 3){
+            third.add(words.get(i));
+        }
+
+        Map<String, Supplier<Roots>> structures = new LinkedHashMap<>();
+        structures.put("trie", Trie::new);
+        structures.put("tree", Tree::new);
+        structures.put("concurrent", ConcurrentTrie::new);
+        for (Map.Entry<String, Supplier<Roots>> structure : structures.entrySet()){
+            Roots sequential = structure.getValue().get();
+            for (String word : words){
+                sequential.add(word);
+            }
+            //The Trie gives back the unused end of its labels at the end of every addAll, even an empty one.
+            sequential.addAll(new ArrayList<>());
+            long size = sequential.sizeInBytes();
+            Roots parallel = structure.getValue().get();
+            parallel.addAll(new ArrayList<>(words));
+            Roots onTop = structure.getValue().get();
+            for (String word : third){
+                onTop.add(word);
+            }
+            onTop.addAll(new ArrayList<>(words));
+
+            Map<String, Roots> builds = new LinkedHashMap<>();
+            builds.put("addAll", parallel);
+            builds.put("addAll on a third of the words", onTop);
+            for (Map.Entry<String, Roots> build : builds.entrySet()){
+                String name = structure.getKey() + " built with " + build.getKey();
+                Roots roots = build.getValue();
+                int wrong = 0;
+                for (String probe : probes){
+                    wrong += roots.checkWord(probe) != sequential.checkWord(probe) ? 1 : 0;
+                }
+                expect(name + " takes the same words as one built a word at a time", wrong == 0);
+                expect(name + " is the same size", roots.sizeInBytes() == size);
+                wrong = 0;
+                for (String misspelling : misspellings){
+                    wrong += roots.suggest(misspelling).equals(sequential.suggest(misspelling)) ? 0 : 1;
+                }
+                expect(name + " gives the same suggestions", wrong == 0);
+                roots.rankCompletions(WordFrequencies.NONE, 5);
+                sequential.rankCompletions(WordFrequencies.NONE, 5);
+                wrong = 0;
+                for (String prefix : prefixes){
+                    wrong += roots.complete(prefix, 5).equals(sequential.complete(prefix, 5)) ? 0 : 1;
+                }
+                expect(name + " gives the same completions", wrong == 0);
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All parallel build checks passed.");
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Checks that checkWord on a range of a CharSequence answers the same as checkWord on that range as a String.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class RangeCheck {
+    /** Every storage= value is built from english.0, along with BloomRoots, CachingRoots and ReloadableRoots in front
+     * of a Trie. Each probe is put in a StringBuilder between random chars, so a walk that reads past either end of
+     * the range picks up a char that should not be there. The probes are every word, every word with a char added,
+     * a random prefix of every word, and words with chars outside the Alphabet in them.
+     *
+     * checkWord(word, from, to) has to answer the same as checkWord of the range as a String, and checkWord(String)
+     * has to agree with a HashSet of the words. A WordTokenizer passed straight to checkWord has to be answered the
+     * same as its toString(), and an empty range never is a word.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes RangeCheck
+     **/
+
+    private static final String PADDING = "abcdefghijklmnopqrstuvwxyz' -.éZ";
+    private static final String[] OUTSIDE = {"café", "naïve", "Hello", "don't!", "a-b", "x y", "ß", "中"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Set<String> expected = new HashSet<>(words);
+        Random random = new Random(245);
+        List<String> probes = new ArrayList<>();
+        for (String word : words){
+            probes.add(word);
+            probes.add(word + Alphabet.charAt(random.nextInt(Alphabet.SIZE)));
+            probes.add(word.substring(0, 1 + random.nextInt(word.length())));
+        }
+        for (String outside : OUTSIDE){
+            probes.add(outside);
+            probes.add(words.get(random.nextInt(words.size())) + outside);
+        }
+        StringBuilder text = new StringBuilder();
+        int[] from = new int[probes.size()];
+        for (int i = 0; i < probes.size(); i++){
+            for (int pad = random.nextInt(4); pad > 0; pad--){
+                text.append(PADDING.charAt(random.nextInt(PADDING.length())));
+            }
+            from[i] = text.length();
+            text.append(probes.get(i));
+        }
+        text.append(PADDING.charAt(random.nextInt(PADDING.length())));
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < words.size(); i += 7){
+            lines.append(words.get(i)).append("\n").append(words.get(i)).append("x\n");
+        }
+
+        Path directory = Files.createTempDirectory("range");
+        Map<String, Roots> backends = new LinkedHashMap<>();
+        ReloadableRoots reloadable = null;
+        try {
+            backends.put("trie", new Trie());
+            backends.put("tree", new Tree());
+            backends.put("concurrent", new ConcurrentTrie());
+            backends.put("symspell", new SymSpell());
+            backends.put("bktree", new BKTree());
+            backends.put("datrie", new DoubleArrayTrie());
+            backends.put("dawg", new Dawg());
+            backends.put("bloom", BloomRoots.wrap(new Trie(), 10));
+            backends.put("cache", CachingRoots.wrap(new Trie(), 1000));
+            for (Roots roots : backends.values()){
+                roots.addAll(new ArrayList<>(words));
+            }
+            Path snapshot = directory.resolve("english.0.dat");
+            byte[] hash = DictionaryLoader.hashDictionary(null);
+            ((DoubleArrayTrie) backends.get("datrie")).writeSnapshot(snapshot, hash, null);
+            backends.put("mapped", DoubleArrayTrie.mapSnapshot(snapshot, hash, null));
+            Trie first = new Trie();
+            first.addAll(new ArrayList<>(words));
+            reloadable = new ReloadableRoots(first, Trie::new, () -> new StringReader(""));
+            backends.put("reloadable", reloadable);
+
+            for (Map.Entry<String, Roots> backend : backends.entrySet()){
+                Roots roots = backend.getValue();
+                int rangeWrong = 0;
+                int setWrong = 0;
+                for (int i = 0; i < probes.size(); i++){
+                    String probe = probes.get(i);
+                    boolean found = roots.checkWord(probe);
+                    if (roots.checkWord(text, from[i], from[i] + probe.length()) != found){
+                        if (rangeWrong++ < 3){
+                            System.out.println("  " + backend.getKey() + ": " + probe + " is " + found
+                                    + " as a String but not as a range");
+                        }
+                    }
+                    setWrong += found != expected.contains(probe) ? 1 : 0;
+                }
+                expect(backend.getKey() + ": a range answers the same as the String", rangeWrong == 0);
+                expect(backend.getKey() + ": checkWord takes exactly the words of english.0", setWrong == 0);
+
+                int tokenWrong = 0;
+                WordTokenizer tokenizer = new WordTokenizer(new StringReader(lines.toString()));
+                while (tokenizer.next()){
+                    tokenWrong += roots.checkWord(tokenizer) != roots.checkWord(tokenizer.toString()) ? 1 : 0;
+                }
+                boolean empty = true;
+                for (int at = 0; at < 50; at++){
+                    empty &= !roots.checkWord(text, at, at);
+                }
+                expect(backend.getKey() + ": a WordTokenizer and an empty range are answered right",
+                        tokenWrong == 0 && empty);
+            }
+        } finally {
+            if (reloadable != null){
+                reloadable.close();
+            }
+            Files.deleteIfExists(directory.resolve("english.0.dat"));
+            Files.deleteIfExists(directory);
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All range checks passed.");
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Checks that ReloadableRoots swaps whole dictionaries under load, keeps the old one when a reload fails, and lets
+ * swapped out ones go.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class ReloadCheck {
+    /** Dictionary n holds "alpha", "beta" and "zz" followed by n written in letters, so a suggestion for "zz" says
+     * which dictionary answered it. Four threads check words and ask for that suggestion the whole time while 200
+     * reloads are asked for 5 ms apart. Every answer has to come from a whole dictionary, and each thread has to see
+     * the dictionaries in order, never an older one after a newer one.
+     *
+     * Then reloads whose source throws, whose factory throws, and whose dictionary is empty must all keep the
+     * dictionary in use and say why. Last, with the checking threads stopped, every dictionary but the one in use
+     * has to be garbage collected, which is what the Cleaner log relies on.
+     *
+     * Then a file is watched while the source stands in for a URL that still has the old words. A word written to
+     * the file has to be found once the change is seen, without the source being read, and reload() still has to
+     * read the source.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes ReloadCheck
+     **/
+
+    private static final int READERS = 4;
+    private static final int RELOADS = 200;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicBoolean sourceFails = new AtomicBoolean();
+        AtomicBoolean factoryFails = new AtomicBoolean();
+        AtomicBoolean sourceEmpty = new AtomicBoolean();
+        List<WeakReference<Roots>> built = new ArrayList<>();
+
+        Callable<Reader> source = () -> {
+            if (sourceFails.get()){
+                throw new IOException("source is down");
+            }
+            if (sourceEmpty.get()){
+                return new StringReader("\n");
+            }
+            return new StringReader("alpha\nbeta\nzz" + letters(reads.incrementAndGet()) + "\n");
+        };
+        Supplier<Roots> factory = () -> {
+            if (factoryFails.get()){
+                throw new IllegalStateException("factory is broken");
+            }
+            Roots roots = new Trie();
+            synchronized (built){
+                built.add(new WeakReference<>(roots));
+            }
+            return roots;
+        };
+
+        //The reload thread prints a few lines for each reload, which are not what is being checked.
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+
+        Roots first = factory.get();
+        DictionaryLoader.addWords(DictionaryLoader.readWords(source.call()), first);
+        ReloadableRoots reloadable = new ReloadableRoots(first, factory, source);
+        first = null;
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong checks = new AtomicLong();
+        AtomicLong wrong = new AtomicLong();
+        AtomicLong backwards = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++){
+            Thread reader = new Thread(() -> {
+                int newest = 0;
+                while (!stop.get()){
+                    if (!reloadable.checkWord("alpha") || reloadable.checkWord("gamma")){
+                        wrong.incrementAndGet();
+                    }
+                    String suggestion = reloadable.suggest("zz");
+                    int answered = suggestion.startsWith("zz") ? number(suggestion.substring(2)) : -1;
+                    if (answered < 1){
+                        wrong.incrementAndGet();
+                    } else if (answered < newest){
+                        backwards.incrementAndGet();
+                    } else {
+                        newest = answered;
+                    }
+                    checks.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 0; i < RELOADS; i++){
+            reloadable.reload();
+            Thread.sleep(5);
+        }
+        settle(reloadable);
+        stop.set(true);
+        for (Thread reader : readers){
+            reader.join();
+        }
+
+        System.setOut(out);
+        System.out.println(checks.get() + " checks across " + reloadable.generation() + " dictionaries.");
+        expect("no check saw a half built dictionary", wrong.get() == 0);
+        expect("no thread saw an older dictionary after a newer one", backwards.get() == 0);
+        expect("one dictionary per read of the source", reloadable.generation() == reads.get());
+        expect("the newest words are in use", reloadable.checkWord("zz" + letters(reads.get())));
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(log, true));
+        int generation = reloadable.generation();
+        sourceFails.set(true);
+        reloadable.reload();
+        settle(reloadable);
+        sourceFails.set(false);
+        factoryFails.set(true);
+        reloadable.reload();
+        settle(reloadable);
+        factoryFails.set(false);
+        sourceEmpty.set(true);
+        reloadable.reload();
+        settle(reloadable);
+        sourceEmpty.set(false);
+        System.setOut(out);
+        expect("failed and empty reloads keep the dictionary", reloadable.generation() == generation
+                && reloadable.checkWord("alpha"));
+        expect("a failing source and a failing factory are both logged",
+                count(log.toString(), "Could not Reload Dictionary") == 2);
+        expect("an empty dictionary is logged", count(log.toString(), "Reloaded Dictionary is Empty") == 1);
+
+        int live = 0;
+        for (int i = 0; i < 10 && (live = live(built)) > 1; i++){
+            System.gc();
+            Thread.sleep(100);
+        }
+        System.out.println(live + " of " + built.size() + " dictionaries still reachable after GC.");
+        expect("every swapped out dictionary was collected", live == 1);
+        reloadable.close();
+
+        checkWatchedFile();
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All reload checks passed.");
+    }
+
+    /***
+     * Edits a watched file and looks for the new word, with a source that would give back the old words.
+     */
+    private static void checkWatchedFile() throws Exception {
+        Path directory = Files.createTempDirectory("reload");
+        Path file = directory.resolve("english.0");
+        Files.writeString(file, "alpha\nbeta\n", StandardCharsets.UTF_8);
+        AtomicInteger onlineReads = new AtomicInteger();
+        Callable<Reader> online = () -> {
+            onlineReads.incrementAndGet();
+            return new StringReader("alpha\nbeta\n");
+        };
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+        Roots first = new Trie();
+        DictionaryLoader.addWords(DictionaryLoader.readWords(online.call()), first);
+        onlineReads.set(0);
+        ReloadableRoots reloadable = new ReloadableRoots(first, Trie::new, online);
+        try {
+            reloadable.watch(file);
+            Files.writeString(file, "gamma\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            for (int i = 0; i < 100 && reloadable.generation() == 1; i++){
+                Thread.sleep(100);
+            }
+            System.setOut(out);
+            expect("an edit to the watched file is built from the file", reloadable.checkWord("gamma")
+                    && reloadable.checkWord("alpha") && onlineReads.get() == 0);
+
+            System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+            int generation = reloadable.generation();
+            reloadable.reload();
+            for (int i = 0; i < 100 && reloadable.generation() == generation; i++){
+                Thread.sleep(100);
+            }
+            System.setOut(out);
+            expect("reload() still reads the source", onlineReads.get() == 1 && !reloadable.checkWord("gamma"));
+        } finally {
+            System.setOut(out);
+            reloadable.close();
+            Files.delete(file);
+            Files.delete(directory);
+        }
+    }
+
+    /***
+     * Waits until no reload has swapped anything in for half a second.
+     */
+    private static void settle(ReloadableRoots reloadable) throws InterruptedException {
+        int generation;
+        do {
+            generation = reloadable.generation();
+            Thread.sleep(500);
+        } while (reloadable.generation() != generation);
+    }
+
+    private static int count(String text, String line){
+        int count = 0;
+        for (int at = text.indexOf(line); at >= 0; at = text.indexOf(line, at + 1)){
+            count++;
+        }
+        return count;
+    }
+
+    private static int live(List<WeakReference<Roots>> built){
+        int live = 0;
+        synchronized (built){
+            for (WeakReference<Roots> reference : built){
+                if (reference.get() != null){
+                    live++;
+                }
+            }
+        }
+        return live;
+    }
+
+    /***
+     * Writes n in letters, a for 0 up to z for 25, lowest first, so it can be a dictionary word.
+     */
+    private static String letters(int n){
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return word.toString();
+    }
+
+    private static int number(String letters){
+        int n = 0;
+        for (int i = letters.length() - 1; i >= 0; i--){
+            n = n * 26 + (letters.charAt(i) - 'a');
+        }
+        return n;
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Checks the answers and status codes of SpellServer over real HTTP on localhost.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerCheck {
+    /** A server is started on a free port in front of a Trie of english.0. A batch of words and misspellings, some in
+     * mixed case or with punctuation, has to come back one line per word, the same as output.txt would have it: the
+     * word if it is spelled right and the Trie's suggestion if not. A batch of 50,000 lines has to come back whole,
+     * and so do eight batches sent at once from eight threads.
+     *
+     * GET /metrics answers 200 with the summary. /check and /reload only take POST and answer 405 with an Allow
+     * header to anything else. POST /reload answers 404 when there is nothing to reload it with, and 202 straight
+     * away when there is, having started the reload once.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes ServerCheck
+     **/
+
+    private static final int BATCH = 500;
+    private static final int BIG_BATCH = 50000;
+    private static final int CLIENTS = 8;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+        Random random = new Random(245);
+
+        AtomicInteger reloads = new AtomicInteger();
+        SpellServer server = new SpellServer(trie, trie::suggest, null, 0);
+        SpellServer reloadable = new SpellServer(trie, trie::suggest, reloads::incrementAndGet, 0);
+        server.start();
+        reloadable.start();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            String base = "http://localhost:" + server.port();
+            List<String> lines = batch(words, random, BATCH);
+            expect("a batch is answered one line per word, like output.txt",
+                    post(base + "/check", lines).equals(expected(trie, lines)));
+
+            List<String> big = batch(words, random, BIG_BATCH);
+            expect("a batch of " + BIG_BATCH + " lines comes back whole",
+                    post(base + "/check", big).equals(expected(trie, big)));
+
+            List<Future<Boolean>> answers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++){
+                List<String> own = batch(words, random, BATCH);
+                List<String> expected = expected(trie, own);
+                Callable<Boolean> client = () -> post(base + "/check", own).equals(expected);
+                answers.add(clients.submit(client));
+            }
+            boolean all = true;
+            for (Future<Boolean> answer : answers){
+                all &= answer.get();
+            }
+            expect(CLIENTS + " batches sent at once are each answered right", all);
+
+            expect("an empty batch gets an empty answer", post(base + "/check", List.of()).isEmpty());
+
+            HttpURLConnection metrics = open(base + "/metrics", "GET");
+            expect("GET /metrics answers 200 with the summary", metrics.getResponseCode() == 200
+                    && read(metrics.getInputStream()).length() > 0);
+            HttpURLConnection get = open(base + "/check", "GET");
+            expect("GET /check answers 405 and says POST", get.getResponseCode() == 405
+                    && "POST".equals(get.getHeaderField("Allow")));
+            expect("GET /reload answers 405", open(base + "/reload", "GET").getResponseCode() == 405);
+            expect("POST /reload answers 404 with nothing to reload it with",
+                    open(base + "/reload", "POST").getResponseCode() == 404);
+            expect("POST /reload answers 202 and starts one reload", open("http://localhost:" + reloadable.port()
+                    + "/reload", "POST").getResponseCode() == 202 && reloads.get() == 1);
+        } finally {
+            clients.shutdownNow();
+            server.stop();
+            reloadable.stop();
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All server checks passed.");
+    }
+
+    /***
+     * Lines of dictionary words and misspellings, some capitalized or with punctuation around them.
+     */
+    private static List<String> batch(List<String> words, Random random, int lines){
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < lines; i++){
+            StringBuilder word = new StringBuilder(words.get(random.nextInt(words.size())));
+            if (random.nextInt(3) == 0){
+                word.insert(random.nextInt(word.length() + 1), (char) ('a' + random.nextInt(26)));
+            }
+            switch (random.nextInt(6)){
+                case 0:
+                    batch.add(word.toString().toUpperCase());
+                    break;
+                case 1:
+                    batch.add("\"" + word + "\",");
+                    break;
+                default:
+                    batch.add(word.toString());
+            }
+        }
+        return batch;
+    }
+
+    /***
+     * What the checker would write for each line, worked out straight from the Trie.
+     */
+    private static List<String> expected(Trie trie, List<String> lines){
+        List<String> expected = new ArrayList<>();
+        for (String line : lines){
+            String word = line.replaceAll("[^a-zA-Z']", "").toLowerCase();
+            expected.add(trie.checkWord(word) ? word : trie.suggest(word));
+        }
+        return expected;
+    }
+
+    private static List<String> post(String url, List<String> lines) throws IOException {
+        HttpURLConnection connection = open(url, "POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        if (connection.getResponseCode() != 200){
+            return List.of("HTTP " + connection.getResponseCode());
+        }
+        String body = read(connection.getInputStream());
+        return body.isEmpty() ? List.of() : List.of(body.split("\n"));
+    }
+
+    private static HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(60000);
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream body = in) {
+            body.transferTo(bytes);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
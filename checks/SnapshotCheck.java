@@ -0,0 +1,237 @@
+/*
+ * Checks that a DoubleArrayTrie snapshot answers like the trie it was written from, and that a stale one is not used.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class SnapshotCheck {
+    /** A DoubleArrayTrie of english.0 is written out and mapped back, and the mapped one has to answer checkWord,
+     * suggest and wordCount the same as the one that was built. mapSnapshot has to turn down a snapshot whose hash
+     * and description both differ, one with the wrong magic or version, and one cut short.
+     *
+     * Then the checker is run with storage=mapped in its own JVM, in a new directory. The first run compiles and the
+     * second only maps. Then one word of english.0 is changed for another of the same length and the modified time is
+     * set back, the way touch -r would, so the size and modified time are what the snapshot was written with. The
+     * next run has to compile again and answer from the new words. Only touching the file must not compile again.
+     * Last the same is done through a file: dict.url, which is always hashed, and each run has to answer from the
+     * words the URL has at that time.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes SnapshotCheck
+     **/
+
+    private static final int TYPOS = 300;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Random random = new Random(245);
+        DoubleArrayTrie built = new DoubleArrayTrie();
+        built.addAll(new ArrayList<>(words));
+        byte[] hash = DictionaryLoader.hashDictionary(null);
+
+        Path directory = Files.createTempDirectory("snapshot");
+        try {
+            Path file = directory.resolve("english.0.dat");
+            built.writeSnapshot(file, hash, "english.0 as it was");
+            DoubleArrayTrie mapped = DoubleArrayTrie.mapSnapshot(file, null, "english.0 as it was");
+            expect("a snapshot maps back with the description it was written with", mapped != null);
+            if (mapped == null){
+                finish();
+            }
+
+            int disagree = 0;
+            for (String word : words){
+                for (int end = 1; end <= word.length(); end++){
+                    disagree += mapped.checkWord(word.substring(0, end)) != built.checkWord(word.substring(0, end))
+                            ? 1 : 0;
+                }
+            }
+            expect("the mapped trie takes the same words as the built one", disagree == 0);
+            int wrong = 0;
+            for (int i = 0; i < TYPOS; i++){
+                StringBuilder typo = new StringBuilder(words.get(random.nextInt(words.size())));
+                typo.insert(random.nextInt(typo.length() + 1), (char) ('a' + random.nextInt(26)));
+                String word = typo.toString();
+                wrong += mapped.suggest(word).compareTo(built.suggest(word)) != 0 ? 1 : 0;
+            }
+            expect("the mapped trie suggests the same as the built one", wrong == 0);
+            expect("the mapped trie counts every word once", mapped.wordCount() == new HashSet<>(words).size());
+
+            byte[] other = hash.clone();
+            other[0]++;
+            expect("a snapshot with the same hash maps whatever the description says",
+                    DoubleArrayTrie.mapSnapshot(file, hash, "english.0 as it is now") != null);
+            expect("a snapshot from another dictionary is turned down",
+                    DoubleArrayTrie.mapSnapshot(file, other, "english.0 as it is now") == null);
+
+            byte[] bytes = Files.readAllBytes(file);
+            Path broken = directory.resolve("broken.dat");
+            bytes[0]++;
+            Files.write(broken, bytes);
+            boolean magic = DoubleArrayTrie.mapSnapshot(broken, hash, "english.0 as it was") == null;
+            bytes[0]--;
+            bytes[7]++;
+            Files.write(broken, bytes);
+            boolean version = DoubleArrayTrie.mapSnapshot(broken, hash, "english.0 as it was") == null;
+            bytes[7]--;
+            Files.write(broken, Arrays.copyOf(bytes, bytes.length - 8));
+            boolean cut = DoubleArrayTrie.mapSnapshot(broken, hash, "english.0 as it was") == null;
+            expect("a snapshot with the wrong magic, the wrong version or cut short is turned down",
+                    magic && version && cut);
+        } finally {
+            delete(directory);
+        }
+
+        directory = Files.createTempDirectory("snapshot");
+        try {
+            Path dictionary = directory.resolve(DictionaryLoader.LOCAL_DICTIONARY);
+            Files.copy(Path.of(DictionaryLoader.LOCAL_DICTIONARY), dictionary, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(directory.resolve("a1properties.txt"), "storage=mapped\n");
+            String[] edit = sameLength(Files.readAllLines(dictionary, StandardCharsets.UTF_8), random);
+            List<String> input = List.of(edit[0], edit[1], edit[1] + "s", edit[0].substring(1));
+            Files.write(directory.resolve("input.txt"), input);
+
+            String log = run(directory);
+            expect("the first run compiles a snapshot", log.contains("Compiling") && log.contains("Mapped Snapshot"));
+            log = run(directory);
+            expect("the next run only maps it", !log.contains("Compiling") && log.contains("Mapped Snapshot"));
+            expect("the mapped snapshot answers from english.0",
+                    answers(directory).equals(expected(dictionary, input)));
+
+            replaceKeepingTime(dictionary, edit[0], edit[1]);
+            log = run(directory);
+            expect("a same size edit with the modified time set back compiles again", log.contains("Compiling"));
+            expect("the new snapshot answers from the edited english.0",
+                    answers(directory).equals(expected(dictionary, input)));
+
+            Files.setLastModifiedTime(dictionary, FileTime.fromMillis(System.currentTimeMillis()));
+            log = run(directory);
+            expect("a file that was only touched is mapped without compiling",
+                    !log.contains("Compiling") && log.contains("Mapped Snapshot"));
+
+            Path online = directory.resolve("online.0");
+            Files.copy(Path.of(DictionaryLoader.LOCAL_DICTIONARY), online, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(directory.resolve("a1properties.txt"), "storage=mapped\ndict.url="
+                    + online.toUri() + "\n");
+            run(directory);
+            expect("a snapshot from dict.url answers from the URL", answers(directory).equals(expected(online, input)));
+            replaceKeepingTime(online, edit[0], edit[1]);
+            log = run(directory);
+            expect("a same size edit behind dict.url compiles again", log.contains("Compiling"));
+            expect("the new snapshot answers from what the URL has now",
+                    answers(directory).equals(expected(online, input)));
+        } finally {
+            delete(directory);
+        }
+        finish();
+    }
+
+    /***
+     * Picks a line of english.0 and a string of the same length that is not a word, so swapping them keeps the size.
+     */
+    private static String[] sameLength(List<String> words, Random random){
+        HashSet<String> dictionary = new HashSet<>(words);
+        while (true){
+            String word = words.get(random.nextInt(words.size()));
+            if (word.length() < 5 || !word.chars().allMatch(c -> c >= 'a' && c <= 'z')){
+                continue;
+            }
+            String swapped = word.substring(0, word.length() - 1) + (word.charAt(word.length() - 1) == 'q' ? 'x' : 'q');
+            if (!dictionary.contains(swapped)){
+                return new String[]{word, swapped};
+            }
+        }
+    }
+
+    /***
+     * Changes the line from to the line to, keeping the line endings, and sets the modified time back to what it was.
+     */
+    private static void replaceKeepingTime(Path file, String from, String to) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        Files.writeString(file, text.replaceAll("(?m)^" + Pattern.quote(from) + "$", to), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, modified);
+    }
+
+    /***
+     * What the checker should write for each input word, worked out from a trie built straight from dictionary.
+     */
+    private static List<String> expected(Path dictionary, List<String> input) throws IOException {
+        Trie trie = new Trie();
+        trie.addAll(DictionaryLoader.readWords(Files.newBufferedReader(dictionary, StandardCharsets.UTF_8)));
+        DoubleArrayTrie datrie = new DoubleArrayTrie();
+        datrie.addAll(DictionaryLoader.readWords(Files.newBufferedReader(dictionary, StandardCharsets.UTF_8)));
+        List<String> expected = new ArrayList<>();
+        for (String word : input){
+            expected.add(trie.checkWord(word) ? word : datrie.suggest(word));
+        }
+        return expected;
+    }
+
+    private static List<String> answers(Path directory) throws IOException {
+        return Files.readAllLines(directory.resolve("output.txt"), StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Runs the checker on input.txt in directory and gives back what it printed.
+     */
+    private static String run(Path directory) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        //The class path is usually relative, and the checker runs in another directory.
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            if (classPath.length() > 0){
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        File log = directory.resolve("run.log").toFile();
+        Process process = new ProcessBuilder(java, "-cp", classPath.toString(), "CS245A1", "input.txt", "output.txt")
+                .directory(directory.toFile()).redirectErrorStream(true).redirectOutput(log).start();
+        if (process.waitFor() != 0){
+            System.out.println("Run failed:");
+            System.out.println(Files.readString(log.toPath()));
+            System.exit(1);
+        }
+        return Files.readString(log.toPath());
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void finish(){
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All snapshot checks passed.");
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
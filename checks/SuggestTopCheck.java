@@ -0,0 +1,196 @@
+/*
+ * Checks suggestTop on every structure against a brute force ranking of the whole dictionary.
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+public class SuggestTopCheck {
+    /** The misspellings are dictionary words with one or two random edits, some that are nothing like any word, and
+     * some words that are spelled right. For each one a brute force pass measures it against every word, keeps those
+     * within two edits (or within its length if none are), sorts them by distance, then count, then alphabetically,
+     * and takes the first k. suggestTop has to give exactly that list, with random counts that tie often and with no
+     * counts at all. BKTree measures with the true Damerau distance, so it is checked against that. SymSpell cannot
+     * see past two edits, so it is only checked on the misspellings that have a word that close.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes SuggestTopCheck
+     **/
+
+    private static final int TYPOS = 60;
+    private static final String[] FAR = {"xyzzyq", "qqqqqqqqqq", "zzz", "a", "bcdfghjklm"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = new ArrayList<>(new TreeSet<>(DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8))));
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            misspellings.add(i % 3 == 0 ? typo(typo(word, random), random) : typo(word, random));
+        }
+        for (String far : FAR){
+            misspellings.add(far);
+        }
+        for (int i = 0; i < 10; i++){
+            misspellings.add(words.get(random.nextInt(words.size())));
+        }
+        int[] ks = new int[misspellings.size()];
+        for (int i = 0; i < ks.length; i++){
+            ks[i] = 1 + random.nextInt(8);
+        }
+
+        Map<String, WordFrequencies> counts = new LinkedHashMap<>();
+        counts.put("no counts", WordFrequencies.NONE);
+        counts.put("random counts", randomCounts(words, random));
+
+        Map<String, Supplier<Roots>> structures = new LinkedHashMap<>();
+        structures.put("trie", Trie::new);
+        structures.put("tree", Tree::new);
+        structures.put("datrie", DoubleArrayTrie::new);
+        structures.put("dawg", Dawg::new);
+        structures.put("concurrent", ConcurrentTrie::new);
+        structures.put("bktree", BKTree::new);
+        structures.put("symspell", SymSpell::new);
+
+        //The brute force distances only depend on the misspelling, so they are worked out once for every structure.
+        int[][] plain = new int[misspellings.size()][];
+        int[][] damerau = new int[misspellings.size()][];
+        for (int i = 0; i < misspellings.size(); i++){
+            plain[i] = new int[words.size()];
+            damerau[i] = new int[words.size()];
+            for (int j = 0; j < words.size(); j++){
+                plain[i][j] = EditDistance.between(misspellings.get(i), words.get(j));
+                damerau[i][j] = EditDistance.damerau(misspellings.get(i), words.get(j));
+            }
+        }
+
+        for (Map.Entry<String, Supplier<Roots>> structure : structures.entrySet()){
+            Roots roots = structure.getValue().get();
+            roots.addAll(new ArrayList<>(words));
+            boolean bktree = structure.getKey().compareTo("bktree") == 0;
+            boolean symspell = structure.getKey().compareTo("symspell") == 0;
+            for (Map.Entry<String, WordFrequencies> frequencies : counts.entrySet()){
+                int checked = 0;
+                int wrong = 0;
+                for (int i = 0; i < misspellings.size(); i++){
+                    String word = misspellings.get(i);
+                    int[] distances = bktree ? damerau[i] : plain[i];
+                    if (symspell && nearest(distances) > EditDistance.TYPO_DISTANCE){
+                        continue;
+                    }
+                    List<String> expected = bruteForce(word, ks[i], words, distances, frequencies.getValue());
+                    List<String> got = roots.suggestTop(word, ks[i], frequencies.getValue());
+                    checked++;
+                    if (!got.equals(expected)){
+                        if (wrong++ < 3){
+                            System.out.println("  " + word + " k=" + ks[i] + ": " + got + " but expected " + expected);
+                        }
+                    }
+                }
+                expect(structure.getKey() + " suggestTop matches brute force, " + frequencies.getKey() + " ("
+                        + checked + " words)", wrong == 0);
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All suggestTop checks passed.");
+    }
+
+    /***
+     * The k best words for the misspelling, found by sorting every word in range.
+     */
+    private static List<String> bruteForce(String word, int k, List<String> words, int[] distances,
+                                           WordFrequencies frequencies){
+        int bound = Math.min(word.length(), EditDistance.TYPO_DISTANCE);
+        if (nearest(distances) > bound){
+            bound = word.length();
+        }
+        List<Integer> range = new ArrayList<>();
+        for (int j = 0; j < words.size(); j++){
+            if (distances[j] <= bound){
+                range.add(j);
+            }
+        }
+        range.sort(Comparator.comparingInt((Integer j) -> distances[j])
+                .thenComparing(j -> frequencies.count(words.get(j)), Comparator.reverseOrder())
+                .thenComparing(words::get));
+        List<String> best = new ArrayList<>();
+        for (int i = 0; i < range.size() && i < k; i++){
+            best.add(words.get(range.get(i)));
+        }
+        return best;
+    }
+
+    private static int nearest(int[] distances){
+        int nearest = Integer.MAX_VALUE;
+        for (int distance : distances){
+            nearest = Math.min(nearest, distance);
+        }
+        return nearest;
+    }
+
+    /***
+     * Gives a third of the words a count from 0 to 9, so many words at the same distance tie on count too.
+     */
+    private static WordFrequencies randomCounts(List<String> words, Random random) throws IOException {
+        Path file = Files.createTempFile("counts", ".freq");
+        try {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+                for (String word : words){
+                    if (random.nextInt(3) == 0){
+                        out.println(word + " " + random.nextInt(10));
+                    }
+                }
+            }
+            return WordFrequencies.load(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length()){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
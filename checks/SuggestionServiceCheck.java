@@ -0,0 +1,158 @@
+/*
+ * Checks the debounce and cancelling of SuggestionService without JavaFX, the way CS245A1LiveCheck uses it.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class SuggestionServiceCheck {
+    /** The service is given a Dawg, which has no cursor of its own, so every suggestion it works out is one call to
+     * Dawg.suggest and can be counted. Keystrokes come 5 ms apart against a 100 ms debounce:
+     *
+     * A word typed quickly is only worked out once, for the last keystroke. Text that is left alone past the debounce
+     * is answered, and the next text is answered after it. A request that is cancelled is never worked out. A suggest
+     * that is already running when newer text comes in is left to finish but its answer is dropped. An answer that
+     * is waiting on the publisher (the FX thread, in CS245A1LiveCheck) when newer text comes in is dropped there.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes SuggestionServiceCheck
+     **/
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(100);
+    private static final long KEYSTROKE_MS = 5;
+    private static final long SETTLE_MS = 500;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Dawg reference = new Dawg();
+        reference.addAll(new ArrayList<>(words));
+
+        AtomicInteger suggests = new AtomicInteger();
+        AtomicBoolean holdNext = new AtomicBoolean();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Dawg counted = new Dawg(){
+            @Override
+            public String suggest(String word){
+                suggests.incrementAndGet();
+                if (holdNext.compareAndSet(true, false)){
+                    held.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.suggest(word);
+            }
+        };
+        counted.addAll(new ArrayList<>(words));
+
+        List<String> answers = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger published = new AtomicInteger();
+        Consumer<Runnable> runNow = publish -> {
+            published.incrementAndGet();
+            publish.run();
+        };
+        try (SuggestionService service = new SuggestionService(counted, DEBOUNCE, null, runNow)) {
+            String text = "I recieve teh accomodat";
+            for (int i = 1; i <= text.length(); i++){
+                service.request(text.substring(0, i), answers::add);
+                Thread.sleep(KEYSTROKE_MS);
+            }
+            Thread.sleep(SETTLE_MS);
+            expect("typing quickly gives one answer, for the last keystroke",
+                    answers.equals(List.of(expected(reference, text))) && published.get() == 1);
+            expect("typing quickly works out one suggestion", suggests.get() == 1);
+
+            answers.clear();
+            service.request("hello wrld", answers::add);
+            Thread.sleep(SETTLE_MS);
+            service.request("hello wor", answers::add);
+            Thread.sleep(SETTLE_MS);
+            expect("a pause answers the text so far, then the next text", answers.equals(List.of(
+                    expected(reference, "hello wrld"), expected(reference, "hello wor"))));
+
+            answers.clear();
+            suggests.set(0);
+            service.request("xyzzyq", answers::add);
+            service.cancel();
+            Thread.sleep(SETTLE_MS);
+            expect("a cancelled request is never worked out", answers.isEmpty() && suggests.get() == 0);
+
+            answers.clear();
+            holdNext.set(true);
+            service.request("teh", answers::add);
+            expect("the suggest for \"teh\" started", held.await(SETTLE_MS * 4, TimeUnit.MILLISECONDS));
+            service.request("the quick", answers::add);
+            release.countDown();
+            Thread.sleep(SETTLE_MS);
+            expect("a suggest that was running when newer text came in is not answered",
+                    answers.equals(List.of(expected(reference, "the quick"))));
+
+            expect("the word is the last one, letters only", SuggestionService.lastWord("I don't!")
+                    .compareTo("dont") == 0 && service.suggestionFor("  ").compareTo("") == 0);
+        }
+
+        //Like Platform::runLater, the answer waits until the queue is run.
+        List<Runnable> queue = Collections.synchronizedList(new ArrayList<>());
+        answers.clear();
+        try (SuggestionService service = new SuggestionService(counted, DEBOUNCE, null, queue::add)) {
+            service.request("teh", answers::add);
+            Thread.sleep(SETTLE_MS);
+            service.request("hello wrld", answers::add);
+            run(queue);
+            expect("an answer waiting on the publisher is dropped once newer text comes in", answers.isEmpty());
+            Thread.sleep(SETTLE_MS);
+            run(queue);
+            expect("the newer text is answered", answers.equals(List.of(expected(reference, "hello wrld"))));
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All suggestion service checks passed.");
+    }
+
+    /***
+     * What the label should end up saying for text, worked out straight from the dictionary.
+     */
+    private static String expected(Roots roots, String text){
+        String word = SuggestionService.lastWord(text);
+        if (word.compareTo("") == 0 || roots.checkWord(word)){
+            return word;
+        }
+        return roots.suggest(word);
+    }
+
+    private static void run(List<Runnable> queue){
+        List<Runnable> waiting;
+        synchronized (queue){
+            waiting = new ArrayList<>(queue);
+            queue.clear();
+        }
+        for (Runnable runnable : waiting){
+            runnable.run();
+        }
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
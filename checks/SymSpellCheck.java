@@ -0,0 +1,145 @@
+/*
+ * Checks the SymSpell delete index against measuring every word in the dictionary.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class SymSpellCheck {
+    /** The misspellings are dictionary words with one to three random edits, a few that are nothing like any word,
+     * and a few words that are spelled right. For each one every dictionary word is measured with
+     * EditDistance.between. A word shares a delete with every word within two edits, so suggest(word, maxDistance)
+     * has to give the closest word within the bound, or within two edits for bigger bounds, the first alphabetically
+     * among those just as close. suggest(word) has to give the closest word within two edits, or the word itself.
+     *
+     * checkWord has to take exactly the dictionary words. Adding a word twice must not change the index, and a word
+     * added after the others has to be found and suggested like the rest.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes SymSpellCheck
+     **/
+
+    private static final int TYPOS = 500;
+    private static final int MAX_BOUND = 3;
+    private static final String[] FAR = {"xyzzyq", "qqqqqqqqqq", "zzz", "a", "bcdfghjklm", "pneumonoultramicroscopic"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = new ArrayList<>(new TreeSet<>(DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8))));
+        Set<String> dictionary = new HashSet<>(words);
+        Random random = new Random(245);
+        List<String> misspellings = new ArrayList<>();
+        for (int i = 0; i < TYPOS; i++){
+            String word = words.get(random.nextInt(words.size()));
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--){
+                word = typo(word, random);
+            }
+            misspellings.add(word);
+        }
+        for (String far : FAR){
+            misspellings.add(far);
+        }
+        for (int i = 0; i < 20; i++){
+            misspellings.add(words.get(random.nextInt(words.size())));
+        }
+
+        SymSpell symspell = new SymSpell();
+        symspell.addAll(new ArrayList<>(words));
+
+        int checkWrong = 0;
+        int boundWrong = 0;
+        int suggestWrong = 0;
+        for (String misspelling : misspellings){
+            checkWrong += symspell.checkWord(misspelling) != dictionary.contains(misspelling) ? 1 : 0;
+            //The words are in alphabetical order, so the first one at a distance is the one a tie goes to.
+            int[] distances = new int[words.size()];
+            for (int j = 0; j < words.size(); j++){
+                distances[j] = EditDistance.between(misspelling, words.get(j));
+            }
+            for (int bound = 0; bound <= MAX_BOUND; bound++){
+                String expected = closest(words, distances, Math.min(bound, SymSpell.MAX_DELETES));
+                String got = symspell.suggest(misspelling, bound);
+                if (got == null ? expected != null : !got.equals(expected)){
+                    if (boundWrong++ < 3){
+                        System.out.println("  " + misspelling + " within " + bound + ": " + got + " but expected "
+                                + expected);
+                    }
+                }
+            }
+            String near = closest(words, distances, SymSpell.MAX_DELETES);
+            String got = symspell.suggest(misspelling);
+            if (!got.equals(near != null ? near : misspelling)){
+                if (suggestWrong++ < 3){
+                    System.out.println("  " + misspelling + ": " + got + " but expected " + near);
+                }
+            }
+        }
+        expect("checkWord takes exactly the dictionary words (" + misspellings.size() + " words)", checkWrong == 0);
+        expect("suggest(word, maxDistance) matches brute force for bounds 0 to " + MAX_BOUND, boundWrong == 0);
+        expect("suggest(word) gives the closest word within two edits, or the word", suggestWrong == 0);
+
+        long size = symspell.sizeInBytes();
+        symspell.add(words.get(0));
+        expect("adding a word twice leaves the index as it was", symspell.sizeInBytes() == size);
+
+        symspell.add("zyxwvut");
+        expect("a word added after the others is found", symspell.checkWord("zyxwvut"));
+        expect("a word added after the others is suggested", symspell.suggest("zyxwvtu").equals("zyxwvut")
+                && symspell.suggest("yxwvut", 1).equals("zyxwvut"));
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All SymSpell checks passed.");
+    }
+
+    /***
+     * The closest word within bound, the first one alphabetically among those as close, or null.
+     */
+    private static String closest(List<String> words, int[] distances, int bound){
+        int best = -1;
+        for (int j = 0; j < words.size(); j++){
+            if (distances[j] <= bound && (best < 0 || distances[j] < distances[best])){
+                best = j;
+            }
+        }
+        return best < 0 ? null : words.get(best);
+    }
+
+    /***
+     * Makes one random edit to word: a char dropped, added, changed, or two neighbouring chars swapped.
+     */
+    private static String typo(String word, Random random){
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() + 1);
+        char ch = (char) ('a' + random.nextInt(26));
+        int edit = random.nextInt(4);
+        if (edit == 0 && at < word.length() && word.length() > 1){
+            typo.deleteCharAt(at);
+        } else if (edit == 2 && at < word.length()){
+            typo.setCharAt(at, ch);
+        } else if (edit == 3 && at + 1 < word.length()){
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            typo.insert(at, ch);
+        }
+        return typo.toString();
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
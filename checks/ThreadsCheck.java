@@ -0,0 +1,145 @@
+/*
+ * Checks that CS245A1 writes the same output, in input order, with --threads as without it.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class ThreadsCheck {
+    /** The checker is run in its own JVM, in a new directory with english.0, on an input of dictionary words and
+     * misspellings in mixed case, with punctuation and lines that have no letters at all. Misspellings take far
+     * longer to answer than words, so with more than one thread the answers finish out of order. Each line of the
+     * output has to be the word if the Trie takes it and the Trie's suggestion if not, in input order, and --threads
+     * 1, 2, 3 and 8 have to write the very same file as a run without it. The input is longer than the queue the
+     * main thread keeps, so the queue fills up and drains many times. The Tree is run the same way.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes ThreadsCheck
+     **/
+
+    private static final int LINES = 3000;
+    private static final String[] THREADS = {"1", "2", "3", "8"};
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+
+        Path directory = Files.createTempDirectory("threads");
+        try {
+            Files.copy(Path.of(DictionaryLoader.LOCAL_DICTIONARY),
+                    directory.resolve(DictionaryLoader.LOCAL_DICTIONARY), StandardCopyOption.REPLACE_EXISTING);
+            List<String> tokens = writeInput(directory.resolve("input.txt"), words, new Random(245));
+
+            for (String storage : new String[]{"trie", "tree"}){
+                Files.writeString(directory.resolve("a1properties.txt"), "storage=" + storage + "\n");
+                List<String> plain = run(directory, storage + ".txt");
+                System.out.println(tokens.size() + " words, " + plain.size() + " lines in the plain " + storage
+                        + " output.");
+                if (storage.compareTo("trie") == 0){
+                    List<String> expected = new ArrayList<>();
+                    for (String word : tokens){
+                        expected.add(trie.checkWord(word) ? word : trie.suggest(word));
+                    }
+                    expect("the plain run answers every word in input order", plain.equals(expected));
+                }
+                for (String threads : THREADS){
+                    List<String> output = run(directory, storage + threads + ".txt", "--threads", threads);
+                    expect(storage + " --threads " + threads + " writes the same output as a plain run",
+                            output.equals(plain));
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All threads checks passed.");
+    }
+
+    /***
+     * Runs the checker on input.txt in directory and reads back the output file.
+     */
+    private static List<String> run(Path directory, String output, String... flags)
+            throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        //The class path is usually relative, and the checker runs in another directory.
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            if (classPath.length() > 0){
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        List<String> command = new ArrayList<>(List.of(java, "-cp", classPath.toString(), "CS245A1", "input.txt",
+                output));
+        command.addAll(List.of(flags));
+        File log = directory.resolve(output + ".log").toFile();
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true)
+                .redirectOutput(log).start();
+        if (process.waitFor() != 0){
+            System.out.println(String.join(" ", flags) + " run failed:");
+            System.out.println(Files.readString(log.toPath()));
+            System.exit(1);
+        }
+        return Files.readAllLines(directory.resolve(output), StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Writes LINES lines, about a third of them misspelled, some capitalized or with punctuation around them, and now
+     * and then a line with no letters.
+     * @return the words of the input the way the checker reads them.
+     */
+    private static List<String> writeInput(Path input, List<String> words, Random random) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(input))) {
+            for (int i = 0; i < LINES; i++){
+                StringBuilder word = new StringBuilder(words.get(random.nextInt(words.size())));
+                if (random.nextInt(3) == 0){
+                    word.insert(random.nextInt(word.length() + 1), (char) ('a' + random.nextInt(26)));
+                }
+                switch (random.nextInt(8)){
+                    case 0:
+                        out.println(word.toString().toUpperCase());
+                        break;
+                    case 1:
+                        out.println("\"" + word + "\",");
+                        break;
+                    case 2:
+                        out.println("1234");
+                        continue;
+                    default:
+                        out.println(word);
+                }
+                tokens.add(word.toString().replaceAll("[^a-zA-Z']", "").toLowerCase());
+            }
+        }
+        return tokens;
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Checks that WordTokenizer gives the same words as the replaceAll and toLowerCase it replaced.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TokenizerCheck {
+    /** Random inputs are made from letters in both cases, apostrophes, digits, punctuation, spaces, tabs, accented and
+     * non-Latin letters and chars outside the BMP, with lines ended by \n, \r\n or \r, blank lines, lines longer than
+     * the token array and the read buffer, and sometimes no line end at the very end. The tokenizer reads them through
+     * a Reader that gives back a random number of chars each time, so words and line ends are cut across reads.
+     *
+     * The words have to be exactly what readLine, replaceAll("[^a-zA-Z']", "") and toLowerCase() give, leaving out
+     * lines that come out empty. toString, charAt, subSequence, length and writeTo all have to give the same word,
+     * and charAt past the end has to throw.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes TokenizerCheck
+     **/
+
+    private static final int INPUTS = 2000;
+    private static final String CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ''''"
+            + "0123456789 \t.,;:!?\"-_()éÉüßñçøΩжЖ中";
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(245);
+        int wrong = 0;
+        int views = 0;
+        long words = 0;
+        for (int i = 0; i < INPUTS; i++){
+            String input = input(random);
+            List<String> expected = new ArrayList<>();
+            try (BufferedReader lines = new BufferedReader(new StringReader(input))) {
+                String line;
+                while ((line = lines.readLine()) != null){
+                    String word = line.replaceAll("[^a-zA-Z']", "").toLowerCase();
+                    if (word.compareTo("") != 0){
+                        expected.add(word);
+                    }
+                }
+            }
+
+            List<String> got = new ArrayList<>();
+            WordTokenizer tokenizer = new WordTokenizer(new ChoppyReader(input, random));
+            while (tokenizer.next()){
+                String word = tokenizer.toString();
+                got.add(word);
+                StringWriter written = new StringWriter();
+                tokenizer.writeTo(written);
+                StringBuilder chars = new StringBuilder();
+                for (int c = 0; c < tokenizer.length(); c++){
+                    chars.append(tokenizer.charAt(c));
+                }
+                int from = word.length() / 3;
+                int to = word.length() - word.length() / 4;
+                if (written.toString().compareTo(word) != 0 || chars.toString().compareTo(word) != 0
+                        || tokenizer.subSequence(from, to).toString().compareTo(word.substring(from, to)) != 0
+                        || !pastTheEndThrows(tokenizer)){
+                    views++;
+                }
+            }
+            if (!got.equals(expected)){
+                if (wrong++ < 3){
+                    System.out.println("  " + got + " but expected " + expected);
+                }
+            }
+            words += expected.size();
+        }
+        System.out.println(INPUTS + " inputs, " + words + " words.");
+        expect("the tokenizer gives the same words as replaceAll and toLowerCase", wrong == 0);
+        expect("toString, charAt, subSequence and writeTo give the same word", views == 0);
+
+        WordTokenizer empty = new WordTokenizer(new StringReader(""));
+        WordTokenizer noLetters = new WordTokenizer(new StringReader("123\n\r\n--\n"));
+        expect("an input with no letters has no words", !empty.next() && !noLetters.next());
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All tokenizer checks passed.");
+    }
+
+    /***
+     * A few lines of random chars, now and then one far longer than the rest.
+     */
+    private static String input(Random random){
+        StringBuilder input = new StringBuilder();
+        String[] ends = {"\n", "\r\n", "\r"};
+        int lines = random.nextInt(20);
+        for (int i = 0; i < lines; i++){
+            int length = random.nextInt(50) == 0 ? 100 + random.nextInt(20000) : random.nextInt(16);
+            for (int c = 0; c < length; c++){
+                if (random.nextInt(200) == 0){
+                    input.appendCodePoint(0x1F600 + random.nextInt(40));
+                } else {
+                    input.append(CHARS.charAt(random.nextInt(CHARS.length())));
+                }
+            }
+            if (i < lines - 1 || random.nextBoolean()){
+                input.append(ends[random.nextInt(ends.length)]);
+            }
+        }
+        return input.toString();
+    }
+
+    private static boolean pastTheEndThrows(WordTokenizer tokenizer){
+        try {
+            tokenizer.charAt(tokenizer.length());
+            return false;
+        } catch (IndexOutOfBoundsException e) {
+            return true;
+        }
+    }
+
+    /***
+     * Gives back between 1 and 300 chars on each read, whatever was asked for.
+     */
+    private static class ChoppyReader extends Reader {
+        private final String text;
+        private final Random random;
+        private int position;
+
+        ChoppyReader(String text, Random random){
+            this.text = text;
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length){
+            if (position == text.length()){
+                return -1;
+            }
+            int count = Math.min(Math.min(length, 1 + random.nextInt(300)), text.length() - position);
+            text.getChars(position, position + count, chars, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Checks the bitmap and rank indexed children of Tree, and that it turns down chars it cannot store.
+ */
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TreeCheck {
+    /** A TreeNode keeps a bit per Alphabet char that has a child, and only those children, in Alphabet order, so a
+     * child's place is the number of bits set below its own. Random sets of children are added to nodes in random
+     * order and then half of them taken away, and after every step the bits, the array and getChild have to agree.
+     *
+     * A char outside the Alphabet has no bit. Tree.add has to turn down a word with one and leave the tree as it was,
+     * and addChild has to turn down such a node. Then a Tree of english.0 has to take the same words as a Trie on every
+     * word, every prefix and every word with a char added.
+     *
+     *     mvn -Pchecks compile && java -cp target/classes TreeCheck
+     **/
+
+    private static final int NODES = 500;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(245);
+        int broken = 0;
+        for (int n = 0; n < NODES; n++){
+            Tree.TreeNode node = new Tree.TreeNode(' ');
+            List<Character> chars = new ArrayList<>();
+            for (int i = 0; i < Alphabet.SIZE; i++){
+                chars.add(Alphabet.charAt(i));
+            }
+            Collections.shuffle(chars, random);
+            List<Character> added = chars.subList(0, 1 + random.nextInt(Alphabet.SIZE));
+            for (char c : added){
+                node.addChild(new Tree.TreeNode(c));
+                if (!laidOut(node)){
+                    broken++;
+                }
+            }
+            List<Character> kept = new ArrayList<>(added);
+            Collections.shuffle(kept, random);
+            for (char c : new ArrayList<>(kept.subList(0, kept.size() / 2))){
+                node.removeChild(node.getChild(c));
+                kept.remove((Character) c);
+                if (!laidOut(node)){
+                    broken++;
+                }
+            }
+            for (char c : kept){
+                if (node.getChild(c) == null){
+                    broken++;
+                }
+            }
+        }
+        expect("the bits, the children and getChild agree after every add and remove", broken == 0);
+
+        Tree.TreeNode node = new Tree.TreeNode(' ');
+        node.addChild(new Tree.TreeNode('b'));
+        expect("addChild turns down a char outside the Alphabet", throwsIllegalArgument(
+                () -> node.addChild(new Tree.TreeNode('-'))) && laidOut(node) && node.children.length == 1);
+
+        List<String> words = DictionaryLoader.readWords(new InputStreamReader(
+                new FileInputStream(DictionaryLoader.LOCAL_DICTIONARY), StandardCharsets.UTF_8));
+        Tree tree = new Tree();
+        tree.addAll(new ArrayList<>(words));
+        Trie trie = new Trie();
+        trie.addAll(new ArrayList<>(words));
+
+        long size = tree.sizeInBytes();
+        boolean rejected = throwsIllegalArgument(() -> tree.add("ab-c")) && throwsIllegalArgument(
+                () -> tree.add("zzzé"));
+        expect("Tree.add turns down a word with a char outside the Alphabet", rejected);
+        expect("a word that was turned down leaves the tree as it was", !tree.checkWord("ab-c")
+                && !tree.checkWord("abc") && !tree.checkWord("zzz") && tree.sizeInBytes() == size);
+
+        int disagree = 0;
+        int lookups = 0;
+        for (String word : words){
+            for (int end = 1; end <= word.length(); end++){
+                String prefix = word.substring(0, end);
+                disagree += tree.checkWord(prefix) != trie.checkWord(prefix) ? 1 : 0;
+                lookups++;
+            }
+            String longer = word + Alphabet.charAt(random.nextInt(Alphabet.SIZE));
+            disagree += tree.checkWord(longer) != trie.checkWord(longer) ? 1 : 0;
+            lookups++;
+        }
+        System.out.println(lookups + " strings looked up.");
+        expect("a Tree of english.0 takes the same words as a Trie", disagree == 0);
+
+        if (failures > 0){
+            System.out.println(failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All tree checks passed.");
+    }
+
+    /***
+     * @return true if node has one bit per child, no bit outside the Alphabet, its children in Alphabet order, and
+     * getChild finds each one.
+     */
+    private static boolean laidOut(Tree.TreeNode node){
+        if ((node.present >>> Alphabet.SIZE) != 0 || Integer.bitCount(node.present) != node.children.length){
+            return false;
+        }
+        for (int i = 0; i < node.children.length; i++){
+            Tree.TreeNode child = node.children[i];
+            if (i > 0 && Alphabet.indexOf(node.children[i - 1].data) >= Alphabet.indexOf(child.data)){
+                return false;
+            }
+            if (node.getChild(child.data) != child){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean throwsIllegalArgument(Runnable add){
+        try {
+            add.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static void expect(String what, boolean passed){
+        System.out.println((passed ? "PASS " : "FAIL ") + what);
+        if (!passed){
+            failures++;
+        }
+    }
+}